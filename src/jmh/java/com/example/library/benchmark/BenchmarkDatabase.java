@@ -0,0 +1,106 @@
+package com.example.library.benchmark;
+
+import com.example.library.LibraryApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Starts the application against a private in-memory H2 database and seeds
+ * the books table in a single INSERT ... SELECT, which is fast enough to
+ * reach ten million rows. Rows are numbered so that benchmarks can pick
+ * titles and ids uniformly at random without loading the whole table.
+ */
+final class BenchmarkDatabase {
+
+    private static final int SAMPLE_SIZE = 4096;
+
+    private static final String SEED = """
+            insert into books (id, title, author, genre, number_of_pages, rating, has_read)
+            select random_uuid(),
+                   'Book ' || x,
+                   'Author ' || mod(x, 1000),
+                   array_get(array['Fantasy', 'Horror', 'Mystery', 'Romance', 'Science Fiction',
+                                   'History', 'Biography', 'Poetry'], mod(x, 8) + 1),
+                   100 + mod(x, 900),
+                   mod(x, 5) + 1,
+                   mod(x, 2) = 0
+            from system_range(1, :rows)
+            """;
+
+    private static final String INSERT = """
+            insert into books (id, title, author, genre, number_of_pages, rating, has_read)
+            values (?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private BenchmarkDatabase() {
+    }
+
+    static ConfigurableApplicationContext start(WebApplicationType type, String name) {
+        return new SpringApplicationBuilder(LibraryApplication.class)
+                .web(type)
+                .properties("server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:bench-" + name,
+                        "library.import.directory=${java.io.tmpdir}/library-bench-imports",
+                        "library.export.directory=${java.io.tmpdir}/library-bench-exports",
+                        "logging.level.root=WARN")
+                .run();
+    }
+
+    static void seed(ConfigurableApplicationContext context, int rows) {
+        context.getBean(NamedParameterJdbcTemplate.class).update(SEED, Map.of("rows", rows));
+    }
+
+    /**
+     * Inserts rows {@code first} to {@code first + count - 1} as one JDBC batch
+     * with ids taken from {@code ids}, for benchmarks where the id strategy is
+     * what is being measured.
+     */
+    static int[] insert(ConfigurableApplicationContext context, int first, int count, Supplier<UUID> ids) {
+        return context.getBean(JdbcTemplate.class).batchUpdate(INSERT, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement statement, int i) throws SQLException {
+                int x = first + i;
+                statement.setObject(1, ids.get());
+                statement.setString(2, "Book " + x);
+                statement.setString(3, "Author " + x % 1000);
+                statement.setString(4, "Fantasy");
+                statement.setInt(5, 100 + x % 900);
+                statement.setInt(6, x % 5 + 1);
+                statement.setBoolean(7, x % 2 == 0);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return count;
+            }
+        });
+    }
+
+    static String randomTitle(int rows) {
+        return "Book " + ThreadLocalRandom.current().nextInt(1, rows + 1);
+    }
+
+    static UUID[] sampleIds(ConfigurableApplicationContext context, int rows) {
+        Set<String> titles = new TreeSet<>();
+        while (titles.size() < Math.min(SAMPLE_SIZE, rows)) {
+            titles.add(randomTitle(rows));
+        }
+        List<UUID> ids = context.getBean(NamedParameterJdbcTemplate.class).queryForList(
+                "select id from books where title in (:titles)", Map.of("titles", titles), UUID.class);
+        return ids.toArray(UUID[]::new);
+    }
+}
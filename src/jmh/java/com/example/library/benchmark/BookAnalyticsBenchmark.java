@@ -0,0 +1,85 @@
+package com.example.library.benchmark;
+
+import com.example.library.model.BookCursor;
+import com.example.library.model.BookFilter;
+import com.example.library.model.BookPage;
+import com.example.library.model.BookReport;
+import com.example.library.service.BookAnalyticsService;
+import com.example.library.service.BookService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Sort;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reporting queries answered by the columnar read model and by the filtered
+ * keyset page query against H2: unread horror books over 500 pages, highest
+ * rated first, which the (genre, rating) index serves in order, and horror
+ * books rated 4 or more, longest first, which no index serves in order. The
+ * page bound varies per call so that H2 cannot reuse the previous result.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class BookAnalyticsBenchmark {
+
+
+    @Param({"1000000", "5000000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private BookAnalyticsService bookAnalyticsService;
+    private BookService bookService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkDatabase.start(WebApplicationType.NONE, "analytics-" + rows);
+        BenchmarkDatabase.seed(context, rows);
+        bookAnalyticsService = context.getBean(BookAnalyticsService.class);
+        bookService = context.getBean(BookService.class);
+        bookAnalyticsService.rebuildColumns();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public BookReport columnar() {
+        return bookAnalyticsService.query(unreadOver(randomPages()), "rating,desc", 100);
+    }
+
+    @Benchmark
+    public BookPage database() {
+        return bookService.getPage(unreadOver(randomPages()), BookCursor.first("rating", Sort.Direction.DESC), 100);
+    }
+
+    @Benchmark
+    public BookReport columnarByPages() {
+        return bookAnalyticsService.query(highlyRatedUnder(randomPages()), "numberOfPages,desc", 100);
+    }
+
+    @Benchmark
+    public BookPage databaseByPages() {
+        return bookService.getPage(highlyRatedUnder(randomPages()), BookCursor.first("numberOfPages", Sort.Direction.DESC), 100);
+    }
+
+    private static BookFilter unreadOver(int pages) {
+        return new BookFilter("Horror", null, null, null, pages, null, false);
+    }
+
+    private static BookFilter highlyRatedUnder(int pages) {
+        return new BookFilter("Horror", null, 4, null, null, pages, null);
+    }
+
+    private static int randomPages() {
+        return ThreadLocalRandom.current().nextInt(400, 900);
+    }
+}
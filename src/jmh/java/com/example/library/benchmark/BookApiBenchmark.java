@@ -0,0 +1,78 @@
+package com.example.library.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+
+/**
+ * The full request path through the dispatcher servlet, argument resolution,
+ * the service and message conversion, driven by MockMvc so that no network
+ * stack is involved.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class BookApiBenchmark {
+
+    @Param({"10000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private MockMvc mockMvc;
+    private UUID[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkDatabase.start(WebApplicationType.SERVLET, "api-" + rows);
+        BenchmarkDatabase.seed(context, rows);
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+        ids = BenchmarkDatabase.sampleIds(context, rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public MvcResult getBookById() throws Exception {
+        return mockMvc.perform(get("/api/books/{id}", randomId())).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult getBookByTitle() throws Exception {
+        return mockMvc.perform(get("/api/books/title/{title}", BenchmarkDatabase.randomTitle(rows))).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult getBookPage() throws Exception {
+        return mockMvc.perform(get("/api/books").param("size", "20")).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult patchBook() throws Exception {
+        return mockMvc.perform(patch("/api/books/{id}", randomId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"rating\":" + ThreadLocalRandom.current().nextInt(1, 6) + "}"))
+                .andReturn();
+    }
+
+    private UUID randomId() {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.library.benchmark;
+
+import com.example.library.id.UuidV7;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Insert throughput into a books table that already holds {@code rows}
+ * rows, with random version 4 ids (what {@code GenerationType.UUID} produced)
+ * against time-ordered version 7 ids. The table is seeded with the same id
+ * strategy that is measured, and every invocation appends one JDBC batch, so
+ * the primary-key index keeps growing during the run as it would in
+ * production. Scores are rows per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class BookIdInsertBenchmark {
+
+    private static final int BATCH_SIZE = 1000;
+
+    public enum IdStrategy {
+        RANDOM_V4(UUID::randomUUID),
+        TIME_ORDERED_V7(UuidV7::next);
+
+        private final Supplier<UUID> ids;
+
+        IdStrategy(Supplier<UUID> ids) {
+            this.ids = ids;
+        }
+    }
+
+    @Param({"1000000", "5000000"})
+    public int rows;
+
+    @Param({"RANDOM_V4", "TIME_ORDERED_V7"})
+    public IdStrategy strategy;
+
+    private ConfigurableApplicationContext context;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkDatabase.start(WebApplicationType.NONE, "insert-" + strategy + "-" + rows);
+        for (next = 0; next < rows; next += BATCH_SIZE) {
+            BenchmarkDatabase.insert(context, next, Math.min(BATCH_SIZE, rows - next), strategy.ids);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public int[] insertBatch() {
+        int[] counts = BenchmarkDatabase.insert(context, next, BATCH_SIZE, strategy.ids);
+        next += BATCH_SIZE;
+        return counts;
+    }
+}
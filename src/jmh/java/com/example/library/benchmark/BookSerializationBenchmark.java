@@ -0,0 +1,75 @@
+package com.example.library.benchmark;
+
+import com.example.library.model.Book;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of a single {@link Book} and of book lists of the
+ * sizes returned by a default page and by the largest allowed page, using a
+ * mapper configured the same way as Spring Boot's.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BookSerializationBenchmark {
+
+    @Param({"20", "1000"})
+    public int listSize;
+
+    private ObjectMapper objectMapper;
+    private ObjectWriter listWriter;
+    private Book book;
+    private List<Book> books;
+    private byte[] bookJson;
+    private byte[] booksJson;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        listWriter = objectMapper.writerFor(TypeFactory.defaultInstance().constructCollectionType(List.class, Book.class));
+        book = book(1);
+        books = new ArrayList<>(listSize);
+        for (int i = 0; i < listSize; i++) {
+            books.add(book(i));
+        }
+        bookJson = objectMapper.writeValueAsBytes(book);
+        booksJson = listWriter.writeValueAsBytes(books);
+    }
+
+    @Benchmark
+    public byte[] serializeBook() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(book);
+    }
+
+    @Benchmark
+    public byte[] serializeBookList() throws JsonProcessingException {
+        return listWriter.writeValueAsBytes(books);
+    }
+
+    @Benchmark
+    public Book deserializeBook() throws Exception {
+        return objectMapper.readValue(bookJson, Book.class);
+    }
+
+    @Benchmark
+    public List<Book> deserializeBookList() throws Exception {
+        return objectMapper.readerForListOf(Book.class).readValue(booksJson);
+    }
+
+    private static Book book(int i) {
+        return new Book(UUID.randomUUID(), "Book " + i, "Author " + i % 1000, "Fantasy", 100 + i % 900, i % 5 + 1, i % 2 == 0);
+    }
+}
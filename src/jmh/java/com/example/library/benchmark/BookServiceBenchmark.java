@@ -0,0 +1,66 @@
+package com.example.library.benchmark;
+
+import com.example.library.model.Book;
+import com.example.library.service.BookService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service-level hot paths against an H2 database seeded with 10k, 1M and 10M
+ * books. {@code getById} goes through the read-through cache, so the smallest
+ * data set measures cache hits while the larger ones are dominated by misses.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class BookServiceBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private UUID[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkDatabase.start(WebApplicationType.NONE, "service-" + rows);
+        BenchmarkDatabase.seed(context, rows);
+        bookService = context.getBean(BookService.class);
+        ids = BenchmarkDatabase.sampleIds(context, rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Book getById() {
+        return bookService.getById(randomId());
+    }
+
+    @Benchmark
+    public List<Book> getByTitle() {
+        return bookService.getByTitle(BenchmarkDatabase.randomTitle(rows));
+    }
+
+    @Benchmark
+    public Book patch() {
+        Book changes = new Book(null, null, null, null, null, ThreadLocalRandom.current().nextInt(1, 6), null);
+        return bookService.patch(changes, randomId());
+    }
+
+    private UUID randomId() {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+}
@@ -0,0 +1,441 @@
+package com.example.library.analytics;
+
+import com.example.library.event.BookDeletedEvent;
+import com.example.library.event.BookSavedEvent;
+import com.example.library.event.BookTombstones;
+import com.example.library.model.Book;
+import com.example.library.model.BookFilter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The catalog stored column by column: pages, ratings and versions in
+ * primitive arrays, {@code hasRead} in two bitsets (read and unread, so that
+ * a null value is in neither) and genre and author as codes into a
+ * dictionary. Rows are kept dense by moving the last row into the slot of a
+ * deleted one. Queries filter and sort row ranges in parallel on the
+ * common fork-join pool, as a merge sort that only keeps the first
+ * {@code limit} rows of each range; rows with equal sort keys come back in
+ * storage order.
+ * <p>
+ * Saves only replace a row with an equal or newer version, and saves of
+ * deleted books are dropped through {@link BookTombstones}, so neither a late
+ * event nor the startup load can undo a newer change.
+ */
+@Component
+@ConditionalOnProperty(prefix = "library.analytics", name = "enabled", matchIfMissing = true)
+public class BookColumns {
+
+    static final int LEAF_SIZE = 1 << 15;
+    private static final int NULL_INT = Integer.MIN_VALUE;
+    private static final int NULL_CODE = -1;
+
+    private final Map<UUID, Integer> rowById = new HashMap<>();
+    private final Dictionary genres = new Dictionary();
+    private final Dictionary authors = new Dictionary();
+    private final BookTombstones tombstones = new BookTombstones();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private UUID[] ids = new UUID[1024];
+    private String[] titles = new String[1024];
+    private int[] genreCodes = new int[1024];
+    private int[] authorCodes = new int[1024];
+    private int[] pages = new int[1024];
+    private int[] ratings = new int[1024];
+    private long[] versions = new long[1024];
+    private final BitSet read = new BitSet();
+    private final BitSet unread = new BitSet();
+    private int size;
+    private volatile boolean ready;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void markReady() {
+        lock.writeLock().lock();
+        try {
+            tombstones.markLoaded();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookSaved(BookSavedEvent event) {
+        add(event.book());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookDeleted(BookDeletedEvent event) {
+        remove(event.id());
+    }
+
+    public void add(Book book) {
+        lock.writeLock().lock();
+        try {
+            upsertLocked(book);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(UUID id) {
+        lock.writeLock().lock();
+        try {
+            tombstones.add(id);
+            Integer row = rowById.remove(id);
+            if (row == null) {
+                return;
+            }
+            int last = --size;
+            if (row != last) {
+                moveLocked(last, row);
+                rowById.put(ids[row], row);
+            }
+            ids[last] = null;
+            titles[last] = null;
+            read.clear(last);
+            unread.clear(last);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Result query(BookFilter filter, String sortProperty, Sort.Direction direction, int limit) {
+        filter.validate();
+        lock.readLock().lock();
+        try {
+            int genre = filter.genre() == null ? NULL_CODE : genres.code(filter.genre());
+            int author = filter.author() == null ? NULL_CODE : authors.code(filter.author());
+            if ((filter.genre() != null && genre == NULL_CODE) || (filter.author() != null && author == NULL_CODE)) {
+                return new Result(List.of(), 0);
+            }
+            Criteria criteria = new Criteria(genre, author,
+                    filter.hasRead() == null ? null : filter.hasRead() ? read : unread,
+                    filter.minRating() != null || filter.maxRating() != null,
+                    filter.minRating() == null ? Integer.MIN_VALUE : filter.minRating(),
+                    filter.maxRating() == null ? Integer.MAX_VALUE : filter.maxRating(),
+                    filter.minPages() != null || filter.maxPages() != null,
+                    filter.minPages() == null ? Integer.MIN_VALUE : filter.minPages(),
+                    filter.maxPages() == null ? Integer.MAX_VALUE : filter.maxPages());
+            Matches matches = ForkJoinPool.commonPool().invoke(
+                    new Scan(criteria, ordering(sortProperty, direction), limit, 0, size));
+            List<Book> books = new ArrayList<>(matches.rows().length);
+            for (long match : matches.rows()) {
+                books.add(bookAt((int) match));
+            }
+            return new Result(books, matches.total());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public record Result(List<Book> books, int total) {
+    }
+
+    private Ordering ordering(String sortProperty, Sort.Direction direction) {
+        if (sortProperty == null) {
+            return null;
+        }
+        boolean descending = direction == Sort.Direction.DESC;
+        return switch (sortProperty) {
+            case "rating" -> new Ordering(ratings, null, descending);
+            case "numberOfPages" -> new Ordering(pages, null, descending);
+            case "genre" -> new Ordering(genreCodes, genres.ranks(), descending);
+            case "author" -> new Ordering(authorCodes, authors.ranks(), descending);
+            default -> throw new IllegalArgumentException("Cannot sort by " + sortProperty + ".");
+        };
+    }
+
+    /**
+     * The column to sort by and the direction. For genre and author the
+     * column holds dictionary codes and {@code ranks} maps each code to the
+     * position of its string in sorted order, so comparing ranks compares
+     * the strings.
+     */
+    private record Ordering(int[] column, int[] ranks, boolean descending) {
+    }
+
+    /**
+     * A filter with its strings replaced by dictionary codes and its bounds
+     * unboxed. A code of {@code NULL_CODE} means no condition on the column.
+     */
+    private record Criteria(int genre, int author, BitSet hasRead, boolean checkRating, int minRating, int maxRating,
+                            boolean checkPages, int minPages, int maxPages) {
+    }
+
+    /**
+     * Up to {@code limit} matching rows, sorted when the query is, and the
+     * number of rows that matched in total. The sort key goes in the high
+     * half of each long and the row in the low half, so ordering the longs
+     * orders the rows by key.
+     */
+    private record Matches(long[] rows, int total) {
+    }
+
+    /**
+     * Scans a range of rows, splitting it in half until it is at most
+     * {@link #LEAF_SIZE} rows long. Each leaf keeps its best {@code limit}
+     * matches and each join merges two such lists, so a query never holds
+     * more than {@code limit} matches per task whatever the selectivity.
+     */
+    private final class Scan extends RecursiveTask<Matches> {
+
+        private final Criteria criteria;
+        private final Ordering ordering;
+        private final int limit;
+        private final int from;
+        private final int to;
+
+        Scan(Criteria criteria, Ordering ordering, int limit, int from, int to) {
+            this.criteria = criteria;
+            this.ordering = ordering;
+            this.limit = limit;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Matches compute() {
+            if (to - from <= LEAF_SIZE) {
+                return scan();
+            }
+            int middle = (from + to) >>> 1;
+            Scan left = new Scan(criteria, ordering, limit, from, middle);
+            Scan right = new Scan(criteria, ordering, limit, middle, to);
+            left.fork();
+            Matches rightMatches = right.compute();
+            Matches leftMatches = left.join();
+            return new Matches(merge(leftMatches.rows(), rightMatches.rows()),
+                    leftMatches.total() + rightMatches.total());
+        }
+
+        private Matches scan() {
+            long[] rows = new long[Math.min(to - from, 1024)];
+            int count = 0;
+            for (int row = from; row < to; row++) {
+                if (matches(row)) {
+                    if (count == rows.length) {
+                        rows = Arrays.copyOf(rows, Math.min(to - from, rows.length * 2));
+                    }
+                    rows[count++] = ordering == null ? row : ((long) sortKey(row) << 32) | row;
+                }
+            }
+            int kept = Math.min(count, limit);
+            if (ordering != null) {
+                if (kept < count) {
+                    selectSmallest(rows, count, kept);
+                }
+                Arrays.sort(rows, 0, kept);
+            }
+            return new Matches(Arrays.copyOf(rows, kept), count);
+        }
+
+        /**
+         * Moves the {@code k} smallest of the first {@code n} values to the
+         * front of the array in no particular order, by quickselect.
+         */
+        private static void selectSmallest(long[] values, int n, int k) {
+            int lo = 0;
+            int hi = n - 1;
+            while (lo < hi) {
+                long pivot = values[(lo + hi) >>> 1];
+                int i = lo;
+                int j = hi;
+                while (i <= j) {
+                    while (values[i] < pivot) {
+                        i++;
+                    }
+                    while (values[j] > pivot) {
+                        j--;
+                    }
+                    if (i <= j) {
+                        long swap = values[i];
+                        values[i++] = values[j];
+                        values[j--] = swap;
+                    }
+                }
+                if (k - 1 <= j) {
+                    hi = j;
+                } else if (k - 1 >= i) {
+                    lo = i;
+                } else {
+                    return;
+                }
+            }
+        }
+
+        private long[] merge(long[] left, long[] right) {
+            long[] merged = new long[Math.min(left.length + right.length, limit)];
+            if (ordering == null) {
+                int fromLeft = Math.min(left.length, merged.length);
+                System.arraycopy(left, 0, merged, 0, fromLeft);
+                System.arraycopy(right, 0, merged, fromLeft, merged.length - fromLeft);
+                return merged;
+            }
+            int i = 0;
+            int j = 0;
+            for (int k = 0; k < merged.length; k++) {
+                merged[k] = j == right.length || (i < left.length && left[i] <= right[j]) ? left[i++] : right[j++];
+            }
+            return merged;
+        }
+
+        private boolean matches(int row) {
+            if (criteria.genre() != NULL_CODE && genreCodes[row] != criteria.genre()) {
+                return false;
+            }
+            if (criteria.author() != NULL_CODE && authorCodes[row] != criteria.author()) {
+                return false;
+            }
+            if (criteria.hasRead() != null && !criteria.hasRead().get(row)) {
+                return false;
+            }
+            int rating = ratings[row];
+            if (criteria.checkRating() && (rating == NULL_INT || rating < criteria.minRating() || rating > criteria.maxRating())) {
+                return false;
+            }
+            int numberOfPages = pages[row];
+            return !criteria.checkPages()
+                    || (numberOfPages != NULL_INT && numberOfPages >= criteria.minPages() && numberOfPages <= criteria.maxPages());
+        }
+
+        private int sortKey(int row) {
+            int value = ordering.column()[row];
+            if (ordering.ranks() != null) {
+                value = value == NULL_CODE ? NULL_INT : ordering.ranks()[value];
+            }
+            if (value == NULL_INT) {
+                return Integer.MAX_VALUE;
+            }
+            return ordering.descending() ? ~value : value;
+        }
+    }
+
+    private void upsertLocked(Book book) {
+        if (tombstones.contains(book.getId())) {
+            return;
+        }
+        Integer existing = rowById.get(book.getId());
+        int row;
+        if (existing != null) {
+            row = existing;
+            if (book.getVersion() != null && book.getVersion() < versions[row]) {
+                return;
+            }
+        } else {
+            row = size++;
+            ensureCapacityLocked(size);
+            rowById.put(book.getId(), row);
+        }
+        ids[row] = book.getId();
+        titles[row] = book.getTitle();
+        genreCodes[row] = book.getGenre() == null ? NULL_CODE : genres.encode(book.getGenre());
+        authorCodes[row] = book.getAuthor() == null ? NULL_CODE : authors.encode(book.getAuthor());
+        pages[row] = book.getNumberOfPages() == null ? NULL_INT : book.getNumberOfPages();
+        ratings[row] = book.getRating() == null ? NULL_INT : book.getRating();
+        versions[row] = book.getVersion() == null ? 0 : book.getVersion();
+        read.set(row, Boolean.TRUE.equals(book.getHasRead()));
+        unread.set(row, Boolean.FALSE.equals(book.getHasRead()));
+    }
+
+    private void moveLocked(int from, int to) {
+        ids[to] = ids[from];
+        titles[to] = titles[from];
+        genreCodes[to] = genreCodes[from];
+        authorCodes[to] = authorCodes[from];
+        pages[to] = pages[from];
+        ratings[to] = ratings[from];
+        versions[to] = versions[from];
+        read.set(to, read.get(from));
+        unread.set(to, unread.get(from));
+    }
+
+    private void ensureCapacityLocked(int capacity) {
+        if (capacity <= ids.length) {
+            return;
+        }
+        int length = Math.max(capacity, ids.length * 2);
+        ids = Arrays.copyOf(ids, length);
+        titles = Arrays.copyOf(titles, length);
+        genreCodes = Arrays.copyOf(genreCodes, length);
+        authorCodes = Arrays.copyOf(authorCodes, length);
+        pages = Arrays.copyOf(pages, length);
+        ratings = Arrays.copyOf(ratings, length);
+        versions = Arrays.copyOf(versions, length);
+    }
+
+    private Book bookAt(int row) {
+        return new Book(ids[row], titles[row], authors.value(authorCodes[row]), genres.value(genreCodes[row]),
+                pages[row] == NULL_INT ? null : pages[row], ratings[row] == NULL_INT ? null : ratings[row],
+                read.get(row) ? Boolean.TRUE : unread.get(row) ? Boolean.FALSE : null, versions[row], null);
+    }
+
+    /**
+     * Maps each distinct string to a dense code. Codes are never reused, so
+     * values that no longer occur in any row stay in the dictionary.
+     */
+    private static final class Dictionary {
+
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+        private int[] ranks;
+
+        int encode(String value) {
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                codes.put(value, code);
+                values.add(value);
+                ranks = null;
+            }
+            return code;
+        }
+
+        int code(String value) {
+            return codes.getOrDefault(value, NULL_CODE);
+        }
+
+        String value(int code) {
+            return code == NULL_CODE ? null : values.get(code);
+        }
+
+        synchronized int[] ranks() {
+            if (ranks == null) {
+                Integer[] byValue = new Integer[values.size()];
+                Arrays.setAll(byValue, i -> i);
+                Arrays.sort(byValue, (a, b) -> values.get(a).compareTo(values.get(b)));
+                int[] computed = new int[byValue.length];
+                for (int rank = 0; rank < byValue.length; rank++) {
+                    computed[byValue[rank]] = rank;
+                }
+                ranks = computed;
+            }
+            return ranks;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.library.cache;
+
+import com.example.library.event.BookDeletedEvent;
+import com.example.library.event.BookSavedEvent;
+import com.example.library.model.Book;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded LRU cache of books keyed by id with a time-to-live per entry.
+ * Loads are tagged with the invalidation generation they started in, so a
+ * lookup that raced with a write never puts a stale book back in the cache.
+ * Writers evict inline and again once their transaction commits, so a load
+ * of the old row that started before the commit cannot outlive it either.
+ */
+@Component
+public class BookCache {
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+    private final Map<UUID, Entry> entries;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+    private long generation;
+
+    @Autowired
+    public BookCache(@Value("${library.cache.max-size:10000}") int maxSize,
+                     @Value("${library.cache.ttl:PT10M}") Duration ttl) {
+        this(maxSize, ttl, System::nanoTime);
+    }
+
+    BookCache(int maxSize, Duration ttl, LongSupplier nanoClock) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.nanoClock = nanoClock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, Entry> eldest) {
+                if (size() > BookCache.this.maxSize) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public synchronized Book get(UUID id) {
+        Entry entry = entries.get(id);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (nanoClock.getAsLong() - entry.loadedAt() >= ttlNanos) {
+            entries.remove(id);
+            expirations++;
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.book();
+    }
+
+    public synchronized long generation() {
+        return generation;
+    }
+
+    public synchronized void put(Book book, long loadedInGeneration) {
+        if (maxSize > 0 && loadedInGeneration == generation) {
+            entries.put(book.getId(), new Entry(book, nanoClock.getAsLong()));
+        }
+    }
+
+    public synchronized void evict(UUID id) {
+        generation++;
+        entries.remove(id);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookSaved(BookSavedEvent event) {
+        evict(event.book().getId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookDeleted(BookDeletedEvent event) {
+        evict(event.id());
+    }
+
+    public synchronized void clear() {
+        generation++;
+        entries.clear();
+    }
+
+    public synchronized CacheStats stats() {
+        return new CacheStats(entries.size(), hits, misses, evictions, expirations);
+    }
+
+    private record Entry(Book book, long loadedAt) {
+    }
+}
@@ -0,0 +1,4 @@
+package com.example.library.cache;
+
+public record CacheStats(int size, long hits, long misses, long evictions, long expirations) {
+}
@@ -0,0 +1,15 @@
+package com.example.library.cache;
+
+import org.springframework.util.DigestUtils;
+
+/**
+ * A serialized list response and its ETag. The tag is weak because the
+ * container may gzip the body, and Tomcat does not compress responses that
+ * carry a strong ETag.
+ */
+public record CachedResponse(byte[] body, String eTag) {
+
+    public static CachedResponse of(byte[] body) {
+        return new CachedResponse(body, "W/\"" + DigestUtils.md5DigestAsHex(body) + "\"");
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.library.cache;
+
+import com.example.library.event.BookDeletedEvent;
+import com.example.library.event.BookSavedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Bounded LRU cache of serialized list and search responses keyed by the
+ * request that produced them. The cache is bounded by the total size of the
+ * cached bodies as well as by their number, and a body larger than the
+ * per-entry limit, such as an unpaged list of a big table, is served but
+ * never cached. Any book write clears the whole cache, because
+ * a single change can affect every list and search result. As in
+ * {@link BookCache}, a response that was being built while a write happened
+ * is returned to its caller but not cached.
+ */
+@Component
+public class SerializedResponseCache {
+
+    private final int maxSize;
+    private final long maxBytes;
+    private final long maxEntryBytes;
+    private final Map<String, CachedResponse> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long generation;
+
+    public SerializedResponseCache(@Value("${library.response-cache.max-size:1000}") int maxSize,
+                                   @Value("${library.response-cache.max-bytes:64MB}") DataSize maxBytes,
+                                   @Value("${library.response-cache.max-entry-bytes:1MB}") DataSize maxEntryBytes) {
+        this.maxSize = maxSize;
+        this.maxBytes = maxBytes.toBytes();
+        this.maxEntryBytes = Math.min(maxEntryBytes.toBytes(), this.maxBytes);
+    }
+
+    public CachedResponse get(String key, Supplier<byte[]> loader) {
+        long loadedInGeneration;
+        synchronized (this) {
+            CachedResponse cached = entries.get(key);
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+            misses++;
+            loadedInGeneration = generation;
+        }
+        CachedResponse response = CachedResponse.of(loader.get());
+        synchronized (this) {
+            if (maxSize > 0 && response.body().length <= maxEntryBytes && loadedInGeneration == generation) {
+                CachedResponse previous = entries.put(key, response);
+                if (previous != null) {
+                    bytes -= previous.body().length;
+                }
+                bytes += response.body().length;
+                evict();
+            }
+        }
+        return response;
+    }
+
+    private void evict() {
+        Iterator<CachedResponse> eldest = entries.values().iterator();
+        while (entries.size() > maxSize || bytes > maxBytes) {
+            bytes -= eldest.next().body().length;
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookSaved(BookSavedEvent event) {
+        clear();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookDeleted(BookDeletedEvent event) {
+        clear();
+    }
+
+    public synchronized void clear() {
+        generation++;
+        entries.clear();
+        bytes = 0;
+    }
+
+    public synchronized CacheStats stats() {
+        return new CacheStats(entries.size(), hits, misses, evictions, 0);
+    }
+}
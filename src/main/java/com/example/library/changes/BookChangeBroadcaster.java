@@ -0,0 +1,171 @@
+package com.example.library.changes;
+
+import com.example.library.model.BookChange;
+import com.example.library.repository.BookChangeRepository;
+import com.example.library.routing.BookShards;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Fans published book changes out to Server-Sent Events subscribers. A new
+ * subscriber first replays everything published after its starting sequence
+ * number from the outbox, then joins the live subscribers, replays once more
+ * to catch up on whatever was published in between, and only then starts
+ * sending live batches. Each subscriber skips sequence numbers it has already
+ * been sent, so the hand-over neither drops nor repeats events. With several
+ * shards the replay reads every shard's outbox and merges them by sequence
+ * number.
+ * <p>
+ * {@link #broadcast} never writes to a connection itself: it offers the batch
+ * to each subscriber's bounded queue, and the subscriber's own task on the
+ * executor sends it. A subscriber whose queue is full has fallen too far
+ * behind and is completed, so one slow client cannot hold up the publisher
+ * or the other subscribers; it can reconnect with Last-Event-ID to resume.
+ */
+@Component
+public class BookChangeBroadcaster {
+
+    static final String EVENT_NAME = "book-change";
+
+    private final BookChangeRepository bookChangeRepository;
+    private final BookShards bookShards;
+    private final TaskExecutor taskExecutor;
+    private final long timeoutMillis;
+    private final int replayBatchSize;
+    private final int bufferSize;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    public BookChangeBroadcaster(BookChangeRepository bookChangeRepository, BookShards bookShards,
+                                 @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor,
+                                 @Value("${library.changes.sse-timeout:PT30M}") Duration timeout,
+                                 @Value("${library.changes.batch-size:500}") int replayBatchSize,
+                                 @Value("${library.changes.subscriber-buffer:64}") int bufferSize) {
+        this.bookChangeRepository = bookChangeRepository;
+        this.bookShards = bookShards;
+        this.taskExecutor = taskExecutor;
+        this.timeoutMillis = timeout.toMillis();
+        this.replayBatchSize = replayBatchSize;
+        this.bufferSize = bufferSize;
+    }
+
+    public SseEmitter subscribe(long afterSeq) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter, afterSeq, bufferSize);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        taskExecutor.execute(() -> {
+            try {
+                replay(subscriber);
+                subscribers.add(subscriber);
+                replay(subscriber);
+            } catch (IOException | RuntimeException e) {
+                drop(subscriber, e);
+                return;
+            }
+            drain(subscriber);
+        });
+        return emitter;
+    }
+
+    public void broadcast(List<BookChange> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        for (Subscriber subscriber : subscribers) {
+            if (!subscriber.pending.offer(changes)) {
+                // completing waits for a send in progress, so it is left to the executor as well
+                subscribers.remove(subscriber);
+                taskExecutor.execute(() -> drop(subscriber, null));
+            } else if (subscriber.draining.compareAndSet(false, true)) {
+                taskExecutor.execute(() -> drain(subscriber));
+            }
+        }
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    private void drain(Subscriber subscriber) {
+        do {
+            try {
+                List<BookChange> changes;
+                while ((changes = subscriber.pending.poll()) != null) {
+                    subscriber.send(changes);
+                }
+            } catch (IOException | RuntimeException e) {
+                drop(subscriber, e);
+                return;
+            } finally {
+                subscriber.draining.set(false);
+            }
+        } while (!subscriber.pending.isEmpty() && subscriber.draining.compareAndSet(false, true));
+    }
+
+    private void drop(Subscriber subscriber, Throwable failure) {
+        subscribers.remove(subscriber);
+        subscriber.pending.clear();
+        if (failure == null) {
+            subscriber.emitter.complete();
+        } else {
+            subscriber.emitter.completeWithError(failure);
+        }
+    }
+
+    private void replay(Subscriber subscriber) throws IOException {
+        List<BookChange> changes;
+        do {
+            long after = subscriber.lastSeq;
+            changes = bookShards.onEveryShard(() -> bookChangeRepository.findPublishedAfter(after, Limit.of(replayBatchSize)))
+                    .stream()
+                    .flatMap(List::stream)
+                    .sorted(Comparator.comparing(BookChange::getPublishedSeq))
+                    .limit(replayBatchSize)
+                    .toList();
+            subscriber.send(changes);
+        } while (changes.size() == replayBatchSize);
+    }
+
+    private static final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final BlockingQueue<List<BookChange>> pending;
+        // set while replaying or sending, so only one thread writes to the emitter at a time
+        private final AtomicBoolean draining = new AtomicBoolean(true);
+        private long lastSeq;
+
+        private Subscriber(SseEmitter emitter, long lastSeq, int bufferSize) {
+            this.emitter = emitter;
+            this.pending = new ArrayBlockingQueue<>(bufferSize);
+            this.lastSeq = lastSeq;
+        }
+
+        private void send(List<BookChange> changes) throws IOException {
+            for (BookChange change : changes) {
+                if (change.getPublishedSeq() <= lastSeq) {
+                    continue;
+                }
+                emitter.send(SseEmitter.event()
+                        .id(Long.toString(change.getPublishedSeq()))
+                        .name(EVENT_NAME)
+                        .data(change, MediaType.APPLICATION_JSON));
+                lastSeq = change.getPublishedSeq();
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.library.changes;
+
+import com.example.library.model.BookChange;
+import com.example.library.repository.BookChangeRepository;
+import com.example.library.routing.BookShards;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Append-only newline-delimited JSON file of published book changes. Each
+ * batch is written and forced to disk before it is acknowledged, and
+ * {@link #length()} only ever covers whole lines, so any length handed out is
+ * a safe offset for a consumer to resume tailing from. The log mirrors the
+ * outbox, so it is truncated when no shard's outbox has ever been published
+ * to, as happens with fresh in-memory databases.
+ */
+@Component
+public class BookChangeLog {
+
+    private final Path path;
+    private final ObjectMapper objectMapper;
+    private final FileChannel channel;
+
+    private long length;
+
+    public BookChangeLog(@Value("${library.changes.log-file}") Path path, ObjectMapper objectMapper,
+                         BookChangeRepository bookChangeRepository, BookShards bookShards) throws IOException {
+        this.path = path;
+        this.objectMapper = objectMapper;
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        if (neverPublished(bookChangeRepository, bookShards)) {
+            channel.truncate(0);
+        }
+        this.length = channel.size();
+        channel.position(length);
+    }
+
+    private static boolean neverPublished(BookChangeRepository bookChangeRepository, BookShards bookShards) {
+        // one shard at a time on this thread: fan-out threads would block on the bean being constructed
+        for (int shard = 0; shard < bookShards.count(); shard++) {
+            if (bookShards.onShard(shard, bookChangeRepository::findLastPublishedSeq) > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public synchronized void append(List<BookChange> changes) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(changes.size() * 256);
+        for (BookChange change : changes) {
+            buffer.write(objectMapper.writeValueAsBytes(change));
+            buffer.write('\n');
+        }
+        ByteBuffer bytes = ByteBuffer.wrap(buffer.toByteArray());
+        try {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            channel.truncate(length);
+            channel.position(length);
+            throw e;
+        }
+        length = channel.position();
+    }
+
+    public synchronized long length() {
+        return length;
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    public void copyTo(OutputStream out, long from, long to) throws IOException {
+        try (FileChannel reader = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = from;
+            while (position < to) {
+                long transferred = reader.transferTo(position, to - position, target);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+            }
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+}
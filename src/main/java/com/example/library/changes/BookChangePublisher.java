@@ -0,0 +1,104 @@
+package com.example.library.changes;
+
+import com.example.library.model.BookChange;
+import com.example.library.repository.BookChangeRepository;
+import com.example.library.routing.BookShards;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * Drains the {@code book_changes} outbox in id order. Each batch is given
+ * consecutive sequence numbers, appended to the {@link BookChangeLog} and
+ * marked published in one transaction, and is broadcast to SSE subscribers
+ * once that transaction has committed. If the commit fails after the log
+ * write the batch is published again, so delivery is at-least-once and
+ * consumers should de-duplicate on the change id.
+ * <p>
+ * Changes are written on the shard of their book, so each shard has its own
+ * outbox. A batch drains the shards one after the other, numbering on from
+ * the highest sequence number published on any shard; changes to one book
+ * stay in order because they all come from the same shard.
+ */
+@Component
+public class BookChangePublisher {
+
+    private static final Logger log = LoggerFactory.getLogger(BookChangePublisher.class);
+
+    private final BookChangeRepository bookChangeRepository;
+    private final BookChangeLog bookChangeLog;
+    private final BookChangeBroadcaster bookChangeBroadcaster;
+    private final BookShards bookShards;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public BookChangePublisher(BookChangeRepository bookChangeRepository, BookChangeLog bookChangeLog,
+                               BookChangeBroadcaster bookChangeBroadcaster, BookShards bookShards,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${library.changes.batch-size:500}") int batchSize) {
+        this.bookChangeRepository = bookChangeRepository;
+        this.bookChangeLog = bookChangeLog;
+        this.bookChangeBroadcaster = bookChangeBroadcaster;
+        this.bookShards = bookShards;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${library.changes.publish-interval:PT0.2S}")
+    public void publishPending() {
+        try {
+            while (publishBatch() >= batchSize) {
+                // keep draining until the outbox is caught up
+            }
+        } catch (RuntimeException e) {
+            log.warn("Publishing book changes failed, will retry", e);
+        }
+    }
+
+    /**
+     * Publishes up to {@code batch-size} changes from each shard and returns the
+     * largest number published from a single shard, so a result of
+     * {@code batch-size} means some shard may have more waiting.
+     */
+    public synchronized int publishBatch() {
+        long lastSeq = lastPublishedSeq();
+        int largest = 0;
+        for (int shard = 0; shard < bookShards.count(); shard++) {
+            long seq = lastSeq;
+            List<BookChange> changes = bookShards.onShard(shard, () -> transactionTemplate.execute(status -> {
+                List<BookChange> batch = bookChangeRepository.findUnpublished(Limit.of(batchSize));
+                if (batch.isEmpty()) {
+                    return batch;
+                }
+                long next = seq;
+                for (BookChange change : batch) {
+                    change.setPublishedSeq(++next);
+                }
+                try {
+                    bookChangeLog.append(batch);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return batch;
+            }));
+            bookChangeBroadcaster.broadcast(changes);
+            lastSeq += changes.size();
+            largest = Math.max(largest, changes.size());
+        }
+        return largest;
+    }
+
+    private long lastPublishedSeq() {
+        return bookShards.onEveryShard(bookChangeRepository::findLastPublishedSeq).stream()
+                .mapToLong(Long::longValue).max().orElse(0);
+    }
+}
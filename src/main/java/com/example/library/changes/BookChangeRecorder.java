@@ -0,0 +1,54 @@
+package com.example.library.changes;
+
+import com.example.library.model.Book;
+import com.example.library.model.BookChange;
+import com.example.library.repository.BookChangeRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.UncheckedIOException;
+
+/**
+ * Writes book mutations to the {@code book_changes} outbox. Every method
+ * requires an existing transaction, so a change row is committed if and only
+ * if the mutation it describes is.
+ */
+@Component
+public class BookChangeRecorder {
+
+    private final BookChangeRepository bookChangeRepository;
+    private final ObjectMapper objectMapper;
+
+    public BookChangeRecorder(BookChangeRepository bookChangeRepository, ObjectMapper objectMapper) {
+        this.bookChangeRepository = bookChangeRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordCreated(Book book) {
+        record(BookChange.Type.CREATED, book);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordUpdated(Book book) {
+        record(BookChange.Type.UPDATED, book);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordDeleted(Book book) {
+        record(BookChange.Type.DELETED, book);
+    }
+
+    private void record(BookChange.Type type, Book book) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(book);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        bookChangeRepository.save(new BookChange(type, book.getId(), book.getVersion(), payload));
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.library.config;
+
+import com.example.library.cache.BookCache;
+import com.example.library.repository.BookRepository;
+import com.example.library.repository.ImportJobRepository;
+import com.example.library.routing.BookShards;
+import com.example.library.service.BookWriteQueue;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Enables {@code @Timed} on service beans and registers the entity count,
+ * book cache and write queue meters. Request timings ({@code http.server.requests}),
+ * repository timings ({@code spring.data.repository.invocations}), Hikari
+ * pool usage and Hibernate statistics are auto-configured by Spring Boot.
+ */
+@Configuration
+public class MetricsConfiguration {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    @Bean
+    public MeterBinder libraryMeters(BookRepository bookRepository, BookShards bookShards,
+                                     ImportJobRepository importJobRepository, BookCache bookCache,
+                                     BookWriteQueue bookWriteQueue) {
+        return registry -> {
+            Gauge.builder("library.entities", bookShards,
+                            shards -> shards.onEveryShard(bookRepository::count).stream().mapToLong(Long::longValue).sum())
+                    .tag("entity", "book")
+                    .description("Number of rows per entity")
+                    .register(registry);
+            Gauge.builder("library.entities", importJobRepository, ImportJobRepository::count)
+                    .tag("entity", "import_job")
+                    .description("Number of rows per entity")
+                    .register(registry);
+            Gauge.builder("library.cache.size", bookCache, cache -> cache.stats().size())
+                    .register(registry);
+            FunctionCounter.builder("library.cache.requests", bookCache, cache -> cache.stats().hits())
+                    .tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("library.cache.requests", bookCache, cache -> cache.stats().misses())
+                    .tag("result", "miss")
+                    .register(registry);
+            FunctionCounter.builder("library.cache.removals", bookCache, cache -> cache.stats().evictions())
+                    .tag("cause", "eviction")
+                    .register(registry);
+            FunctionCounter.builder("library.cache.removals", bookCache, cache -> cache.stats().expirations())
+                    .tag("cause", "expiration")
+                    .register(registry);
+            Gauge.builder("library.write-queue.depth", bookWriteQueue, BookWriteQueue::depth)
+                    .description("Writes accepted but not yet applied")
+                    .register(registry);
+            Gauge.builder("library.write-queue.capacity", bookWriteQueue, BookWriteQueue::capacity)
+                    .register(registry);
+            FunctionCounter.builder("library.write-queue.writes", bookWriteQueue, BookWriteQueue::accepted)
+                    .tag("result", "accepted")
+                    .register(registry);
+            FunctionCounter.builder("library.write-queue.writes", bookWriteQueue, BookWriteQueue::rejected)
+                    .tag("result", "rejected")
+                    .register(registry);
+            FunctionCounter.builder("library.write-queue.writes", bookWriteQueue, BookWriteQueue::completed)
+                    .tag("result", "completed")
+                    .register(registry);
+            FunctionCounter.builder("library.write-queue.writes", bookWriteQueue, BookWriteQueue::failed)
+                    .tag("result", "failed")
+                    .register(registry);
+            FunctionCounter.builder("library.write-queue.groups", bookWriteQueue, BookWriteQueue::groups)
+                    .description("Transactions committed by the write queue")
+                    .register(registry);
+            FunctionCounter.builder("library.write-queue.grouped-writes", bookWriteQueue, BookWriteQueue::groupedWrites)
+                    .description("Writes committed as part of a group; divide by groups for the mean group size")
+                    .register(registry);
+        };
+    }
+}
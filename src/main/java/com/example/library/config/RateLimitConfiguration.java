@@ -0,0 +1,107 @@
+package com.example.library.config;
+
+import com.example.library.ratelimit.AimdConcurrencyLimit;
+import com.example.library.ratelimit.ClientBuckets;
+import com.example.library.ratelimit.EndpointClass;
+import com.example.library.ratelimit.RateLimitFilter;
+import com.example.library.ratelimit.TokenBucket;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Registers the {@link RateLimitFilter} ahead of the rest of the filter
+ * chain, with one adaptive concurrency limit per endpoint class configured
+ * under {@code library.concurrency.<class>}, and exposes the limiter state
+ * and rejection counts as meters. The client header is trusted only on
+ * requests from the addresses in {@code library.rate-limit.client.trusted-proxies}.
+ * Set {@code library.rate-limit.enabled} to false to turn admission control off.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "library.rate-limit", name = "enabled", matchIfMissing = true)
+public class RateLimitConfiguration {
+
+    @Bean
+    public RateLimitFilter rateLimitFilter(Environment environment) {
+        TokenBucket globalBucket = new TokenBucket(
+                environment.getProperty("library.rate-limit.global.permits-per-second", Double.class, 5000d),
+                environment.getProperty("library.rate-limit.global.burst", Integer.class, 10000),
+                System::nanoTime);
+        ClientBuckets clientBuckets = new ClientBuckets(
+                environment.getProperty("library.rate-limit.client.permits-per-second", Double.class, 200d),
+                environment.getProperty("library.rate-limit.client.burst", Integer.class, 400),
+                environment.getProperty("library.rate-limit.client.max-clients", Integer.class, 100000),
+                System::nanoTime);
+        String[] trustedProxies = environment.getProperty("library.rate-limit.client.trusted-proxies", String[].class,
+                new String[0]);
+        Map<EndpointClass, AimdConcurrencyLimit> limits = new EnumMap<>(EndpointClass.class);
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            limits.put(endpointClass, concurrencyLimit(environment, endpointClass));
+        }
+        return new RateLimitFilter(globalBucket, clientBuckets, limits,
+                environment.getProperty("library.rate-limit.client.header", "X-Client-Id"),
+                Set.copyOf(Arrays.asList(trustedProxies)), System::nanoTime);
+    }
+
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilterRegistration(RateLimitFilter rateLimitFilter) {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(rateLimitFilter);
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+
+    @Bean
+    public MeterBinder rateLimitMeters(RateLimitFilter rateLimitFilter) {
+        return registry -> {
+            for (EndpointClass endpointClass : EndpointClass.values()) {
+                String tag = endpointClass.name().toLowerCase(Locale.ROOT);
+                for (RateLimitFilter.Rejection rejection : RateLimitFilter.Rejection.values()) {
+                    FunctionCounter.builder("library.ratelimit.rejections", rateLimitFilter,
+                                    filter -> filter.rejections(rejection, endpointClass))
+                            .tag("endpoint", tag)
+                            .tag("reason", rejection.name().toLowerCase(Locale.ROOT))
+                            .description("Requests turned away by admission control")
+                            .register(registry);
+                }
+                Gauge.builder("library.concurrency.limit", rateLimitFilter, filter -> filter.concurrencyLimit(endpointClass).limit())
+                        .tag("endpoint", tag)
+                        .register(registry);
+                Gauge.builder("library.concurrency.in-flight", rateLimitFilter, filter -> filter.concurrencyLimit(endpointClass).inFlight())
+                        .tag("endpoint", tag)
+                        .register(registry);
+            }
+            Gauge.builder("library.ratelimit.global.available", rateLimitFilter, filter -> filter.globalBucket().availableTokens())
+                    .register(registry);
+            Gauge.builder("library.ratelimit.clients", rateLimitFilter, filter -> filter.clientBuckets().size())
+                    .register(registry);
+        };
+    }
+
+    private static AimdConcurrencyLimit concurrencyLimit(Environment environment, EndpointClass endpointClass) {
+        String prefix = "library.concurrency." + endpointClass.name().toLowerCase(Locale.ROOT) + ".";
+        boolean bulk = endpointClass == EndpointClass.BULK;
+        return new AimdConcurrencyLimit(
+                environment.getProperty(prefix + "initial", Integer.class, bulk ? 4 : 100),
+                environment.getProperty(prefix + "min", Integer.class, 1),
+                environment.getProperty(prefix + "max", Integer.class, bulk ? 16 : 1000),
+                environment.getProperty(prefix + "latency-threshold", Duration.class,
+                        bulk ? Duration.ofSeconds(30) : Duration.ofSeconds(1)).toNanos(),
+                environment.getProperty(prefix + "backoff-ratio", Double.class, 0.9),
+                System.nanoTime());
+    }
+}
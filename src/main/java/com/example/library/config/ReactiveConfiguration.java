@@ -0,0 +1,65 @@
+package com.example.library.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import java.time.Duration;
+
+/**
+ * R2DBC access for the reactive Book API, active only when the application
+ * runs as a reactive web application (the "reactive" profile). R2DBC
+ * auto-configuration is excluded in application.yml so that it cannot
+ * replace the JPA transaction manager used by the servlet stack, and the
+ * connection pool is deliberately not a bean of its own because the JDBC
+ * DataSource auto-configuration backs off when a connection factory is
+ * present. The pool is therefore disposed here on shutdown. For the same
+ * reason the R2DBC transaction manager is only reachable through the
+ * {@link TransactionalOperator}, leaving {@code @Transactional} to JPA.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveConfiguration {
+
+    private ConnectionPool connectionPool;
+
+    @Bean
+    public DatabaseClient databaseClient(@Value("${library.reactive.r2dbc-url}") String url,
+                                         @Value("${spring.datasource.username:}") String username,
+                                         @Value("${spring.datasource.password:}") String password,
+                                         @Value("${library.reactive.pool.initial-size:10}") int initialSize,
+                                         @Value("${library.reactive.pool.max-size:10}") int maxSize,
+                                         @Value("${library.reactive.pool.max-idle-time:PT30M}") Duration maxIdleTime) {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build();
+        connectionPool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                .initialSize(initialSize)
+                .maxSize(maxSize)
+                .maxIdleTime(maxIdleTime)
+                .build());
+        return DatabaseClient.create(connectionPool);
+    }
+
+    @Bean
+    public TransactionalOperator reactiveTransactionalOperator(DatabaseClient databaseClient) {
+        return TransactionalOperator.create(new R2dbcTransactionManager(databaseClient.getConnectionFactory()));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (connectionPool != null) {
+            connectionPool.dispose();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.library.config;
+
+import com.example.library.routing.ReadWriteRoutingDataSource;
+import com.example.library.routing.ReadYourWritesFilter;
+import com.example.library.routing.ReplicaSelection;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replaces the auto-configured data source with one that routes read-only
+ * transactions to the replicas listed in {@code library.replicas.urls}.
+ * Replicas are expected to be kept in sync by the database; for local
+ * testing against independent H2 instances, {@code library.replicas.migrate}
+ * applies the Flyway migrations to each replica as well.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "library.replicas", name = "urls")
+public class ReplicaRoutingConfiguration {
+
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties properties,
+                                 @Value("${library.replicas.urls}") List<String> replicaUrls,
+                                 @Value("${library.replicas.selection:round-robin}") ReplicaSelection selection,
+                                 @Value("${library.replicas.migrate:false}") boolean migrate,
+                                 ObjectProvider<MeterRegistry> meterRegistry, Environment environment) {
+        Binder binder = Binder.get(environment);
+        HikariDataSource primary = pool(properties, properties.determineUrl(), "primary", binder, meterRegistry);
+        List<DataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            HikariDataSource replica = pool(properties, replicaUrls.get(i), "replica-" + i, binder, meterRegistry);
+            if (migrate) {
+                Flyway.configure().dataSource(replica).load().migrate();
+            }
+            replicas.add(replica);
+        }
+        return new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(primary, replicas, selection));
+    }
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter() {
+        return new FilterRegistrationBean<>(new ReadYourWritesFilter());
+    }
+
+    static HikariDataSource pool(DataSourceProperties properties, String url, String name, Binder binder,
+                                         ObjectProvider<MeterRegistry> meterRegistry) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .url(url)
+                .build();
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(dataSource));
+        dataSource.setPoolName(name);
+        meterRegistry.ifAvailable(registry -> dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+        return dataSource;
+    }
+}
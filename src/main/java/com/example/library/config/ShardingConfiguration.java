@@ -0,0 +1,76 @@
+package com.example.library.config;
+
+import com.example.library.routing.ShardRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replaces the auto-configured data source with one that routes to the shard
+ * picked by {@link com.example.library.routing.BookShards}. The configured
+ * {@code spring.datasource.url} is the home shard, which also keeps the
+ * tables that are not sharded; {@code library.shards.urls} lists the others.
+ * For local testing against independent H2 instances,
+ * {@code library.shards.migrate} applies the Flyway migrations to each
+ * extra shard as well.
+ * <p>
+ * Each shard keeps its own {@code book_changes_seq}, so the sequence on shard
+ * {@code n} is moved to its own range starting at {@code n << 48} to keep
+ * change ids unique across shards.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "library.shards", name = "urls")
+public class ShardingConfiguration {
+
+    static final int SHARD_SEQUENCE_BITS = 48;
+
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties properties,
+                                 @Value("${library.shards.urls}") List<String> shardUrls,
+                                 @Value("${library.shards.migrate:false}") boolean migrate,
+                                 ObjectProvider<MeterRegistry> meterRegistry, Environment environment) {
+        if (environment.containsProperty("library.replicas.urls")) {
+            throw new IllegalStateException("library.shards.urls and library.replicas.urls cannot be combined.");
+        }
+        Binder binder = Binder.get(environment);
+        List<DataSource> shards = new ArrayList<>();
+        shards.add(ReplicaRoutingConfiguration.pool(properties, properties.determineUrl(), "shard-0", binder, meterRegistry));
+        for (int i = 0; i < shardUrls.size(); i++) {
+            int shard = i + 1;
+            HikariDataSource dataSource = ReplicaRoutingConfiguration.pool(properties, shardUrls.get(i), "shard-" + shard,
+                    binder, meterRegistry);
+            if (migrate) {
+                Flyway.configure().dataSource(dataSource).load().migrate();
+            }
+            moveChangeSequence(new JdbcTemplate(dataSource), (long) shard << SHARD_SEQUENCE_BITS);
+            shards.add(dataSource);
+        }
+        return new LazyConnectionDataSourceProxy(new ShardRoutingDataSource(shards));
+    }
+
+    private static void moveChangeSequence(JdbcTemplate jdbcTemplate, long rangeStart) {
+        Long[] sequence = jdbcTemplate.queryForObject(
+                "select base_value, increment from information_schema.sequences where sequence_name = 'BOOK_CHANGES_SEQ'",
+                (rs, row) -> new Long[]{rs.getLong(1), rs.getLong(2)});
+        if (sequence[0] <= rangeStart) {
+            // the pooled optimizer hands out the block ending at the value it reads
+            jdbcTemplate.execute("alter sequence book_changes_seq restart with " + (rangeStart + sequence[1]));
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.library.config;
+
+import com.example.library.wire.BookProtobufHttpMessageConverter;
+import com.example.library.wire.WireFormat;
+import com.example.library.wire.WireFormats;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Points the CBOR and Smile converters at the mappers of {@link WireFormats}
+ * and adds protobuf after every other converter, so that wildcard Accept
+ * headers keep negotiating JSON.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class WireFormatConfiguration implements WebMvcConfigurer {
+
+    private final WireFormats wireFormats;
+
+    public WireFormatConfiguration(WireFormats wireFormats) {
+        this.wireFormats = wireFormats;
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        for (HttpMessageConverter<?> converter : converters) {
+            if (converter instanceof MappingJackson2CborHttpMessageConverter cbor) {
+                cbor.setObjectMapper(wireFormats.mapper(WireFormat.CBOR));
+            } else if (converter instanceof MappingJackson2SmileHttpMessageConverter smile) {
+                smile.setObjectMapper(wireFormats.mapper(WireFormat.SMILE));
+            }
+        }
+        converters.add(new BookProtobufHttpMessageConverter());
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.library.controller;
+
+import com.example.library.model.BookFilter;
+import com.example.library.model.BookReport;
+import com.example.library.service.BookAnalyticsService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "library.analytics", name = "enabled", matchIfMissing = true)
+@RequestMapping("/api/books/analytics")
+public class BookAnalyticsController {
+
+    private final BookAnalyticsService bookAnalyticsService;
+
+    public BookAnalyticsController(BookAnalyticsService bookAnalyticsService) {
+        this.bookAnalyticsService = bookAnalyticsService;
+    }
+
+    @GetMapping
+    public ResponseEntity<BookReport> query(BookFilter filter, @RequestParam(required = false) String sort,
+                                            @RequestParam(defaultValue = "100") int limit) {
+        BookReport report;
+        try {
+            report = bookAnalyticsService.query(filter, sort, limit);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (IllegalStateException e) {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set(HttpHeaders.RETRY_AFTER, "1");
+            return new ResponseEntity<>(headers, HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        return new ResponseEntity<>(report, HttpStatus.OK);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.library.controller;
+
+import com.example.library.model.Book;
+import com.example.library.model.BulkResult;
+import com.example.library.service.BookBulkService;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.UUID;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/api/books/bulk")
+public class BookBulkController {
+
+    private final BookBulkService bookBulkService;
+    private final ObjectMapper objectMapper;
+
+    public BookBulkController(BookBulkService bookBulkService, ObjectMapper objectMapper) {
+        this.bookBulkService = bookBulkService;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostMapping(consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<BulkResult> createBooks(InputStream body) throws IOException {
+        try (MappingIterator<Book> books = objectMapper.readerFor(Book.class).readValues(body)) {
+            return new ResponseEntity<>(BulkResult.of(bookBulkService.createAll(books)), HttpStatus.OK);
+        }
+    }
+
+    @PatchMapping(consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<BulkResult> patchBooks(InputStream body) throws IOException {
+        try (MappingIterator<Book> books = objectMapper.readerFor(Book.class).readValues(body)) {
+            return new ResponseEntity<>(BulkResult.of(bookBulkService.patchAll(books)), HttpStatus.OK);
+        }
+    }
+
+    @DeleteMapping(consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<BulkResult> deleteBooks(InputStream body) throws IOException {
+        try (MappingIterator<UUID> ids = objectMapper.readerFor(UUID.class).readValues(body)) {
+            return new ResponseEntity<>(BulkResult.of(bookBulkService.deleteAll(ids)), HttpStatus.OK);
+        }
+    }
+
+    @ExceptionHandler(IOException.class)
+    public ResponseEntity<BulkResult> handleMalformedBody() {
+        return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    }
+}
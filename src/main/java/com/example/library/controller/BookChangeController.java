@@ -0,0 +1,51 @@
+package com.example.library.controller;
+
+import com.example.library.changes.BookChangeBroadcaster;
+import com.example.library.changes.BookChangeLog;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/api/books/changes")
+public class BookChangeController {
+
+    public static final String NEXT_OFFSET_HEADER = "Library-Next-Offset";
+
+    private final BookChangeBroadcaster bookChangeBroadcaster;
+    private final BookChangeLog bookChangeLog;
+
+    public BookChangeController(BookChangeBroadcaster bookChangeBroadcaster, BookChangeLog bookChangeLog) {
+        this.bookChangeBroadcaster = bookChangeBroadcaster;
+        this.bookChangeLog = bookChangeLog;
+    }
+
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestParam(required = false) Long after,
+                                    @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        long from = after != null ? after : lastEventId != null ? lastEventId : 0;
+        return bookChangeBroadcaster.subscribe(from);
+    }
+
+    @GetMapping(value = "/log", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> readLog(@RequestParam(defaultValue = "0") long offset) {
+        long end = bookChangeLog.length();
+        if (offset < 0 || offset > end) {
+            return new ResponseEntity<>(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(NEXT_OFFSET_HEADER, Long.toString(end));
+        StreamingResponseBody body = out -> bookChangeLog.copyTo(out, offset, end);
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+}
@@ -1,35 +1,157 @@
 package com.example.library.controller;
 
+import com.example.library.cache.CacheStats;
+import com.example.library.cache.CachedResponse;
+import com.example.library.cache.SerializedResponseCache;
 import com.example.library.exceptions.BookNotFoundException;
+import com.example.library.exceptions.BookVersionMismatchException;
+import com.example.library.exceptions.WriteQueueFullException;
 import com.example.library.model.Book;
+import com.example.library.model.BookCursor;
+import com.example.library.model.BookFields;
+import com.example.library.model.BookFilter;
+import com.example.library.model.BookLookup;
+import com.example.library.model.WriteStatus;
+import com.example.library.service.BookSearchService;
 import com.example.library.service.BookService;
+import com.example.library.service.BookWriteQueue;
+import com.example.library.wire.BookSequenceWriter;
+import com.example.library.wire.WireFormat;
+import com.example.library.wire.WireFormats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.time.Duration;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/api/books")
 public class BookController {
 
+    static final String RESPOND_ASYNC = "respond-async";
+
     private final BookService bookService;
+    private final BookSearchService bookSearchService;
+    private final BookWriteQueue bookWriteQueue;
+    private final WireFormats wireFormats;
+    private final SerializedResponseCache responseCache;
+    private final CacheControl cacheControl;
 
-    public BookController(BookService bookService) {
+    public BookController(BookService bookService, BookSearchService bookSearchService, BookWriteQueue bookWriteQueue,
+                          WireFormats wireFormats, SerializedResponseCache responseCache,
+                          @Value("${library.http.max-age:PT0S}") Duration maxAge) {
         this.bookService = bookService;
+        this.bookSearchService = bookSearchService;
+        this.bookWriteQueue = bookWriteQueue;
+        this.wireFormats = wireFormats;
+        this.responseCache = responseCache;
+        this.cacheControl = maxAge.isZero() ? CacheControl.noCache() : CacheControl.maxAge(maxAge).mustRevalidate();
     }
 
     @PostMapping
     public ResponseEntity<Book> createBook(@RequestBody Book book) {
         Book newBook = bookService.create(book);
-        return new ResponseEntity<>(newBook, HttpStatus.CREATED);
+        return new ResponseEntity<>(newBook, versionHeaders(newBook), HttpStatus.CREATED);
+    }
+
+    @PostMapping(headers = "Prefer=" + RESPOND_ASYNC)
+    public ResponseEntity<WriteStatus> createBookAsync(@RequestBody Book book) {
+        WriteStatus status;
+        try {
+            status = bookWriteQueue.submitCreate(book);
+        } catch (WriteQueueFullException e) {
+            return new ResponseEntity<>(retryAfterHeaders(), HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        return new ResponseEntity<>(status, acceptedHeaders(status), HttpStatus.ACCEPTED);
     }
 
     @GetMapping
-    public ResponseEntity<List<Book>> getAllBooks() {
-        List<Book> books = bookService.getAll();
-        return new ResponseEntity<>(books, HttpStatus.OK);
+    public ResponseEntity<byte[]> getAllBooks(BookFilter filter, @RequestParam(required = false) String fields,
+                                              @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        CachedResponse response;
+        WireFormat format;
+        try {
+            format = WireFormat.negotiate(accept);
+            if (format == null) {
+                return new ResponseEntity<>(HttpStatus.NOT_ACCEPTABLE);
+            }
+            if (fields != null) {
+                Set<String> selected = BookFields.parse(fields);
+                response = responseCache.get(format + ":all:" + String.join(",", selected) + ":" + filter,
+                        () -> wireFormats.serialize(bookService.getAll(filter, selected), format));
+            } else if (filter.isEmpty()) {
+                response = responseCache.get(format + ":all", () -> wireFormats.serialize(bookService.getAll(), format));
+            } else {
+                response = responseCache.get(format + ":all:" + filter,
+                        () -> wireFormats.serialize(bookService.getAll(filter), format));
+            }
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        return new ResponseEntity<>(response.body(), cachedHeaders(response, format), HttpStatus.OK);
+    }
+
+    @GetMapping(params = "size")
+    public ResponseEntity<byte[]> getBookPage(BookFilter filter, @RequestParam int size,
+                                              @RequestParam(defaultValue = "id") String sort,
+                                              @RequestParam(required = false) String cursor,
+                                              @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        CachedResponse response;
+        WireFormat format;
+        try {
+            format = WireFormat.negotiate(accept);
+            if (format == null) {
+                return new ResponseEntity<>(HttpStatus.NOT_ACCEPTABLE);
+            }
+            response = responseCache.get(format + ":page:" + size + ":" + sort + ":" + cursor + ":" + filter,
+                    () -> wireFormats.serialize(bookService.getPage(filter, toCursor(sort, cursor), size), format));
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        return new ResponseEntity<>(response.body(), cachedHeaders(response, format), HttpStatus.OK);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllBooks() {
+        return stream(WireFormat.JSON, MediaType.APPLICATION_NDJSON);
+    }
+
+    @GetMapping(produces = WireFormat.CBOR_SEQ_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllBooksAsCbor() {
+        return stream(WireFormat.CBOR, MediaType.parseMediaType(WireFormat.CBOR_SEQ_VALUE));
+    }
+
+    private ResponseEntity<StreamingResponseBody> stream(WireFormat format, MediaType contentType) {
+        StreamingResponseBody body = outputStream -> {
+            BookSequenceWriter writer = wireFormats.sequenceWriter(format, outputStream);
+            try {
+                bookService.streamAll(book -> {
+                    try {
+                        writer.write(book);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            writer.finish();
+        };
+        return ResponseEntity.ok().contentType(contentType).body(body);
     }
 
     @GetMapping("/{id}")
@@ -40,7 +162,28 @@ public class BookController {
        } catch (BookNotFoundException e) {
            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
        }
-       return new ResponseEntity<>(book, HttpStatus.OK);
+       return new ResponseEntity<>(book, versionHeaders(book), HttpStatus.OK);
+    }
+
+    @PostMapping("/batch-get")
+    public ResponseEntity<List<BookLookup>> batchGetBooks(@RequestBody List<UUID> ids) {
+        return getBooksByIds(ids);
+    }
+
+    @GetMapping(params = "ids")
+    public ResponseEntity<List<BookLookup>> getBooksByIds(@RequestParam List<UUID> ids) {
+        List<BookLookup> lookups;
+        try {
+            lookups = bookService.getByIds(ids);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        return new ResponseEntity<>(lookups, HttpStatus.OK);
+    }
+
+    @GetMapping("/cache/stats")
+    public ResponseEntity<CacheStats> getCacheStats() {
+        return new ResponseEntity<>(bookService.getCacheStats(), HttpStatus.OK);
     }
 
     @GetMapping("/title/{title}")
@@ -49,26 +192,73 @@ public class BookController {
         return new ResponseEntity<>(books, HttpStatus.OK);
     }
 
+    @GetMapping("/search")
+    public ResponseEntity<byte[]> searchBooks(@RequestParam("q") String query,
+                                              @RequestParam(defaultValue = "0") int page,
+                                              @RequestParam(defaultValue = "20") int size,
+                                              @RequestParam(required = false) String fields,
+                                              @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        CachedResponse response;
+        WireFormat format;
+        try {
+            format = WireFormat.negotiate(accept);
+            if (format == null) {
+                return new ResponseEntity<>(HttpStatus.NOT_ACCEPTABLE);
+            }
+            if (fields == null) {
+                response = responseCache.get(format + ":search:" + page + ":" + size + ":" + query,
+                        () -> wireFormats.serialize(bookSearchService.search(query, page, size), format));
+            } else {
+                Set<String> selected = BookFields.parse(fields);
+                response = responseCache.get(format + ":search:" + page + ":" + size + ":" + String.join(",", selected) + ":" + query,
+                        () -> wireFormats.serialize(bookSearchService.search(query, page, size, selected), format));
+            }
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        return new ResponseEntity<>(response.body(), cachedHeaders(response, format), HttpStatus.OK);
+    }
+
     @PutMapping("/{id}")
-    public ResponseEntity<Book> updateBook(@RequestBody Book book, @PathVariable UUID id) {
+    public ResponseEntity<Book> updateBook(@RequestBody Book book, @PathVariable UUID id,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         Book newBook;
         try {
-            newBook = bookService.update(book, id);
+            newBook = bookService.update(book, id, expectedVersion(ifMatch));
         } catch (BookNotFoundException e) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        } catch (BookVersionMismatchException | IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.PRECONDITION_FAILED);
         }
-        return new ResponseEntity<>(newBook, HttpStatus.OK);
+        return new ResponseEntity<>(newBook, versionHeaders(newBook), HttpStatus.OK);
     }
 
     @PatchMapping("/{id}")
-    public ResponseEntity<Book> patchBook(@RequestBody Book book, @PathVariable UUID id) {
+    public ResponseEntity<Book> patchBook(@RequestBody Book book, @PathVariable UUID id,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         Book newBook;
         try {
-            newBook = bookService.patch(book, id);
+            newBook = bookService.patch(book, id, expectedVersion(ifMatch));
         } catch (BookNotFoundException e) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        } catch (BookVersionMismatchException | IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.PRECONDITION_FAILED);
         }
-        return new ResponseEntity<>(newBook, HttpStatus.OK);
+        return new ResponseEntity<>(newBook, versionHeaders(newBook), HttpStatus.OK);
+    }
+
+    @PatchMapping(value = "/{id}", headers = "Prefer=" + RESPOND_ASYNC)
+    public ResponseEntity<WriteStatus> patchBookAsync(@RequestBody Book book, @PathVariable UUID id,
+                                                      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        WriteStatus status;
+        try {
+            status = bookWriteQueue.submitPatch(book, id, expectedVersion(ifMatch));
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.PRECONDITION_FAILED);
+        } catch (WriteQueueFullException e) {
+            return new ResponseEntity<>(retryAfterHeaders(), HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        return new ResponseEntity<>(status, acceptedHeaders(status), HttpStatus.ACCEPTED);
     }
 
     @DeleteMapping("/delete/{id}")
@@ -77,4 +267,62 @@ public class BookController {
         return new ResponseEntity<>(HttpStatus.OK);
     }
 
+    private HttpHeaders versionHeaders(Book book) {
+        HttpHeaders headers = new HttpHeaders();
+        if (book.getVersion() != null) {
+            headers.setETag("\"" + book.getVersion() + "\"");
+        }
+        if (book.getUpdatedAt() != null) {
+            headers.setLastModified(book.getUpdatedAt());
+        }
+        headers.setCacheControl(cacheControl);
+        return headers;
+    }
+
+    private HttpHeaders acceptedHeaders(WriteStatus status) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setLocation(URI.create("/api/books/writes/" + status.id()));
+        headers.set("Preference-Applied", RESPOND_ASYNC);
+        return headers;
+    }
+
+    private HttpHeaders retryAfterHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "1");
+        return headers;
+    }
+
+    private HttpHeaders cachedHeaders(CachedResponse response, WireFormat format) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(format.mediaType());
+        headers.setVary(List.of(HttpHeaders.ACCEPT));
+        headers.setETag(response.eTag());
+        headers.setCacheControl(cacheControl);
+        return headers;
+    }
+
+    static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.length() < 2 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+            throw new IllegalArgumentException("If-Match must be a single strong entity tag: " + ifMatch);
+        }
+        return Long.parseLong(tag.substring(1, tag.length() - 1));
+    }
+
+    private BookCursor toCursor(String sort, String cursor) {
+        String[] parts = sort.split(",");
+        Sort.Direction direction = parts.length > 1 ? Sort.Direction.fromString(parts[1]) : Sort.Direction.ASC;
+        if (cursor == null) {
+            return BookCursor.first(parts[0], direction);
+        }
+        BookCursor decoded = BookCursor.decode(cursor);
+        if (!decoded.sortProperty().equals(parts[0]) || decoded.direction() != direction) {
+            throw new IllegalArgumentException("Cursor does not match sort: " + sort);
+        }
+        return decoded;
+    }
+
 }
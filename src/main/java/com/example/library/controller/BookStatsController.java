@@ -0,0 +1,28 @@
+package com.example.library.controller;
+
+import com.example.library.model.BookStats;
+import com.example.library.service.BookStatsService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/api/books/stats")
+public class BookStatsController {
+
+    private final BookStatsService bookStatsService;
+
+    public BookStatsController(BookStatsService bookStatsService) {
+        this.bookStatsService = bookStatsService;
+    }
+
+    @GetMapping
+    public ResponseEntity<BookStats> getStats(@RequestParam(defaultValue = "false") boolean exact) {
+        return new ResponseEntity<>(bookStatsService.getStats(exact), HttpStatus.OK);
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.library.controller;
+
+import com.example.library.exceptions.WriteNotFoundException;
+import com.example.library.model.WriteStatus;
+import com.example.library.service.BookWriteQueue;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/api/books/writes")
+public class BookWriteController {
+
+    static final int MAX_WAIT_SECONDS = 20;
+
+    private final BookWriteQueue bookWriteQueue;
+
+    public BookWriteController(BookWriteQueue bookWriteQueue) {
+        this.bookWriteQueue = bookWriteQueue;
+    }
+
+    @GetMapping("/{id}")
+    public CompletableFuture<ResponseEntity<WriteStatus>> getWrite(@PathVariable UUID id,
+                                                                   @RequestParam(defaultValue = "0") int wait) {
+        WriteStatus status;
+        try {
+            status = bookWriteQueue.getStatus(id);
+        } catch (WriteNotFoundException e) {
+            return CompletableFuture.completedFuture(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+        }
+        if (wait < 0 || wait > MAX_WAIT_SECONDS) {
+            return CompletableFuture.completedFuture(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+        }
+        if (wait == 0 || status.isDone()) {
+            return CompletableFuture.completedFuture(new ResponseEntity<>(status, HttpStatus.OK));
+        }
+        return bookWriteQueue.completion(id)
+                .completeOnTimeout(status, wait, TimeUnit.SECONDS)
+                .thenApply(finished -> new ResponseEntity<>(finished, HttpStatus.OK));
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.library.controller;
+
+import com.example.library.exceptions.ExportNotFoundException;
+import com.example.library.export.ExportFormat;
+import com.example.library.model.ExportSnapshot;
+import com.example.library.service.ExportService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/api/exports")
+public class ExportController {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final ExportService exportService;
+
+    public ExportController(ExportService exportService) {
+        this.exportService = exportService;
+    }
+
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> streamExport(@RequestParam(defaultValue = "NDJSON") ExportFormat format,
+                                                              @RequestParam(defaultValue = "false") boolean gzip) {
+        StreamingResponseBody body = outputStream -> exportService.stream(format, gzip, Channels.newChannel(outputStream));
+        return ResponseEntity.ok().headers(downloadHeaders(format, gzip, "books." + format.extension())).body(body);
+    }
+
+    @PostMapping
+    public ResponseEntity<ExportSnapshot> startExport(@RequestParam(defaultValue = "NDJSON") ExportFormat format,
+                                                      @RequestParam(defaultValue = "false") boolean gzip) {
+        return new ResponseEntity<>(exportService.startSnapshot(format, gzip), HttpStatus.ACCEPTED);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ExportSnapshot> getExport(@PathVariable UUID id) {
+        ExportSnapshot snapshot;
+        try {
+            snapshot = exportService.getSnapshot(id);
+        } catch (ExportNotFoundException e) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(snapshot, HttpStatus.OK);
+    }
+
+    @GetMapping("/{id}/file")
+    public void downloadExport(@PathVariable UUID id, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ExportSnapshot snapshot;
+        Path file;
+        try {
+            snapshot = exportService.getSnapshot(id);
+            file = exportService.getSnapshotFile(id);
+        } catch (ExportNotFoundException e) {
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return;
+        } catch (IllegalStateException e) {
+            response.setStatus(HttpStatus.CONFLICT.value());
+            return;
+        }
+        downloadHeaders(snapshot.format(), snapshot.gzip(), snapshot.fileName()).forEach((name, values) ->
+                values.forEach(value -> response.addHeader(name, value)));
+        response.setContentLengthLong(snapshot.sizeBytes());
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, snapshot.sizeBytes());
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = 0;
+            long size = channel.size();
+            while (position < size) {
+                position += channel.transferTo(position, size - position, out);
+            }
+        }
+    }
+
+    private HttpHeaders downloadHeaders(ExportFormat format, boolean gzip, String fileName) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.CONTENT_TYPE, gzip ? "application/gzip" : format.mediaType());
+        headers.setContentDisposition(ContentDisposition.attachment()
+                .filename(gzip && !fileName.endsWith(".gz") ? fileName + ".gz" : fileName).build());
+        return headers;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.library.controller;
+
+import com.example.library.exceptions.ImportJobNotFoundException;
+import com.example.library.model.ImportJob;
+import com.example.library.model.ImportStatus;
+import com.example.library.service.ImportService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.util.UUID;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/api/imports")
+public class ImportController {
+
+    private final ImportService importService;
+
+    public ImportController(ImportService importService) {
+        this.importService = importService;
+    }
+
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ImportStatus> importUpload(@RequestParam("file") MultipartFile file,
+                                                     @RequestParam(required = false) ImportJob.Format format) throws IOException {
+        ImportStatus status;
+        try {
+            status = importService.importUpload(file, format);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        return new ResponseEntity<>(status, HttpStatus.ACCEPTED);
+    }
+
+    @PostMapping(params = "path")
+    public ResponseEntity<ImportStatus> importLocal(@RequestParam String path,
+                                                    @RequestParam(required = false) ImportJob.Format format) throws IOException {
+        ImportStatus status;
+        try {
+            status = importService.importLocal(path, format);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        return new ResponseEntity<>(status, HttpStatus.ACCEPTED);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ImportStatus> getImport(@PathVariable UUID id) {
+        ImportStatus status;
+        try {
+            status = importService.getStatus(id);
+        } catch (ImportJobNotFoundException e) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(status, HttpStatus.OK);
+    }
+
+    @PostMapping("/{id}/resume")
+    public ResponseEntity<ImportStatus> resumeImport(@PathVariable UUID id) {
+        ImportStatus status;
+        try {
+            status = importService.resume(id);
+        } catch (ImportJobNotFoundException e) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        } catch (IllegalStateException e) {
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        }
+        return new ResponseEntity<>(status, HttpStatus.ACCEPTED);
+    }
+}
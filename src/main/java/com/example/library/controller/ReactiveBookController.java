@@ -0,0 +1,76 @@
+package com.example.library.controller;
+
+import com.example.library.exceptions.BookNotFoundException;
+import com.example.library.model.Book;
+import com.example.library.service.ReactiveBookService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/books")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveBookController {
+
+    private final ReactiveBookService bookService;
+
+    public ReactiveBookController(ReactiveBookService bookService) {
+        this.bookService = bookService;
+    }
+
+    @PostMapping
+    public Mono<ResponseEntity<Book>> createBook(@RequestBody Book book) {
+        return bookService.create(book).map(newBook -> new ResponseEntity<>(newBook, HttpStatus.CREATED));
+    }
+
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<Book> getAllBooks() {
+        return bookService.getAll();
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<Book>> getBookById(@PathVariable UUID id) {
+        return bookService.getById(id)
+                .map(book -> new ResponseEntity<>(book, HttpStatus.OK))
+                .onErrorReturn(BookNotFoundException.class, new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+
+    @GetMapping(value = "/title/{title}", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<Book> getBookByTitle(@PathVariable String title) {
+        return bookService.getByTitle(title);
+    }
+
+    @GetMapping(value = "/search", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<Book> searchBooks(@RequestParam("q") String query,
+                                  @RequestParam(defaultValue = "0") int page,
+                                  @RequestParam(defaultValue = "20") int size) {
+        return bookService.search(query, page, size)
+                .onErrorMap(IllegalArgumentException.class, e -> new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage()));
+    }
+
+    @PutMapping("/{id}")
+    public Mono<ResponseEntity<Book>> updateBook(@RequestBody Book book, @PathVariable UUID id) {
+        return bookService.update(book, id)
+                .map(newBook -> new ResponseEntity<>(newBook, HttpStatus.OK))
+                .onErrorReturn(BookNotFoundException.class, new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+
+    @PatchMapping("/{id}")
+    public Mono<ResponseEntity<Book>> patchBook(@RequestBody Book book, @PathVariable UUID id) {
+        return bookService.patch(book, id)
+                .map(newBook -> new ResponseEntity<>(newBook, HttpStatus.OK))
+                .onErrorReturn(BookNotFoundException.class, new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+
+    @DeleteMapping("/delete/{id}")
+    public Mono<ResponseEntity<Book>> deleteBook(@PathVariable UUID id) {
+        return bookService.delete(id).thenReturn(new ResponseEntity<>(HttpStatus.OK));
+    }
+}
@@ -0,0 +1,6 @@
+package com.example.library.event;
+
+import java.util.UUID;
+
+public record BookDeletedEvent(UUID id) {
+}
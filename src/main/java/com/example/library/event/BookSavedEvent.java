@@ -0,0 +1,6 @@
+package com.example.library.event;
+
+import com.example.library.model.Book;
+
+public record BookSavedEvent(Book book) {
+}
@@ -0,0 +1,67 @@
+package com.example.library.event;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Ids of deleted books, for the in-memory read models kept up to date from
+ * book events. The after-commit listeners of two transactions can run in
+ * either order, so the save event of a transaction that committed before a
+ * delete may arrive after the delete event, and a row read by the startup
+ * load may be older than a delete that has already been applied. A read
+ * model drops saves of tombstoned ids, so neither can bring the book back.
+ * Book ids are generated on create and never reused, so a tombstoned id has
+ * no later saves that should be applied.
+ * <p>
+ * While the startup load runs every delete is remembered; after
+ * {@link #markLoaded()} only the latest {@code capacity} are, which is far
+ * more than the listeners of concurrently committed transactions can lag
+ * behind. Not thread-safe: callers guard it with their own write lock.
+ */
+public final class BookTombstones {
+
+    public static final int DEFAULT_CAPACITY = 100_000;
+
+    private final int capacity;
+    private final Set<UUID> ids = new LinkedHashSet<>();
+    private boolean loaded;
+
+    public BookTombstones() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public BookTombstones(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public void add(UUID id) {
+        ids.add(id);
+        trim();
+    }
+
+    public boolean contains(UUID id) {
+        return ids.contains(id);
+    }
+
+    public void markLoaded() {
+        loaded = true;
+        trim();
+    }
+
+    public int size() {
+        return ids.size();
+    }
+
+    private void trim() {
+        if (!loaded) {
+            return;
+        }
+        Iterator<UUID> oldest = ids.iterator();
+        while (ids.size() > capacity) {
+            oldest.next();
+            oldest.remove();
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.library.exceptions;
+
+public class BookVersionMismatchException extends RuntimeException {
+    public BookVersionMismatchException(String message) {
+        super(message);
+    }
+}
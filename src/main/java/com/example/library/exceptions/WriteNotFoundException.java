@@ -0,0 +1,7 @@
+package com.example.library.exceptions;
+
+public class WriteNotFoundException extends RuntimeException {
+    public WriteNotFoundException(String message) {
+        super(message);
+    }
+}
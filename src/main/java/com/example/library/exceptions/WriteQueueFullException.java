@@ -0,0 +1,7 @@
+package com.example.library.exceptions;
+
+public class WriteQueueFullException extends RuntimeException {
+    public WriteQueueFullException(String message) {
+        super(message);
+    }
+}
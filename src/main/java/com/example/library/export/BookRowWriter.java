@@ -0,0 +1,15 @@
+package com.example.library.export;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Writes rows of {@link BookExporter#SELECT_BOOKS} straight from the result
+ * set, without materializing Book entities.
+ */
+public interface BookRowWriter {
+    void writeRow(ResultSet row) throws SQLException, IOException;
+
+    void finish() throws IOException;
+}
@@ -0,0 +1,119 @@
+package com.example.library.export;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.BitSet;
+import java.util.UUID;
+
+/**
+ * Compact column-oriented binary snapshot. The stream starts with the magic
+ * bytes "BKC1", followed by blocks of up to {@link #BLOCK_ROWS} rows, and ends
+ * with a block whose row count is zero. Within a block every column is stored
+ * contiguously: ids as two big-endian longs, strings as a length-prefixed
+ * UTF-8 value (length -1 for NULL), and integer and boolean columns as a
+ * presence bitmap followed by the values.
+ */
+public class ColumnarRowWriter implements BookRowWriter {
+
+    public static final byte[] MAGIC = {'B', 'K', 'C', '1'};
+    public static final int BLOCK_ROWS = 4096;
+
+    private final DataOutputStream out;
+    private final long[] idHigh = new long[BLOCK_ROWS];
+    private final long[] idLow = new long[BLOCK_ROWS];
+    private final String[] titles = new String[BLOCK_ROWS];
+    private final String[] authors = new String[BLOCK_ROWS];
+    private final String[] genres = new String[BLOCK_ROWS];
+    private final int[] pages = new int[BLOCK_ROWS];
+    private final int[] ratings = new int[BLOCK_ROWS];
+    private final BitSet hasPages = new BitSet(BLOCK_ROWS);
+    private final BitSet hasRating = new BitSet(BLOCK_ROWS);
+    private final BitSet hasReadPresent = new BitSet(BLOCK_ROWS);
+    private final BitSet hasRead = new BitSet(BLOCK_ROWS);
+    private int rows;
+
+    public ColumnarRowWriter(OutputStream outputStream) throws IOException {
+        this.out = new DataOutputStream(outputStream);
+        out.write(MAGIC);
+    }
+
+    @Override
+    public void writeRow(ResultSet row) throws SQLException, IOException {
+        UUID id = row.getObject(1, UUID.class);
+        idHigh[rows] = id.getMostSignificantBits();
+        idLow[rows] = id.getLeastSignificantBits();
+        titles[rows] = row.getString(2);
+        authors[rows] = row.getString(3);
+        genres[rows] = row.getString(4);
+        pages[rows] = row.getInt(5);
+        hasPages.set(rows, !row.wasNull());
+        ratings[rows] = row.getInt(6);
+        hasRating.set(rows, !row.wasNull());
+        boolean read = row.getBoolean(7);
+        hasReadPresent.set(rows, !row.wasNull());
+        hasRead.set(rows, read);
+        if (++rows == BLOCK_ROWS) {
+            flushBlock();
+        }
+    }
+
+    @Override
+    public void finish() throws IOException {
+        if (rows > 0) {
+            flushBlock();
+        }
+        out.writeInt(0);
+        out.flush();
+    }
+
+    private void flushBlock() throws IOException {
+        out.writeInt(rows);
+        for (int i = 0; i < rows; i++) {
+            out.writeLong(idHigh[i]);
+            out.writeLong(idLow[i]);
+        }
+        writeStrings(titles);
+        writeStrings(authors);
+        writeStrings(genres);
+        writeInts(pages, hasPages);
+        writeInts(ratings, hasRating);
+        writeBitmap(hasReadPresent);
+        writeBitmap(hasRead);
+        rows = 0;
+        hasPages.clear();
+        hasRating.clear();
+        hasReadPresent.clear();
+        hasRead.clear();
+    }
+
+    private void writeStrings(String[] values) throws IOException {
+        for (int i = 0; i < rows; i++) {
+            if (values[i] == null) {
+                out.writeInt(-1);
+            } else {
+                byte[] bytes = values[i].getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            values[i] = null;
+        }
+    }
+
+    private void writeInts(int[] values, BitSet present) throws IOException {
+        writeBitmap(present);
+        for (int i = 0; i < rows; i++) {
+            out.writeInt(values[i]);
+        }
+    }
+
+    private void writeBitmap(BitSet bits) throws IOException {
+        byte[] bytes = new byte[(rows + 7) / 8];
+        byte[] set = bits.toByteArray();
+        System.arraycopy(set, 0, bytes, 0, Math.min(set.length, bytes.length));
+        out.write(bytes);
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.library.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+public class CsvRowWriter implements BookRowWriter {
+
+    private final Writer writer;
+
+    public CsvRowWriter(OutputStream outputStream) throws IOException {
+        this.writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+        writer.write("id,title,author,genre,numberOfPages,rating,hasRead\n");
+    }
+
+    @Override
+    public void writeRow(ResultSet row) throws SQLException, IOException {
+        writer.write(row.getString(1));
+        for (int column = 2; column <= 6; column++) {
+            writer.write(',');
+            String value = row.getString(column);
+            if (value != null) {
+                writeField(value);
+            }
+        }
+        writer.write(',');
+        boolean hasRead = row.getBoolean(7);
+        if (!row.wasNull()) {
+            writer.write(Boolean.toString(hasRead));
+        }
+        writer.write('\n');
+    }
+
+    @Override
+    public void finish() throws IOException {
+        writer.flush();
+    }
+
+    private void writeField(String value) throws IOException {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
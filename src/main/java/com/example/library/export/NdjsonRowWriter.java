@@ -0,0 +1,52 @@
+package com.example.library.export;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+public class NdjsonRowWriter implements BookRowWriter {
+
+    private final JsonGenerator generator;
+
+    public NdjsonRowWriter(JsonFactory jsonFactory, OutputStream outputStream) throws IOException {
+        this.generator = jsonFactory.createGenerator(outputStream);
+        this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    @Override
+    public void writeRow(ResultSet row) throws SQLException, IOException {
+        generator.writeStartObject();
+        generator.writeStringField("id", row.getString(1));
+        generator.writeStringField("title", row.getString(2));
+        generator.writeStringField("author", row.getString(3));
+        generator.writeStringField("genre", row.getString(4));
+        writeInt("numberOfPages", row, 5);
+        writeInt("rating", row, 6);
+        boolean hasRead = row.getBoolean(7);
+        if (row.wasNull()) {
+            generator.writeNullField("hasRead");
+        } else {
+            generator.writeBooleanField("hasRead", hasRead);
+        }
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    @Override
+    public void finish() throws IOException {
+        generator.close();
+    }
+
+    private void writeInt(String field, ResultSet row, int column) throws SQLException, IOException {
+        int value = row.getInt(column);
+        if (row.wasNull()) {
+            generator.writeNullField(field);
+        } else {
+            generator.writeNumberField(field, value);
+        }
+    }
+}
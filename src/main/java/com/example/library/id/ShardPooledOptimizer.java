@@ -0,0 +1,64 @@
+package com.example.library.id;
+
+import com.example.library.routing.ShardRouting;
+import org.hibernate.id.IntegralDataTypeHolder;
+import org.hibernate.id.enhanced.AccessCallback;
+import org.hibernate.id.enhanced.InitialValueAwareOptimizer;
+import org.hibernate.id.enhanced.Optimizer;
+import org.hibernate.id.enhanced.PooledOptimizer;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pooled sequence optimizer that keeps one pool per shard. Each shard has its
+ * own copy of a sequence, so a single shared pool would hand out values from
+ * whichever shard last refilled it, and ids would stop increasing within a
+ * shard. Registered through {@code hibernate.id.optimizer.pooled.preferred}.
+ */
+public class ShardPooledOptimizer implements Optimizer, InitialValueAwareOptimizer {
+
+    private final Class<?> returnClass;
+    private final int incrementSize;
+    private final Map<Integer, PooledOptimizer> pools = new ConcurrentHashMap<>();
+    private long initialValue = -1;
+
+    public ShardPooledOptimizer(Class<?> returnClass, int incrementSize) {
+        this.returnClass = returnClass;
+        this.incrementSize = incrementSize;
+    }
+
+    @Override
+    public void injectInitialValue(long initialValue) {
+        this.initialValue = initialValue;
+    }
+
+    @Override
+    public Serializable generate(AccessCallback callback) {
+        return pool(ShardRouting.currentShard()).generate(callback);
+    }
+
+    @Override
+    public IntegralDataTypeHolder getLastSourceValue() {
+        return pool(ShardRouting.currentShard()).getLastSourceValue();
+    }
+
+    @Override
+    public int getIncrementSize() {
+        return incrementSize;
+    }
+
+    @Override
+    public boolean applyIncrementSizeToSourceValues() {
+        return true;
+    }
+
+    private PooledOptimizer pool(int shard) {
+        return pools.computeIfAbsent(shard, ignored -> {
+            PooledOptimizer pool = new PooledOptimizer(returnClass, incrementSize);
+            pool.injectInitialValue(initialValue);
+            return pool;
+        });
+    }
+}
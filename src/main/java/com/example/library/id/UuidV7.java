@@ -0,0 +1,51 @@
+package com.example.library.id;
+
+import java.security.SecureRandom;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Version 7 UUIDs (RFC 9562): a 48-bit Unix millisecond timestamp, a 12-bit
+ * counter and 62 random bits. Ids from one generator strictly increase: the
+ * counter orders ids minted within the same millisecond, and if it runs out,
+ * or the clock steps backwards, the generator keeps counting from the last
+ * id instead of going back. Because the leading bits are a timestamp, new
+ * keys land at the right-hand edge of the primary-key index instead of at a
+ * random leaf.
+ */
+public final class UuidV7 {
+
+    private static final UuidV7 SHARED = new UuidV7(System::currentTimeMillis, new SecureRandom());
+
+    private final LongSupplier millisClock;
+    private final Random random;
+    private final AtomicLong last = new AtomicLong();
+
+    UuidV7(LongSupplier millisClock, Random random) {
+        this.millisClock = millisClock;
+        this.random = random;
+    }
+
+    public static UUID next() {
+        return SHARED.generate();
+    }
+
+    public UUID generate() {
+        long now = millisClock.getAsLong() << 12;
+        long current;
+        long next;
+        do {
+            current = last.get();
+            next = Math.max(now, current + 1);
+        } while (!last.compareAndSet(current, next));
+        long mostSignificant = (next >>> 12) << 16 | 0x7000L | (next & 0xFFFL);
+        long leastSignificant = random.nextLong() & 0x3FFFFFFFFFFFFFFFL | 0x8000000000000000L;
+        return new UUID(mostSignificant, leastSignificant);
+    }
+
+    public static long timestampMillis(UUID uuid) {
+        return uuid.getMostSignificantBits() >>> 16;
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.library.importer;
+
+import com.example.library.model.Book;
+
+public interface BookRowParser {
+    Book parse(String line);
+}
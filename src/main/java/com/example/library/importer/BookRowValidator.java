@@ -0,0 +1,22 @@
+package com.example.library.importer;
+
+import com.example.library.model.Book;
+
+final class BookRowValidator {
+
+    private BookRowValidator() {
+    }
+
+    static Book validate(Book book) {
+        if (book.getTitle() == null || book.getTitle().isBlank()) {
+            throw new IllegalArgumentException("A book must have a title.");
+        }
+        if (book.getNumberOfPages() != null && book.getNumberOfPages() < 0) {
+            throw new IllegalArgumentException("numberOfPages must not be negative.");
+        }
+        if (book.getRating() != null && book.getRating() < 0) {
+            throw new IllegalArgumentException("rating must not be negative.");
+        }
+        return book;
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.library.importer;
+
+import com.example.library.model.Book;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Parses CSV rows whose columns are named by a header row using the Book
+ * property names, in any order and case. Fields may be double-quoted, with
+ * "" standing for a literal quote. Quoted fields cannot span lines.
+ */
+public class CsvBookParser implements BookRowParser {
+
+    private final List<String> columns;
+
+    public CsvBookParser(String header) {
+        this.columns = split(header).stream().map(column -> column.trim().toLowerCase(Locale.ROOT)).toList();
+        if (!columns.contains("title")) {
+            throw new IllegalArgumentException("CSV header must contain a title column.");
+        }
+    }
+
+    @Override
+    public Book parse(String line) {
+        List<String> values = split(line);
+        if (values.size() != columns.size()) {
+            throw new IllegalArgumentException("Expected " + columns.size() + " columns but found " + values.size() + ".");
+        }
+        Book book = new Book();
+        for (int i = 0; i < columns.size(); i++) {
+            String value = values.get(i).isEmpty() ? null : values.get(i);
+            switch (columns.get(i)) {
+                case "title" -> book.setTitle(value);
+                case "author" -> book.setAuthor(value);
+                case "genre" -> book.setGenre(value);
+                case "numberofpages" -> book.setNumberOfPages(toInteger("numberOfPages", value));
+                case "rating" -> book.setRating(toInteger("rating", value));
+                case "hasread" -> book.setHasRead(toBoolean(value));
+                default -> {
+                }
+            }
+        }
+        return BookRowValidator.validate(book);
+    }
+
+    static List<String> split(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field.");
+        }
+        values.add(value.toString());
+        return values;
+    }
+
+    private static Integer toInteger(String column, String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(column + " is not a number: " + value);
+        }
+    }
+
+    private static Boolean toBoolean(String value) {
+        if (value == null) {
+            return null;
+        }
+        String normalized = value.trim().toLowerCase(Locale.ROOT);
+        if (normalized.equals("true") || normalized.equals("false")) {
+            return Boolean.valueOf(normalized);
+        }
+        throw new IllegalArgumentException("hasRead is not a boolean: " + value);
+    }
+}
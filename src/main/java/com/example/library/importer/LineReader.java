@@ -0,0 +1,78 @@
+package com.example.library.importer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads UTF-8 lines from a file through a fixed-size buffer, starting at an
+ * arbitrary byte offset. After each line, {@link #offset()} is the position
+ * just past its terminator, which is where reading resumes after a restart.
+ */
+public class LineReader implements Closeable {
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+    private long offset;
+    private boolean endOfFile;
+
+    public LineReader(Path path, long startOffset, int bufferSize) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.channel.position(startOffset);
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        this.buffer.flip();
+        this.offset = startOffset;
+    }
+
+    public String readLine() throws IOException {
+        line.reset();
+        while (true) {
+            if (!buffer.hasRemaining()) {
+                if (endOfFile || !fill()) {
+                    return line.size() == 0 ? null : decode();
+                }
+            }
+            byte b = buffer.get();
+            offset++;
+            if (b == '\n') {
+                return decode();
+            }
+            line.write(b);
+        }
+    }
+
+    public long offset() {
+        return offset;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private boolean fill() throws IOException {
+        buffer.clear();
+        int read = channel.read(buffer);
+        buffer.flip();
+        if (read <= 0) {
+            endOfFile = true;
+            return false;
+        }
+        return true;
+    }
+
+    private String decode() {
+        int length = line.size();
+        byte[] bytes = line.toByteArray();
+        if (length > 0 && bytes[length - 1] == '\r') {
+            length--;
+        }
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+}
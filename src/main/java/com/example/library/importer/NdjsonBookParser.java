@@ -0,0 +1,27 @@
+package com.example.library.importer;
+
+import com.example.library.model.Book;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+public class NdjsonBookParser implements BookRowParser {
+
+    private final ObjectReader reader;
+
+    public NdjsonBookParser(ObjectMapper objectMapper) {
+        this.reader = objectMapper.readerFor(Book.class);
+    }
+
+    @Override
+    public Book parse(String line) {
+        Book book;
+        try {
+            book = reader.readValue(line);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed JSON: " + e.getOriginalMessage());
+        }
+        book.setId(null);
+        return BookRowValidator.validate(book);
+    }
+}
@@ -0,0 +1,4 @@
+package com.example.library.model;
+
+public record AuthorRating(String author, double averageRating, long ratedBooks) {
+}
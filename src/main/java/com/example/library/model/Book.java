@@ -1,19 +1,30 @@
 package com.example.library.model;
 
+import com.example.library.id.TimeOrderedUuid;
 import jakarta.persistence.*;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.UpdateTimestamp;
 
+import java.time.Instant;
 import java.util.UUID;
 
 @Entity
-@Table(name = "books")
+@Table(name = "books", indexes = {
+        @Index(name = "idx_books_title", columnList = "title"),
+        @Index(name = "idx_books_updated_at", columnList = "updatedAt desc"),
+        @Index(name = "idx_books_genre_rating", columnList = "genre, rating"),
+        @Index(name = "idx_books_author_rating", columnList = "author, rating"),
+        @Index(name = "idx_books_has_read_pages", columnList = "hasRead, numberOfPages")
+})
 @NoArgsConstructor
 @AllArgsConstructor
 public class Book {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @TimeOrderedUuid
     private UUID id;
 
     private String title;
@@ -28,6 +39,20 @@ public class Book {
 
     private Boolean hasRead;
 
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
+    @JsonIgnore
+    @UpdateTimestamp
+    private Instant updatedAt;
+
+    public Book(UUID id, String title, String author, String genre, Integer numberOfPages, Integer rating,
+                Boolean hasRead) {
+        this(id, title, author, genre, numberOfPages, rating, hasRead, null, null);
+    }
+
     public UUID getId() {
         return id;
     }
@@ -83,4 +108,20 @@ public class Book {
     public void setHasRead(Boolean hasRead) {
         this.hasRead = hasRead;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
 }
@@ -0,0 +1,87 @@
+package com.example.library.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import jakarta.persistence.*;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Entity
+@Table(name = "book_changes", indexes = {
+        @Index(name = "idx_book_changes_published_seq", columnList = "publishedSeq", unique = true)
+})
+@NoArgsConstructor
+public class BookChange {
+
+    public static final int MAX_PAYLOAD_LENGTH = 4000;
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_changes_seq")
+    @SequenceGenerator(name = "book_changes_seq", sequenceName = "book_changes_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private UUID bookId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Type type;
+
+    private Long bookVersion;
+
+    @Column(length = MAX_PAYLOAD_LENGTH)
+    private String payload;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    private Long publishedSeq;
+
+    public BookChange(Type type, UUID bookId, Long bookVersion, String payload) {
+        this.type = type;
+        this.bookId = bookId;
+        this.bookVersion = bookVersion;
+        this.payload = payload;
+        this.createdAt = Instant.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public UUID getBookId() {
+        return bookId;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getBookVersion() {
+        return bookVersion;
+    }
+
+    @JsonRawValue
+    @JsonProperty("book")
+    public String getPayload() {
+        return payload;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Long getPublishedSeq() {
+        return publishedSeq;
+    }
+
+    public void setPublishedSeq(Long publishedSeq) {
+        this.publishedSeq = publishedSeq;
+    }
+}
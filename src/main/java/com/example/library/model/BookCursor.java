@@ -0,0 +1,104 @@
+package com.example.library.model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.data.domain.Sort;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.UUID;
+
+public record BookCursor(String sortProperty, Sort.Direction direction, Object lastValue, UUID lastId) {
+
+    public static final Set<String> SORT_PROPERTIES =
+            Set.of("id", "title", "author", "genre", "numberOfPages", "rating", "hasRead");
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public BookCursor {
+        if (!SORT_PROPERTIES.contains(sortProperty)) {
+            throw new IllegalArgumentException("Cannot sort books by: " + sortProperty);
+        }
+    }
+
+    public static BookCursor first(String sortProperty, Sort.Direction direction) {
+        return new BookCursor(sortProperty, direction, null, null);
+    }
+
+    public static BookCursor after(String sortProperty, Sort.Direction direction, Book last) {
+        return new BookCursor(sortProperty, direction, valueOf(last, sortProperty), last.getId());
+    }
+
+    /**
+     * The order that keyset pages are read in: the sort column with NULLs
+     * lowest, then the id, both compared the way H2 compares them.
+     */
+    @SuppressWarnings("unchecked")
+    public Comparator<Book> order() {
+        Comparator<Book> byId = (a, b) -> compareIds(a.getId(), b.getId());
+        Comparator<Book> ascending = "id".equals(sortProperty) ? byId
+                : Comparator.comparing((Book book) -> (Comparable<Object>) valueOf(book, sortProperty),
+                        Comparator.nullsFirst(Comparator.naturalOrder())).thenComparing(byId);
+        return direction.isAscending() ? ascending : ascending.reversed();
+    }
+
+    private static int compareIds(UUID a, UUID b) {
+        int high = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return high != 0 ? high : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+
+    public String encode() {
+        ObjectNode node = MAPPER.createObjectNode();
+        node.put("s", sortProperty);
+        node.put("d", direction.name());
+        node.set("v", MAPPER.valueToTree(lastValue));
+        node.put("i", lastId.toString());
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(MAPPER.writeValueAsBytes(node));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static BookCursor decode(String token) {
+        try {
+            JsonNode node = MAPPER.readTree(new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8));
+            String sortProperty = node.get("s").asText();
+            JsonNode value = node.get("v");
+            return new BookCursor(
+                    sortProperty,
+                    Sort.Direction.valueOf(node.get("d").asText()),
+                    value == null || value.isNull() ? null : valueFromJson(sortProperty, value),
+                    UUID.fromString(node.get("i").asText()));
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+    }
+
+    private static Object valueOf(Book book, String sortProperty) {
+        return switch (sortProperty) {
+            case "id" -> book.getId();
+            case "title" -> book.getTitle();
+            case "author" -> book.getAuthor();
+            case "genre" -> book.getGenre();
+            case "numberOfPages" -> book.getNumberOfPages();
+            case "rating" -> book.getRating();
+            case "hasRead" -> book.getHasRead();
+            default -> null;
+        };
+    }
+
+    private static Object valueFromJson(String sortProperty, JsonNode value) {
+        return switch (sortProperty) {
+            case "id" -> UUID.fromString(value.asText());
+            case "title", "author", "genre" -> value.asText();
+            case "numberOfPages", "rating" -> value.asInt();
+            case "hasRead" -> value.asBoolean();
+            default -> null;
+        };
+    }
+}
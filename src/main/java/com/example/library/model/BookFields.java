@@ -0,0 +1,64 @@
+package com.example.library.model;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Parses the {@code fields=} sparse fieldset of the list and search endpoints.
+ * The id is always included and fields come back in a fixed order, so the same
+ * selection always produces the same columns and the same JSON.
+ */
+public final class BookFields {
+
+    public static final List<String> ALL =
+            List.of("id", "title", "author", "genre", "numberOfPages", "rating", "hasRead", "version");
+
+    private BookFields() {
+    }
+
+    public static Set<String> parse(String fields) {
+        Set<String> requested = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!ALL.contains(name)) {
+                throw new IllegalArgumentException("Unknown book field: " + name);
+            }
+            requested.add(name);
+        }
+        Set<String> selected = new LinkedHashSet<>();
+        for (String name : ALL) {
+            if (name.equals("id") || requested.contains(name)) {
+                selected.add(name);
+            }
+        }
+        return selected;
+    }
+
+    public static Map<String, Object> project(Book book, Set<String> fields) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (String field : fields) {
+            row.put(field, value(book, field));
+        }
+        return row;
+    }
+
+    public static Object value(Book book, String field) {
+        return switch (field) {
+            case "id" -> book.getId();
+            case "title" -> book.getTitle();
+            case "author" -> book.getAuthor();
+            case "genre" -> book.getGenre();
+            case "numberOfPages" -> book.getNumberOfPages();
+            case "rating" -> book.getRating();
+            case "hasRead" -> book.getHasRead();
+            case "version" -> book.getVersion();
+            default -> throw new IllegalArgumentException("Unknown book field: " + field);
+        };
+    }
+}
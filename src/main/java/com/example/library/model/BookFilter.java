@@ -0,0 +1,24 @@
+package com.example.library.model;
+
+/**
+ * Optional criteria for listing books. Every non-null field narrows the
+ * result; rating and page bounds are inclusive.
+ */
+public record BookFilter(String genre, String author, Integer minRating, Integer maxRating,
+                         Integer minPages, Integer maxPages, Boolean hasRead) {
+
+    public static final BookFilter NONE = new BookFilter(null, null, null, null, null, null, null);
+
+    public void validate() {
+        if (minRating != null && maxRating != null && minRating > maxRating) {
+            throw new IllegalArgumentException("minRating must not be greater than maxRating.");
+        }
+        if (minPages != null && maxPages != null && minPages > maxPages) {
+            throw new IllegalArgumentException("minPages must not be greater than maxPages.");
+        }
+    }
+
+    public boolean isEmpty() {
+        return equals(NONE);
+    }
+}
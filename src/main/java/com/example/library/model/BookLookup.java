@@ -0,0 +1,18 @@
+package com.example.library.model;
+
+import java.util.UUID;
+
+public record BookLookup(UUID id, Status status, Book book) {
+
+    public enum Status {
+        FOUND, NOT_FOUND
+    }
+
+    public static BookLookup found(Book book) {
+        return new BookLookup(book.getId(), Status.FOUND, book);
+    }
+
+    public static BookLookup notFound(UUID id) {
+        return new BookLookup(id, Status.NOT_FOUND, null);
+    }
+}
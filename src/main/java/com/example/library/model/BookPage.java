@@ -0,0 +1,6 @@
+package com.example.library.model;
+
+import java.util.List;
+
+public record BookPage(List<Book> content, String nextCursor) {
+}
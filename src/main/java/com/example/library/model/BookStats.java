@@ -0,0 +1,22 @@
+package com.example.library.model;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+public record BookStats(long books, long readBooks, double readRatio, long pagesRead,
+                        List<GenreCount> genres, List<AuthorRating> authors) {
+
+    private static final Comparator<String> NULLS_FIRST = Comparator.nullsFirst(Comparator.naturalOrder());
+
+    public static BookStats of(BookTotals totals, List<GenreCount> genres, List<AuthorRating> authors) {
+        List<GenreCount> sortedGenres = new ArrayList<>(genres);
+        sortedGenres.sort(Comparator.comparingLong(GenreCount::books).reversed()
+                .thenComparing(GenreCount::genre, NULLS_FIRST));
+        List<AuthorRating> sortedAuthors = new ArrayList<>(authors);
+        sortedAuthors.sort(Comparator.comparing(AuthorRating::author, NULLS_FIRST));
+        double readRatio = totals.books() == 0 ? 0 : (double) totals.readBooks() / totals.books();
+        return new BookStats(totals.books(), totals.readBooks(), readRatio, totals.pagesRead(),
+                List.copyOf(sortedGenres), List.copyOf(sortedAuthors));
+    }
+}
@@ -0,0 +1,4 @@
+package com.example.library.model;
+
+public record BookTotals(long books, long readBooks, long pagesRead) {
+}
@@ -0,0 +1,14 @@
+package com.example.library.model;
+
+import java.util.UUID;
+
+public record BulkItemResult(int index, UUID id, Status status, String error) {
+
+    public enum Status {
+        CREATED, UPDATED, DELETED, NOT_FOUND, FAILED
+    }
+
+    public boolean succeeded() {
+        return status == Status.CREATED || status == Status.UPDATED || status == Status.DELETED;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.library.model;
+
+import java.util.List;
+
+public record BulkResult(long succeeded, long failed, List<BulkItemResult> items) {
+
+    public static BulkResult of(List<BulkItemResult> items) {
+        long succeeded = items.stream().filter(BulkItemResult::succeeded).count();
+        return new BulkResult(succeeded, items.size() - succeeded, items);
+    }
+}
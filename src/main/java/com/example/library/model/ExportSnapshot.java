@@ -0,0 +1,30 @@
+package com.example.library.model;
+
+import com.example.library.export.ExportFormat;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public record ExportSnapshot(UUID id, ExportFormat format, boolean gzip, Status status, long rows,
+                             long sizeBytes, String error, Instant createdAt, Instant finishedAt) {
+
+    public enum Status {
+        RUNNING, READY, FAILED
+    }
+
+    public static ExportSnapshot started(ExportFormat format, boolean gzip) {
+        return new ExportSnapshot(UUID.randomUUID(), format, gzip, Status.RUNNING, 0, 0, null, Instant.now(), null);
+    }
+
+    public ExportSnapshot ready(long rows, long sizeBytes) {
+        return new ExportSnapshot(id, format, gzip, Status.READY, rows, sizeBytes, null, createdAt, Instant.now());
+    }
+
+    public ExportSnapshot failed(String error) {
+        return new ExportSnapshot(id, format, gzip, Status.FAILED, 0, 0, error, createdAt, Instant.now());
+    }
+
+    public String fileName() {
+        return "books-" + id + "." + format.extension() + (gzip ? ".gz" : "");
+    }
+}
@@ -0,0 +1,4 @@
+package com.example.library.model;
+
+public record GenreCount(String genre, long books) {
+}
@@ -0,0 +1,137 @@
+package com.example.library.model;
+
+import jakarta.persistence.*;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Entity
+@Table(name = "import_jobs")
+@NoArgsConstructor
+public class ImportJob {
+
+    public static final int MAX_ERROR_LENGTH = 1000;
+
+    public enum Format {
+        CSV, NDJSON
+    }
+
+    public enum Status {
+        RUNNING, COMPLETED, FAILED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    private String sourcePath;
+
+    @Enumerated(EnumType.STRING)
+    private Format format;
+
+    @Enumerated(EnumType.STRING)
+    private Status status;
+
+    @Column(length = 4000)
+    private String csvHeader;
+
+    private long sizeBytes;
+
+    private long committedOffset;
+
+    private long rowsCommitted;
+
+    private long rowsRejected;
+
+    @Column(length = MAX_ERROR_LENGTH)
+    private String lastError;
+
+    private Instant createdAt;
+
+    private Instant finishedAt;
+
+    public ImportJob(String sourcePath, Format format, long sizeBytes) {
+        this.sourcePath = sourcePath;
+        this.format = format;
+        this.sizeBytes = sizeBytes;
+        this.status = Status.RUNNING;
+        this.createdAt = Instant.now();
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public String getSourcePath() {
+        return sourcePath;
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public String getCsvHeader() {
+        return csvHeader;
+    }
+
+    public void setCsvHeader(String csvHeader) {
+        this.csvHeader = csvHeader;
+    }
+
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public long getCommittedOffset() {
+        return committedOffset;
+    }
+
+    public void setCommittedOffset(long committedOffset) {
+        this.committedOffset = committedOffset;
+    }
+
+    public long getRowsCommitted() {
+        return rowsCommitted;
+    }
+
+    public void setRowsCommitted(long rowsCommitted) {
+        this.rowsCommitted = rowsCommitted;
+    }
+
+    public long getRowsRejected() {
+        return rowsRejected;
+    }
+
+    public void setRowsRejected(long rowsRejected) {
+        this.rowsRejected = rowsRejected;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(Instant finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.library.model;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public record ImportStatus(UUID id, ImportJob.Format format, ImportJob.Status status, long sizeBytes,
+                           long committedOffset, long rowsCommitted, long rowsRejected, double rowsPerSecond,
+                           String lastError, Instant createdAt, Instant finishedAt) {
+
+    public static ImportStatus of(ImportJob job, double rowsPerSecond) {
+        return new ImportStatus(job.getId(), job.getFormat(), job.getStatus(), job.getSizeBytes(),
+                job.getCommittedOffset(), job.getRowsCommitted(), job.getRowsRejected(), rowsPerSecond,
+                job.getLastError(), job.getCreatedAt(), job.getFinishedAt());
+    }
+}
@@ -0,0 +1,6 @@
+package com.example.library.model;
+
+import java.util.List;
+
+public record SearchResult<T>(List<T> content, long total, int page, int size) {
+}
@@ -0,0 +1,33 @@
+package com.example.library.model;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public record WriteStatus(UUID id, Operation operation, Status status, UUID bookId, Long bookVersion, String error,
+                          Instant acceptedAt, Instant completedAt) {
+
+    public enum Operation {
+        CREATE, PATCH
+    }
+
+    public enum Status {
+        PENDING, COMPLETED, NOT_FOUND, PRECONDITION_FAILED, FAILED
+    }
+
+    public static WriteStatus pending(UUID id, Operation operation, UUID bookId) {
+        return new WriteStatus(id, operation, Status.PENDING, bookId, null, null, Instant.now(), null);
+    }
+
+    public WriteStatus completed(Book book) {
+        return new WriteStatus(id, operation, Status.COMPLETED, book.getId(), book.getVersion(), null, acceptedAt,
+                Instant.now());
+    }
+
+    public WriteStatus failed(Status status, String error) {
+        return new WriteStatus(id, operation, status, bookId, null, error, acceptedAt, Instant.now());
+    }
+
+    public boolean isDone() {
+        return status != Status.PENDING;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.library.ratelimit;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * One {@link TokenBucket} per client key. Buckets that have refilled
+ * completely carry no state worth keeping, so once {@code maxClients} keys
+ * are tracked each newcomer sweeps a few more buckets, resuming where the
+ * previous sweep stopped, and drops the full ones. This keeps the cost per
+ * request constant however many clients are tracked. A newcomer that finds
+ * no room shares a single overflow bucket instead of growing the map without
+ * bound.
+ */
+public final class ClientBuckets {
+
+    static final int SWEEP_BATCH = 64;
+
+    private final double permitsPerSecond;
+    private final int capacity;
+    private final int maxClients;
+    private final LongSupplier nanoClock;
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final TokenBucket overflow;
+    private Iterator<TokenBucket> sweep;
+
+    public ClientBuckets(double permitsPerSecond, int capacity, int maxClients, LongSupplier nanoClock) {
+        this.permitsPerSecond = permitsPerSecond;
+        this.capacity = capacity;
+        this.maxClients = maxClients;
+        this.nanoClock = nanoClock;
+        this.overflow = new TokenBucket(permitsPerSecond, capacity, nanoClock);
+    }
+
+    /**
+     * @return 0 if the client may proceed, otherwise the nanoseconds until it may
+     */
+    public long tryAcquire(String client) {
+        TokenBucket bucket = buckets.get(client);
+        if (bucket == null) {
+            if (buckets.size() >= maxClients) {
+                sweep();
+            }
+            bucket = buckets.size() < maxClients
+                    ? buckets.computeIfAbsent(client, key -> new TokenBucket(permitsPerSecond, capacity, nanoClock))
+                    : overflow;
+        }
+        return bucket.tryAcquire();
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    private synchronized void sweep() {
+        for (int i = 0; i < SWEEP_BATCH; i++) {
+            if (sweep == null || !sweep.hasNext()) {
+                sweep = buckets.values().iterator();
+                if (!sweep.hasNext()) {
+                    return;
+                }
+            }
+            if (sweep.next().isFull()) {
+                sweep.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.library.ratelimit;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+public enum EndpointClass {
+    READ, WRITE, BULK;
+
+    public static EndpointClass of(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.startsWith("/api/books/bulk")) {
+            return BULK;
+        }
+        String method = request.getMethod();
+        return "GET".equals(method) || "HEAD".equals(method) || path.equals("/api/books/batch-get") ? READ : WRITE;
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.library.ratelimit;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Admission control for the book API. A request must get a token from its
+ * client's bucket and from the global bucket, otherwise it is answered with
+ * 429 and a Retry-After of when the next token is due. It then needs a slot
+ * under its endpoint class's adaptive concurrency limit, otherwise it is
+ * answered with 503. The change stream is only rate limited, since an open
+ * event stream would otherwise hold a slot for as long as it is connected.
+ * Requests that go async (streamed exports, NDJSON/CBOR streams, deferred
+ * creates, long-polls) keep their slot until the async request completes,
+ * times out or fails, not just until the handler thread returns.
+ * <p>
+ * Clients are keyed by their remote address. The client header is only
+ * honoured on requests that arrive from one of the trusted proxies, which are
+ * expected to set it themselves; anyone else could pick a fresh key per
+ * request and never run out of tokens.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    public enum Rejection {
+        CLIENT, GLOBAL, CONCURRENCY
+    }
+
+    private final TokenBucket globalBucket;
+    private final ClientBuckets clientBuckets;
+    private final Map<EndpointClass, AimdConcurrencyLimit> concurrencyLimits;
+    private final String clientHeader;
+    private final Set<String> trustedProxies;
+    private final LongSupplier nanoClock;
+    private final Map<Rejection, Map<EndpointClass, LongAdder>> rejections = new EnumMap<>(Rejection.class);
+
+    public RateLimitFilter(TokenBucket globalBucket, ClientBuckets clientBuckets,
+                           Map<EndpointClass, AimdConcurrencyLimit> concurrencyLimits, String clientHeader,
+                           Set<String> trustedProxies, LongSupplier nanoClock) {
+        this.globalBucket = globalBucket;
+        this.clientBuckets = clientBuckets;
+        this.concurrencyLimits = new EnumMap<>(concurrencyLimits);
+        this.clientHeader = clientHeader;
+        this.trustedProxies = Set.copyOf(trustedProxies);
+        this.nanoClock = nanoClock;
+        for (Rejection rejection : Rejection.values()) {
+            Map<EndpointClass, LongAdder> counters = new EnumMap<>(EndpointClass.class);
+            for (EndpointClass endpointClass : EndpointClass.values()) {
+                counters.put(endpointClass, new LongAdder());
+            }
+            rejections.put(rejection, counters);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(request.getContextPath() + "/api/books");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        EndpointClass endpointClass = EndpointClass.of(request);
+        long waitNanos = clientBuckets.tryAcquire(clientKey(request));
+        if (waitNanos > 0) {
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, waitNanos, Rejection.CLIENT, endpointClass);
+            return;
+        }
+        waitNanos = globalBucket.tryAcquire();
+        if (waitNanos > 0) {
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, waitNanos, Rejection.GLOBAL, endpointClass);
+            return;
+        }
+        if (request.getRequestURI().startsWith(request.getContextPath() + "/api/books/changes")) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        AimdConcurrencyLimit limit = concurrencyLimits.get(endpointClass);
+        if (!limit.tryAcquire()) {
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, TimeUnit.SECONDS.toNanos(1), Rejection.CONCURRENCY, endpointClass);
+            return;
+        }
+        SlotRelease slot = new SlotRelease(limit, nanoClock.getAsLong());
+        boolean async = false;
+        try {
+            filterChain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(slot);
+                async = true;
+            }
+        } finally {
+            if (!async) {
+                slot.release();
+            }
+        }
+    }
+
+    public TokenBucket globalBucket() {
+        return globalBucket;
+    }
+
+    public ClientBuckets clientBuckets() {
+        return clientBuckets;
+    }
+
+    public AimdConcurrencyLimit concurrencyLimit(EndpointClass endpointClass) {
+        return concurrencyLimits.get(endpointClass);
+    }
+
+    public long rejections(Rejection rejection, EndpointClass endpointClass) {
+        return rejections.get(rejection).get(endpointClass).sum();
+    }
+
+    private String clientKey(HttpServletRequest request) {
+        String remoteAddress = request.getRemoteAddr();
+        if (!trustedProxies.contains(remoteAddress)) {
+            return remoteAddress;
+        }
+        String client = request.getHeader(clientHeader);
+        return client != null && !client.isBlank() ? client : remoteAddress;
+    }
+
+    /**
+     * Gives a concurrency slot back exactly once, either when the filter chain
+     * returns or, for a request that went async, when the async request ends.
+     */
+    private final class SlotRelease implements AsyncListener {
+
+        private final AimdConcurrencyLimit limit;
+        private final long startNanos;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        SlotRelease(AimdConcurrencyLimit limit, long startNanos) {
+            this.limit = limit;
+            this.startNanos = startNanos;
+        }
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                limit.release(startNanos, nanoClock.getAsLong());
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+
+    private void reject(HttpServletResponse response, HttpStatus status, long waitNanos, Rejection rejection,
+                        EndpointClass endpointClass) {
+        rejections.get(rejection).get(endpointClass).increment();
+        long retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+    }
+}
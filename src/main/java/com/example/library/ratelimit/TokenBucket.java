@@ -0,0 +1,58 @@
+package com.example.library.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free token bucket. Instead of a token count and a refill timestamp the
+ * bucket keeps a single "theoretical arrival time": the instant at which it
+ * would be full again (the generic cell rate algorithm). Taking a token
+ * pushes that instant one refill interval further out, and the request is
+ * allowed as long as it stays within one full bucket of the present, so an
+ * acquire is a read and one compare-and-set with no separate refill step.
+ */
+public final class TokenBucket {
+
+    private final long intervalNanos;
+    private final long capacityNanos;
+    private final LongSupplier nanoClock;
+    private final AtomicLong fullAt;
+
+    public TokenBucket(double permitsPerSecond, int capacity, LongSupplier nanoClock) {
+        if (permitsPerSecond <= 0 || capacity < 1) {
+            throw new IllegalArgumentException("Token buckets need a positive rate and capacity.");
+        }
+        this.intervalNanos = Math.max(1, Math.round(1_000_000_000d / permitsPerSecond));
+        this.capacityNanos = intervalNanos * capacity;
+        this.nanoClock = nanoClock;
+        this.fullAt = new AtomicLong(nanoClock.getAsLong());
+    }
+
+    /**
+     * Takes one token if one is available.
+     *
+     * @return 0 if a token was taken, otherwise the nanoseconds until one will be
+     */
+    public long tryAcquire() {
+        long now = nanoClock.getAsLong();
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current - now, 0) + intervalNanos;
+            if (next > capacityNanos) {
+                return next - capacityNanos;
+            }
+            if (fullAt.compareAndSet(current, now + next)) {
+                return 0;
+            }
+        }
+    }
+
+    public double availableTokens() {
+        long deficit = Math.max(fullAt.get() - nanoClock.getAsLong(), 0);
+        return (capacityNanos - deficit) / (double) intervalNanos;
+    }
+
+    public boolean isFull() {
+        return fullAt.get() - nanoClock.getAsLong() <= 0;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.library.repository;
+
+import com.example.library.model.BookChange;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface BookChangeRepository extends JpaRepository<BookChange, Long> {
+
+    @Query("select c from BookChange c where c.publishedSeq is null order by c.id")
+    List<BookChange> findUnpublished(Limit limit);
+
+    @Query("select c from BookChange c where c.publishedSeq > :after order by c.publishedSeq")
+    List<BookChange> findPublishedAfter(@Param("after") long after, Limit limit);
+
+    @Query("select coalesce(max(c.publishedSeq), 0) from BookChange c")
+    long findLastPublishedSeq();
+}
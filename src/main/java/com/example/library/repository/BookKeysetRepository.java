@@ -0,0 +1,12 @@
+package com.example.library.repository;
+
+import com.example.library.model.Book;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface BookKeysetRepository {
+    List<Book> findPage(Specification<Book> filter, String sortProperty, Sort.Direction direction, Object lastValue, UUID lastId, int limit);
+}
@@ -0,0 +1,83 @@
+package com.example.library.repository;
+
+import com.example.library.model.Book;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Keyset (seek) pagination over the books table. Rows are ordered by the sort
+ * column and then by id, and each page continues strictly after the last row of
+ * the previous one, so the cost of a page does not depend on how deep it is.
+ * NULL sort values are treated as the lowest values, which matches H2's ordering.
+ * The filter is applied before the seek predicate.
+ */
+public class BookKeysetRepositoryImpl implements BookKeysetRepository {
+
+    private final EntityManager entityManager;
+
+    public BookKeysetRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<Book> findPage(Specification<Book> filter, String sortProperty, Sort.Direction direction, Object lastValue, UUID lastId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Book> query = cb.createQuery(Book.class);
+        Root<Book> book = query.from(Book.class);
+        Path<Comparable<Object>> column = book.get(sortProperty);
+        Path<UUID> id = book.get("id");
+        boolean ascending = direction.isAscending();
+
+        List<Predicate> predicates = new ArrayList<>();
+        Predicate matching = filter.toPredicate(book, query, cb);
+        if (matching != null) {
+            predicates.add(matching);
+        }
+        if (lastId != null) {
+            predicates.add("id".equals(sortProperty)
+                    ? after(cb, id, lastId, ascending)
+                    : seek(cb, column, id, lastValue, lastId, ascending));
+        }
+        query.where(predicates.toArray(Predicate[]::new));
+        if ("id".equals(sortProperty)) {
+            query.orderBy(ascending ? cb.asc(id) : cb.desc(id));
+        } else {
+            query.orderBy(ascending ? cb.asc(column) : cb.desc(column), ascending ? cb.asc(id) : cb.desc(id));
+        }
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Predicate seek(CriteriaBuilder cb, Path<Comparable<Object>> column, Path<UUID> id,
+                           Object lastValue, UUID lastId, boolean ascending) {
+        Predicate tieBreak = after(cb, id, lastId, ascending);
+        if (lastValue == null) {
+            Predicate sameNull = cb.and(cb.isNull(column), tieBreak);
+            return ascending ? cb.or(sameNull, cb.isNotNull(column)) : sameNull;
+        }
+        Comparable<Object> value = (Comparable<Object>) lastValue;
+        Predicate beyond = ascending ? cb.greaterThan(column, value) : cb.lessThan(column, value);
+        Predicate sameValue = cb.and(cb.equal(column, value), tieBreak);
+        return ascending ? cb.or(beyond, sameValue) : cb.or(beyond, sameValue, cb.isNull(column));
+    }
+
+    private Predicate after(CriteriaBuilder cb, Expression<UUID> id, UUID lastId, boolean ascending) {
+        return ascending ? cb.greaterThan(id, lastId) : cb.lessThan(id, lastId);
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.library.repository;
+
+import com.example.library.model.Book;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+public interface BookProjectionRepository {
+
+    List<Map<String, Object>> findAllFields(Specification<Book> filter, Set<String> fields);
+
+    List<Map<String, Object>> findFieldsByIdIn(Collection<UUID> ids, Set<String> fields);
+}
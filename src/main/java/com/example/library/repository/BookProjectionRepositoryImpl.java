@@ -0,0 +1,78 @@
+package com.example.library.repository;
+
+import com.example.library.model.Book;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import jakarta.persistence.criteria.Predicate;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Sparse fieldset reads. Only the requested columns are selected and rows come
+ * back as tuples rather than entities, so nothing is added to the persistence
+ * context and no dirty-checking snapshot is taken.
+ */
+public class BookProjectionRepositoryImpl implements BookProjectionRepository {
+
+    private final EntityManager entityManager;
+
+    public BookProjectionRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<Map<String, Object>> findAllFields(Specification<Book> filter, Set<String> fields) {
+        return select(filter, null, fields);
+    }
+
+    @Override
+    public List<Map<String, Object>> findFieldsByIdIn(Collection<UUID> ids, Set<String> fields) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return select(null, ids, fields);
+    }
+
+    private List<Map<String, Object>> select(Specification<Book> filter, Collection<UUID> ids, Set<String> fields) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Book> book = query.from(Book.class);
+        List<Selection<?>> columns = fields.stream()
+                .<Selection<?>>map(field -> book.get(field).alias(field))
+                .toList();
+        query.multiselect(columns);
+        if (filter != null) {
+            Predicate matching = filter.toPredicate(book, query, cb);
+            if (matching != null) {
+                query.where(matching);
+            }
+        }
+        if (ids != null) {
+            query.where(book.get("id").in(ids));
+        }
+        return entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()
+                .map(tuple -> toRow(tuple, fields))
+                .toList();
+    }
+
+    private static Map<String, Object> toRow(Tuple tuple, Set<String> fields) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (String field : fields) {
+            row.put(field, tuple.get(field));
+        }
+        return row;
+    }
+}
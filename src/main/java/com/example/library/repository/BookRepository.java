@@ -1,11 +1,74 @@
 package com.example.library.repository;
 
+import com.example.library.model.AuthorRating;
 import com.example.library.model.Book;
+import com.example.library.model.BookTotals;
+import com.example.library.model.GenreCount;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
+import java.util.Locale;
 import java.util.UUID;
+import java.util.stream.Stream;
 
-public interface BookRepository extends JpaRepository<Book, UUID> {
+public interface BookRepository extends JpaRepository<Book, UUID>, JpaSpecificationExecutor<Book>, BookKeysetRepository,
+        BookVersionedUpdateRepository, BookProjectionRepository {
     List<Book> findByTitle(String title);
+
+    @Query("select b from Book b")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Book> streamAll();
+
+    @Query("select b from Book b order by b.updatedAt desc")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<Book> findRecentlyUpdated(Pageable pageable);
+
+    String SEARCH_IDS = "select id from books where title_lc like :pattern escape '\\' "
+            + "union select id from books where author_lc like :pattern escape '\\' "
+            + "union select id from books where genre_lc like :pattern escape '\\'";
+
+    /**
+     * Books whose title, author or genre starts with a prefix, ignoring case.
+     * Each column is matched through its lower-cased generated column and that
+     * column's index; the union keeps every branch on its own index, where an
+     * {@code or} would scan the table. The pattern comes from {@link #prefixPattern}.
+     */
+    @Query(value = "select * from books where id in (" + SEARCH_IDS + ")",
+            countQuery = "select count(*) from books where id in (" + SEARCH_IDS + ")",
+            nativeQuery = true)
+    Page<Book> searchByPrefix(@Param("pattern") String pattern, Pageable pageable);
+
+    /**
+     * The LIKE pattern matching values that start with {@code query}, ignoring
+     * case, with the wildcards in {@code query} escaped.
+     */
+    static String prefixPattern(String query) {
+        return query.toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_") + "%";
+    }
+
+    @Query("select new com.example.library.model.BookTotals(count(b), "
+            + "coalesce(sum(case when b.hasRead = true then 1 else 0 end), 0), "
+            + "coalesce(sum(case when b.hasRead = true then b.numberOfPages else 0 end), 0)) from Book b")
+    BookTotals countTotals();
+
+    @Query("select new com.example.library.model.GenreCount(b.genre, count(b)) from Book b group by b.genre")
+    List<GenreCount> countByGenre();
+
+    @Query("select new com.example.library.model.AuthorRating(b.author, avg(b.rating), count(b.rating)) "
+            + "from Book b where b.rating is not null group by b.author")
+    List<AuthorRating> averageRatingByAuthor();
 }
@@ -0,0 +1,51 @@
+package com.example.library.repository;
+
+import com.example.library.model.Book;
+import com.example.library.model.BookFilter;
+import com.example.library.model.Book_;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compiles a {@link BookFilter} into predicates over the static metamodel.
+ * Equality predicates come first so that they line up with the leading
+ * columns of the composite indexes (genre, rating), (author, rating) and
+ * (has_read, number_of_pages).
+ */
+public final class BookSpecifications {
+
+    private BookSpecifications() {
+    }
+
+    public static Specification<Book> matching(BookFilter filter) {
+        filter.validate();
+        return (book, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (filter.genre() != null) {
+                predicates.add(cb.equal(book.get(Book_.genre), filter.genre()));
+            }
+            if (filter.author() != null) {
+                predicates.add(cb.equal(book.get(Book_.author), filter.author()));
+            }
+            if (filter.hasRead() != null) {
+                predicates.add(cb.equal(book.get(Book_.hasRead), filter.hasRead()));
+            }
+            if (filter.minRating() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(book.get(Book_.rating), filter.minRating()));
+            }
+            if (filter.maxRating() != null) {
+                predicates.add(cb.lessThanOrEqualTo(book.get(Book_.rating), filter.maxRating()));
+            }
+            if (filter.minPages() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(book.get(Book_.numberOfPages), filter.minPages()));
+            }
+            if (filter.maxPages() != null) {
+                predicates.add(cb.lessThanOrEqualTo(book.get(Book_.numberOfPages), filter.maxPages()));
+            }
+            return predicates.isEmpty() ? null : cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+}
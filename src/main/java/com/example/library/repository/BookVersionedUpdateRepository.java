@@ -0,0 +1,11 @@
+package com.example.library.repository;
+
+import com.example.library.model.Book;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface BookVersionedUpdateRepository {
+    Optional<Book> updateColumns(UUID id, Long expectedVersion, Map<String, Object> changes);
+}
@@ -0,0 +1,80 @@
+package com.example.library.repository;
+
+import com.example.library.model.Book;
+import jakarta.persistence.EntityManager;
+import org.hibernate.query.NativeQuery;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Writes the given properties of a book and increments its version in one
+ * statement, optionally only if the row is still at the expected version.
+ * The UPDATE is wrapped in H2's {@code FINAL TABLE} so the row as it looks
+ * after the update comes back in the same round trip. An empty result means
+ * the book does not exist or is at a different version.
+ */
+public class BookVersionedUpdateRepositoryImpl implements BookVersionedUpdateRepository {
+
+    private static final Map<String, String> COLUMNS = Map.of(
+            "title", "title",
+            "author", "author",
+            "genre", "genre",
+            "numberOfPages", "number_of_pages",
+            "rating", "rating",
+            "hasRead", "has_read");
+
+    private final EntityManager entityManager;
+
+    public BookVersionedUpdateRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    @Transactional
+    @SuppressWarnings("unchecked")
+    public Optional<Book> updateColumns(UUID id, Long expectedVersion, Map<String, Object> changes) {
+        StringBuilder sql = new StringBuilder("select id, title, author, genre, number_of_pages, rating, has_read, version, updated_at "
+                + "from final table (update books set ");
+        for (String property : changes.keySet()) {
+            String column = COLUMNS.get(property);
+            if (column == null) {
+                throw new IllegalArgumentException("Unknown book property: " + property);
+            }
+            sql.append(column).append(" = :").append(property).append(", ");
+        }
+        sql.append("version = version + 1, updated_at = current_timestamp where id = :id");
+        if (expectedVersion != null) {
+            sql.append(" and version = :version");
+        }
+        sql.append(")");
+
+        NativeQuery<Object[]> query = entityManager.createNativeQuery(sql.toString(), Object[].class)
+                .unwrap(NativeQuery.class)
+                .addScalar("id", UUID.class)
+                .addScalar("title", String.class)
+                .addScalar("author", String.class)
+                .addScalar("genre", String.class)
+                .addScalar("number_of_pages", Integer.class)
+                .addScalar("rating", Integer.class)
+                .addScalar("has_read", Boolean.class)
+                .addScalar("version", Long.class)
+                .addScalar("updated_at", Instant.class);
+        changes.forEach(query::setParameter);
+        query.setParameter("id", id);
+        if (expectedVersion != null) {
+            query.setParameter("version", expectedVersion);
+        }
+        List<Object[]> rows = query.getResultList();
+        return rows.stream().findFirst().map(BookVersionedUpdateRepositoryImpl::toBook);
+    }
+
+    private static Book toBook(Object[] row) {
+        return new Book((UUID) row[0], (String) row[1], (String) row[2], (String) row[3], (Integer) row[4],
+                (Integer) row[5], (Boolean) row[6], (Long) row[7], (Instant) row[8]);
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.library.repository;
+
+import com.example.library.model.ImportJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface ImportJobRepository extends JpaRepository<ImportJob, UUID> {
+    List<ImportJob> findByStatus(ImportJob.Status status);
+
+    @Modifying
+    @Query("update ImportJob j set j.committedOffset = :offset, j.rowsCommitted = j.rowsCommitted + :rows, "
+            + "j.rowsRejected = j.rowsRejected + :rejected where j.id = :id")
+    void recordProgress(@Param("id") UUID id, @Param("offset") long offset,
+                        @Param("rows") long rows, @Param("rejected") long rejected);
+
+    @Modifying
+    @Query("update ImportJob j set j.lastError = :error where j.id = :id")
+    void recordError(@Param("id") UUID id, @Param("error") String error);
+}
@@ -0,0 +1,147 @@
+package com.example.library.routing;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Places each book on one of {@code library.shards.urls} plus the home shard
+ * by a hash of its id, and runs work against the owning shard or against all
+ * of them. Work for several shards runs on a dedicated pool, one task per
+ * shard, so the per-shard queries overlap; each task takes its own
+ * connection and transaction, so a fan-out is not atomic across shards.
+ * With a single shard everything runs inline on the calling thread.
+ * <p>
+ * The shard count is part of the data layout: changing it moves most ids to
+ * a different shard, and existing rows have to be redistributed offline.
+ */
+@Component
+public class BookShards {
+
+    private static final ThreadLocal<Boolean> FANNING_OUT = new ThreadLocal<>();
+
+    private final int count;
+    private final ExecutorService fanOut;
+
+    public BookShards(@Value("${library.shards.urls:}") List<String> shardUrls,
+                      @Value("${library.shards.fan-out-threads:16}") int fanOutThreads) {
+        this.count = shardUrls.size() + 1;
+        this.fanOut = count == 1 ? null : Executors.newFixedThreadPool(fanOutThreads, threadFactory());
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public int shardOf(UUID id) {
+        return Math.floorMod(Long.hashCode(id.getMostSignificantBits() ^ id.getLeastSignificantBits()), count);
+    }
+
+    public DataSourceRouting.Scope pin(UUID id) {
+        return ShardRouting.pinTo(shardOf(id));
+    }
+
+    public <T> T onShard(int shard, Supplier<T> work) {
+        try (DataSourceRouting.Scope ignored = ShardRouting.pinTo(shard)) {
+            return work.get();
+        }
+    }
+
+    /**
+     * Runs {@code work} on every shard and returns the results in shard order.
+     */
+    public <T> List<T> onEveryShard(Supplier<T> work) {
+        List<Integer> shards = new ArrayList<>(count);
+        for (int shard = 0; shard < count; shard++) {
+            shards.add(shard);
+        }
+        return fanOut(shards, shard -> work.get());
+    }
+
+    /**
+     * Groups {@code items} by the shard owning {@link #shardOf the id} of each
+     * and runs {@code work} once per group on that group's shard. Items without
+     * an id go to the home shard.
+     */
+    public <K, T> List<T> onOwningShards(Collection<K> items, Function<K, UUID> idOf, Function<List<K>, T> work) {
+        Map<Integer, List<K>> groups = partition(items, idOf);
+        List<Integer> shards = new ArrayList<>(groups.keySet());
+        return fanOut(shards, shard -> work.apply(groups.get(shard)));
+    }
+
+    public <K> Map<Integer, List<K>> partition(Collection<K> items, Function<K, UUID> idOf) {
+        Map<Integer, List<K>> groups = new TreeMap<>();
+        for (K item : items) {
+            UUID id = idOf.apply(item);
+            groups.computeIfAbsent(id == null ? ShardRouting.HOME_SHARD : shardOf(id), shard -> new ArrayList<>()).add(item);
+        }
+        return groups;
+    }
+
+    private <T> List<T> fanOut(List<Integer> shards, IntFunction<T> work) {
+        List<T> results = new ArrayList<>(shards.size());
+        if (fanOut == null || shards.size() == 1 || Boolean.TRUE.equals(FANNING_OUT.get())) {
+            for (int shard : shards) {
+                results.add(onShard(shard, () -> work.apply(shard)));
+            }
+            return results;
+        }
+        List<CompletableFuture<T>> futures = new ArrayList<>(shards.size());
+        for (int shard : shards) {
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                FANNING_OUT.set(true);
+                try {
+                    return onShard(shard, () -> work.apply(shard));
+                } finally {
+                    FANNING_OUT.remove();
+                }
+            }, fanOut));
+        }
+        try {
+            for (CompletableFuture<T> future : futures) {
+                results.add(future.join());
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        return results;
+    }
+
+    private static ThreadFactory threadFactory() {
+        AtomicInteger threads = new AtomicInteger();
+        return task -> {
+            Thread thread = new Thread(task, "book-shard-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (fanOut != null) {
+            fanOut.shutdown();
+        }
+    }
+}
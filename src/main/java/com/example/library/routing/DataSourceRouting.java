@@ -0,0 +1,37 @@
+package com.example.library.routing;
+
+/**
+ * Per-thread override that keeps reads on the primary database, used for
+ * read-your-writes requests and for reads that decide the outcome of a
+ * write. Scopes nest, so the primary stays pinned until the outermost scope
+ * is closed.
+ */
+public final class DataSourceRouting {
+
+    private static final ThreadLocal<Integer> PRIMARY_DEPTH = ThreadLocal.withInitial(() -> 0);
+
+    private DataSourceRouting() {
+    }
+
+    public static Scope pinToPrimary() {
+        PRIMARY_DEPTH.set(PRIMARY_DEPTH.get() + 1);
+        return () -> {
+            int depth = PRIMARY_DEPTH.get() - 1;
+            if (depth == 0) {
+                PRIMARY_DEPTH.remove();
+            } else {
+                PRIMARY_DEPTH.set(depth);
+            }
+        };
+    }
+
+    public static boolean isPinnedToPrimary() {
+        return PRIMARY_DEPTH.get() > 0;
+    }
+
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,6 @@
+package com.example.library.routing;
+
+public enum ReplicaSelection {
+    ROUND_ROBIN,
+    LEAST_LOADED
+}
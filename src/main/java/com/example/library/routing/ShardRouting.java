@@ -0,0 +1,35 @@
+package com.example.library.routing;
+
+/**
+ * Per-thread choice of the shard that the next connection is taken from.
+ * Unpinned threads use the home shard, which also holds the tables that are
+ * not sharded. Scopes nest, but only for the same shard: a transaction holds
+ * one connection, so work for another shard has to run outside it.
+ */
+public final class ShardRouting {
+
+    public static final int HOME_SHARD = 0;
+
+    private static final ThreadLocal<int[]> PINNED = new ThreadLocal<>();
+
+    private ShardRouting() {
+    }
+
+    public static DataSourceRouting.Scope pinTo(int shard) {
+        int[] pinned = PINNED.get();
+        if (pinned == null) {
+            PINNED.set(new int[]{shard, 1});
+            return PINNED::remove;
+        }
+        if (pinned[0] != shard) {
+            throw new IllegalStateException("Cannot route to shard " + shard + " while pinned to shard " + pinned[0] + ".");
+        }
+        pinned[1]++;
+        return () -> pinned[1]--;
+    }
+
+    public static int currentShard() {
+        int[] pinned = PINNED.get();
+        return pinned == null ? HOME_SHARD : pinned[0];
+    }
+}
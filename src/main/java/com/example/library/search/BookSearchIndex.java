@@ -0,0 +1,192 @@
+package com.example.library.search;
+
+import com.example.library.event.BookDeletedEvent;
+import com.example.library.event.BookSavedEvent;
+import com.example.library.event.BookTombstones;
+import com.example.library.model.Book;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted index over book title, author and genre tokens. Tokens are
+ * lower-cased, and a query token matches every indexed token it is a prefix
+ * of. Exact token matches score twice as high as prefix matches, and title
+ * matches outweigh author matches, which outweigh genre matches.
+ * <p>
+ * As in {@code BookColumns}, saves only replace an entry of an equal or newer
+ * version, and saves of deleted books are dropped through
+ * {@link BookTombstones}, so neither a late event nor the startup load can
+ * undo a newer change.
+ */
+@Component
+public class BookSearchIndex {
+
+    static final int TITLE_WEIGHT = 3;
+    static final int AUTHOR_WEIGHT = 2;
+    static final int GENRE_WEIGHT = 1;
+
+    private record Entry(long version, List<String> tokens) {
+    }
+
+    private final NavigableMap<String, Map<UUID, Integer>> postings = new TreeMap<>();
+    private final Map<UUID, Entry> entriesById = new HashMap<>();
+    private final BookTombstones tombstones = new BookTombstones();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean ready;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void markReady() {
+        lock.writeLock().lock();
+        try {
+            tombstones.markLoaded();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entriesById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookSaved(BookSavedEvent event) {
+        add(event.book());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookDeleted(BookDeletedEvent event) {
+        remove(event.id());
+    }
+
+    public void add(Book book) {
+        Map<String, Integer> weights = weights(book);
+        lock.writeLock().lock();
+        try {
+            putLocked(book, weights);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(UUID id) {
+        lock.writeLock().lock();
+        try {
+            tombstones.add(id);
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public SearchHits search(String query, int page, int size) {
+        List<String> queryTokens = tokenize(query);
+        if (queryTokens.isEmpty()) {
+            return new SearchHits(List.of(), 0);
+        }
+
+        Map<UUID, Integer> scores = null;
+        lock.readLock().lock();
+        try {
+            for (String queryToken : queryTokens) {
+                Map<UUID, Integer> tokenScores = new HashMap<>();
+                for (Map.Entry<String, Map<UUID, Integer>> posting : postings.subMap(queryToken, true, queryToken + Character.MAX_VALUE, false).entrySet()) {
+                    int multiplier = posting.getKey().equals(queryToken) ? 2 : 1;
+                    posting.getValue().forEach((id, weight) -> tokenScores.merge(id, weight * multiplier, Math::max));
+                }
+                if (scores == null) {
+                    scores = tokenScores;
+                } else {
+                    scores.keySet().retainAll(tokenScores.keySet());
+                    scores.replaceAll((id, score) -> score + tokenScores.get(id));
+                }
+                if (scores.isEmpty()) {
+                    break;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Map.Entry<UUID, Integer>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort(Map.Entry.<UUID, Integer>comparingByValue(Comparator.reverseOrder()).thenComparing(Map.Entry.comparingByKey()));
+        int from = (int) Math.min((long) page * size, ranked.size());
+        int to = Math.min(from + size, ranked.size());
+        return new SearchHits(ranked.subList(from, to).stream().map(Map.Entry::getKey).toList(), ranked.size());
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static Map<String, Integer> weights(Book book) {
+        Map<String, Integer> weights = new HashMap<>();
+        addTokens(weights, book.getTitle(), TITLE_WEIGHT);
+        addTokens(weights, book.getAuthor(), AUTHOR_WEIGHT);
+        addTokens(weights, book.getGenre(), GENRE_WEIGHT);
+        return weights;
+    }
+
+    private void putLocked(Book book, Map<String, Integer> weights) {
+        if (tombstones.contains(book.getId())) {
+            return;
+        }
+        Entry existing = entriesById.get(book.getId());
+        if (existing != null && book.getVersion() != null && book.getVersion() < existing.version()) {
+            return;
+        }
+        removeLocked(book.getId());
+        weights.forEach((token, weight) ->
+                postings.computeIfAbsent(token, t -> new HashMap<>()).put(book.getId(), weight));
+        entriesById.put(book.getId(), new Entry(book.getVersion() == null ? 0 : book.getVersion(), List.copyOf(weights.keySet())));
+    }
+
+    private static void addTokens(Map<String, Integer> weights, String text, int weight) {
+        for (String token : tokenize(text)) {
+            weights.merge(token, weight, Integer::sum);
+        }
+    }
+
+    private void removeLocked(UUID id) {
+        Entry entry = entriesById.remove(id);
+        if (entry == null) {
+            return;
+        }
+        for (String token : entry.tokens()) {
+            Map<UUID, Integer> ids = postings.get(token);
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                postings.remove(token);
+            }
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.library.search;
+
+import java.util.List;
+import java.util.UUID;
+
+public record SearchHits(List<UUID> ids, long total) {
+}
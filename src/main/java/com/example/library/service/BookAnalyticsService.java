@@ -0,0 +1,64 @@
+package com.example.library.service;
+
+import com.example.library.analytics.BookColumns;
+import com.example.library.model.BookFilter;
+import com.example.library.model.BookReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+@Service
+@ConditionalOnProperty(prefix = "library.analytics", name = "enabled", matchIfMissing = true)
+public class BookAnalyticsService {
+
+    private static final Logger log = LoggerFactory.getLogger(BookAnalyticsService.class);
+
+    private final BookColumns bookColumns;
+    private final BookService bookService;
+    private final TaskExecutor taskExecutor;
+
+    public BookAnalyticsService(BookColumns bookColumns, BookService bookService,
+                                @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor) {
+        this.bookColumns = bookColumns;
+        this.bookService = bookService;
+        this.taskExecutor = taskExecutor;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildColumnsInBackground() {
+        taskExecutor.execute(this::rebuildColumns);
+    }
+
+    public void rebuildColumns() {
+        long start = System.nanoTime();
+        bookService.streamAll(bookColumns::add);
+        bookColumns.markReady();
+        log.info("Loaded {} books into the columnar read model in {} ms", bookColumns.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public BookReport query(BookFilter filter, String sort, int limit) {
+        if (limit < 1 || limit > BookService.MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + BookService.MAX_PAGE_SIZE + ".");
+        }
+        if (!bookColumns.isReady()) {
+            throw new IllegalStateException("The columnar read model is still loading.");
+        }
+        String sortProperty = null;
+        Sort.Direction direction = Sort.Direction.ASC;
+        if (sort != null) {
+            String[] parts = sort.split(",");
+            sortProperty = parts[0];
+            direction = parts.length > 1 ? Sort.Direction.fromString(parts[1]) : Sort.Direction.ASC;
+        }
+        long start = System.nanoTime();
+        BookColumns.Result result = bookColumns.query(filter, sortProperty, direction, limit);
+        return new BookReport(result.books(), result.total(), (System.nanoTime() - start) / 1_000);
+    }
+}
@@ -0,0 +1,241 @@
+package com.example.library.service;
+
+import com.example.library.cache.BookCache;
+import com.example.library.changes.BookChangeRecorder;
+import com.example.library.event.BookDeletedEvent;
+import com.example.library.event.BookSavedEvent;
+import com.example.library.id.UuidV7;
+import com.example.library.model.Book;
+import com.example.library.model.BulkItemResult;
+import com.example.library.repository.BookRepository;
+import com.example.library.routing.BookShards;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Writes books in chunks, one transaction per chunk. Each chunk is flushed as
+ * a JDBC batch and the persistence context is cleared afterwards, so memory
+ * use does not grow with the size of the input. If a chunk fails it is
+ * replayed one item at a time to find out which items were at fault. With
+ * several shards a chunk is split by shard and each part commits on its own.
+ */
+@Service
+public class BookBulkService {
+
+    private final BookRepository bookRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final BookCache bookCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BookChangeRecorder bookChangeRecorder;
+    private final BookShards bookShards;
+    private final int chunkSize;
+
+    public BookBulkService(BookRepository bookRepository, EntityManager entityManager,
+                           TransactionTemplate transactionTemplate, BookCache bookCache,
+                           ApplicationEventPublisher eventPublisher, BookChangeRecorder bookChangeRecorder,
+                           BookShards bookShards, @Value("${library.bulk.chunk-size:500}") int chunkSize) {
+        this.bookRepository = bookRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionTemplate;
+        this.bookCache = bookCache;
+        this.eventPublisher = eventPublisher;
+        this.bookChangeRecorder = bookChangeRecorder;
+        this.bookShards = bookShards;
+        this.chunkSize = chunkSize;
+    }
+
+    public List<BulkItemResult> createAll(Iterator<Book> books) {
+        return inChunks(books, this::createChunk);
+    }
+
+    public List<BulkItemResult> patchAll(Iterator<Book> books) {
+        return inChunks(books, this::patchChunk);
+    }
+
+    public List<BulkItemResult> deleteAll(Iterator<UUID> ids) {
+        return inChunks(ids, this::deleteChunk);
+    }
+
+    public List<BulkItemResult> createChunk(List<Book> books, int firstIndex) {
+        books.forEach(book -> book.setId(UuidV7.next()));
+        return byShard(books, firstIndex, Book::getId, this::createOnShard);
+    }
+
+    private List<BulkItemResult> createOnShard(List<Book> books, int firstIndex) {
+        return withItemFallback(books, firstIndex, chunk -> {
+            List<BulkItemResult> results = new ArrayList<>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                Book book = chunk.get(i);
+                book.setVersion(null);
+                entityManager.persist(book);
+                eventPublisher.publishEvent(new BookSavedEvent(book));
+                results.add(new BulkItemResult(firstIndex + i, null, BulkItemResult.Status.CREATED, null));
+            }
+            entityManager.flush();
+            for (int i = 0; i < chunk.size(); i++) {
+                bookChangeRecorder.recordCreated(chunk.get(i));
+                BulkItemResult result = results.get(i);
+                results.set(i, new BulkItemResult(result.index(), chunk.get(i).getId(), result.status(), null));
+            }
+            return results;
+        });
+    }
+
+    public List<BulkItemResult> patchChunk(List<Book> books, int firstIndex) {
+        return byShard(books, firstIndex, Book::getId, this::patchOnShard);
+    }
+
+    private List<BulkItemResult> patchOnShard(List<Book> books, int firstIndex) {
+        return withItemFallback(books, firstIndex, chunk -> {
+            Set<UUID> ids = chunk.stream().map(Book::getId).filter(id -> id != null).collect(Collectors.toSet());
+            Map<UUID, Book> existing = bookRepository.findAllById(ids).stream()
+                    .collect(Collectors.toMap(Book::getId, Function.identity()));
+            List<BulkItemResult> results = new ArrayList<>(chunk.size());
+            List<Book> updated = new ArrayList<>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                Book changes = chunk.get(i);
+                Book book = changes.getId() == null ? null : existing.get(changes.getId());
+                if (book == null) {
+                    results.add(new BulkItemResult(firstIndex + i, changes.getId(), BulkItemResult.Status.NOT_FOUND, null));
+                    continue;
+                }
+                BookService.applyPatch(changes, book);
+                updated.add(book);
+                eventPublisher.publishEvent(new BookSavedEvent(book));
+                results.add(new BulkItemResult(firstIndex + i, book.getId(), BulkItemResult.Status.UPDATED, null));
+            }
+            entityManager.flush();
+            updated.forEach(bookChangeRecorder::recordUpdated);
+            return results;
+        });
+    }
+
+    public List<BulkItemResult> deleteChunk(List<UUID> ids, int firstIndex) {
+        return byShard(ids, firstIndex, id -> id, this::deleteOnShard);
+    }
+
+    private List<BulkItemResult> deleteOnShard(List<UUID> ids, int firstIndex) {
+        return withItemFallback(ids, firstIndex, chunk -> {
+            Map<UUID, Book> existing = bookRepository.findAllById(chunk).stream()
+                    .collect(Collectors.toMap(Book::getId, Function.identity()));
+            bookRepository.deleteAllByIdInBatch(existing.keySet());
+            List<BulkItemResult> results = new ArrayList<>(chunk.size());
+            Set<UUID> deleted = new HashSet<>();
+            for (int i = 0; i < chunk.size(); i++) {
+                UUID id = chunk.get(i);
+                if (existing.containsKey(id) && deleted.add(id)) {
+                    bookChangeRecorder.recordDeleted(existing.get(id));
+                    eventPublisher.publishEvent(new BookDeletedEvent(id));
+                    results.add(new BulkItemResult(firstIndex + i, id, BulkItemResult.Status.DELETED, null));
+                } else {
+                    results.add(new BulkItemResult(firstIndex + i, id, BulkItemResult.Status.NOT_FOUND, null));
+                }
+            }
+            return results;
+        });
+    }
+
+    private <T> List<BulkItemResult> byShard(List<T> chunk, int firstIndex, Function<T, UUID> idOf, ChunkWriter<T> writer) {
+        if (bookShards.count() == 1) {
+            return writer.write(chunk, firstIndex);
+        }
+        List<Integer> positions = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            positions.add(i);
+        }
+        BulkItemResult[] results = new BulkItemResult[chunk.size()];
+        bookShards.partition(positions, i -> idOf.apply(chunk.get(i))).forEach((shard, shardPositions) -> {
+            List<T> items = shardPositions.stream().map(chunk::get).toList();
+            List<BulkItemResult> shardResults = bookShards.onShard(shard, () -> writer.write(items, 0));
+            for (int i = 0; i < shardPositions.size(); i++) {
+                BulkItemResult result = shardResults.get(i);
+                int index = firstIndex + shardPositions.get(i);
+                results[shardPositions.get(i)] = new BulkItemResult(index, result.id(), result.status(), result.error());
+            }
+        });
+        return Arrays.asList(results);
+    }
+
+    private <T> List<BulkItemResult> inChunks(Iterator<T> items, ChunkWriter<T> writer) {
+        List<BulkItemResult> results = new ArrayList<>();
+        List<T> chunk = new ArrayList<>(chunkSize);
+        try {
+            while (items.hasNext()) {
+                chunk.add(items.next());
+                if (chunk.size() == chunkSize) {
+                    results.addAll(writer.write(chunk, results.size()));
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+        } catch (RuntimeException e) {
+            if (!chunk.isEmpty()) {
+                results.addAll(writer.write(chunk, results.size()));
+            }
+            results.add(new BulkItemResult(results.size(), null, BulkItemResult.Status.FAILED, "Unreadable item: " + e.getMessage()));
+            return results;
+        }
+        if (!chunk.isEmpty()) {
+            results.addAll(writer.write(chunk, results.size()));
+        }
+        return results;
+    }
+
+    private <T> List<BulkItemResult> withItemFallback(List<T> chunk, int firstIndex, Function<List<T>, List<BulkItemResult>> work) {
+        try {
+            return commit(chunk, work);
+        } catch (RuntimeException e) {
+            if (chunk.size() == 1) {
+                return List.of(new BulkItemResult(firstIndex, null, BulkItemResult.Status.FAILED, e.getMessage()));
+            }
+        }
+        List<BulkItemResult> results = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            int index = firstIndex + i;
+            try {
+                BulkItemResult result = commit(List.of(chunk.get(i)), work).get(0);
+                results.add(new BulkItemResult(index, result.id(), result.status(), null));
+            } catch (RuntimeException e) {
+                results.add(new BulkItemResult(index, null, BulkItemResult.Status.FAILED, e.getMessage()));
+            }
+        }
+        return results;
+    }
+
+    private <T> List<BulkItemResult> commit(List<T> chunk, Function<List<T>, List<BulkItemResult>> work) {
+        List<BulkItemResult> results = transactionTemplate.execute(status -> {
+            try {
+                List<BulkItemResult> chunkResults = work.apply(chunk);
+                entityManager.flush();
+                return chunkResults;
+            } finally {
+                entityManager.clear();
+            }
+        });
+        for (BulkItemResult result : results) {
+            if (result.succeeded()) {
+                bookCache.evict(result.id());
+            }
+        }
+        return results;
+    }
+
+    @FunctionalInterface
+    private interface ChunkWriter<T> {
+        List<BulkItemResult> write(List<T> chunk, int firstIndex);
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.library.service;
+
+import com.example.library.model.Book;
+import com.example.library.model.BookCursor;
+import com.example.library.model.BookFields;
+import com.example.library.model.SearchResult;
+import com.example.library.repository.BookRepository;
+import com.example.library.routing.BookShards;
+import com.example.library.search.BookSearchIndex;
+import com.example.library.search.SearchHits;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+public class BookSearchService {
+
+    private static final Logger log = LoggerFactory.getLogger(BookSearchService.class);
+    private static final Comparator<Book> BY_TITLE = BookCursor.first("title", Sort.Direction.ASC).order();
+
+    private final BookSearchIndex bookSearchIndex;
+    private final BookService bookService;
+    private final BookRepository bookRepository;
+    private final BookShards bookShards;
+    private final TaskExecutor taskExecutor;
+
+    public BookSearchService(BookSearchIndex bookSearchIndex, BookService bookService, BookRepository bookRepository,
+                             BookShards bookShards,
+                             @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor) {
+        this.bookSearchIndex = bookSearchIndex;
+        this.bookService = bookService;
+        this.bookRepository = bookRepository;
+        this.bookShards = bookShards;
+        this.taskExecutor = taskExecutor;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIndexInBackground() {
+        taskExecutor.execute(this::rebuildIndex);
+    }
+
+    public void rebuildIndex() {
+        long start = System.nanoTime();
+        bookService.streamAll(bookSearchIndex::add);
+        bookSearchIndex.markReady();
+        log.info("Indexed {} books for search in {} ms", bookSearchIndex.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public SearchResult<Book> search(String query, int page, int size) {
+        checkPage(page, size);
+        if (!bookSearchIndex.isReady()) {
+            Page<Book> books = searchByPrefix(query, page, size);
+            return new SearchResult<>(books.getContent(), books.getTotalElements(), page, size);
+        }
+        SearchHits hits = bookSearchIndex.search(query, page, size);
+        Map<UUID, Book> booksById = bookShards.onOwningShards(hits.ids(), id -> id, bookRepository::findAllById).stream()
+                .flatMap(List::stream)
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+        List<Book> books = hits.ids().stream().map(booksById::get).filter(Objects::nonNull).toList();
+        return new SearchResult<>(books, hits.total(), page, size);
+    }
+
+    public SearchResult<Map<String, Object>> search(String query, int page, int size, Set<String> fields) {
+        checkPage(page, size);
+        if (!bookSearchIndex.isReady()) {
+            Page<Book> books = searchByPrefix(query, page, size);
+            List<Map<String, Object>> rows = books.getContent().stream()
+                    .map(book -> BookFields.project(book, fields))
+                    .toList();
+            return new SearchResult<>(rows, books.getTotalElements(), page, size);
+        }
+        SearchHits hits = bookSearchIndex.search(query, page, size);
+        Map<Object, Map<String, Object>> rowsById = bookShards
+                .onOwningShards(hits.ids(), id -> id, ids -> bookRepository.findFieldsByIdIn(ids, fields)).stream()
+                .flatMap(List::stream)
+                .collect(Collectors.toMap(row -> row.get("id"), Function.identity()));
+        List<Map<String, Object>> rows = hits.ids().stream().map(rowsById::get).filter(Objects::nonNull).toList();
+        return new SearchResult<>(rows, hits.total(), page, size);
+    }
+
+    private Page<Book> searchByPrefix(String query, int page, int size) {
+        String pattern = BookRepository.prefixPattern(query);
+        if (bookShards.count() == 1) {
+            return bookRepository.searchByPrefix(pattern, PageRequest.of(page, size, Sort.by("title", "id")));
+        }
+        // every shard may hold any of the rows up to the end of the page, so each one reads that far
+        PageRequest upToPage = PageRequest.of(0, (page + 1) * size, Sort.by("title", "id"));
+        List<Page<Book>> pages = bookShards.onEveryShard(() -> bookRepository.searchByPrefix(pattern, upToPage));
+        List<Book> merged = BookService.merge(pages.stream().map(Page::getContent).toList(), BY_TITLE, (page + 1) * size);
+        List<Book> content = merged.subList(Math.min(page * size, merged.size()), merged.size());
+        long total = pages.stream().mapToLong(Page::getTotalElements).sum();
+        return new PageImpl<>(List.copyOf(content), PageRequest.of(page, size), total);
+    }
+
+    private static void checkPage(int page, int size) {
+        if (page < 0 || size < 1 || size > BookService.MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page must be non-negative and size between 1 and " + BookService.MAX_PAGE_SIZE + ".");
+        }
+    }
+}
@@ -1,58 +1,278 @@
 package com.example.library.service;
 
+import com.example.library.cache.BookCache;
+import com.example.library.changes.BookChangeRecorder;
+import com.example.library.cache.CacheStats;
+import com.example.library.event.BookDeletedEvent;
+import com.example.library.event.BookSavedEvent;
 import com.example.library.exceptions.BookNotFoundException;
+import com.example.library.exceptions.BookVersionMismatchException;
+import com.example.library.id.UuidV7;
 import com.example.library.model.Book;
+import com.example.library.model.BookCursor;
+import com.example.library.model.BookFilter;
+import com.example.library.model.BookLookup;
+import com.example.library.model.BookPage;
 import com.example.library.repository.BookRepository;
+import com.example.library.repository.BookSpecifications;
+import com.example.library.routing.BookShards;
+import com.example.library.routing.DataSourceRouting;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
+/**
+ * Book reads and writes. Operations on a single id run on the shard that owns
+ * it (see {@link BookShards}); list reads run on every shard and concatenate
+ * the results, and keyset pages are merged in sort order. With one shard this
+ * is the plain single-database behaviour.
+ */
 @Service
+@Timed(value = "library.book.service", description = "Time spent in BookService methods")
 public class BookService {
 
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final int MAX_BATCH_GET_SIZE = 1000;
+    static final int BATCH_GET_CHUNK_SIZE = 250;
+
     private final BookRepository bookRepository;
+    private final EntityManager entityManager;
+    private final BookCache bookCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BookChangeRecorder bookChangeRecorder;
+    private final BookShards bookShards;
+    private final TransactionTemplate readOnlyTransaction;
 
-    public BookService(BookRepository bookRepository) {
+    public BookService(BookRepository bookRepository, EntityManager entityManager, BookCache bookCache,
+                       ApplicationEventPublisher eventPublisher, BookChangeRecorder bookChangeRecorder,
+                       BookShards bookShards, PlatformTransactionManager transactionManager) {
         this.bookRepository = bookRepository;
+        this.entityManager = entityManager;
+        this.bookCache = bookCache;
+        this.eventPublisher = eventPublisher;
+        this.bookChangeRecorder = bookChangeRecorder;
+        this.bookShards = bookShards;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
     }
 
+    @Transactional
     public Book create(Book book) {
-        return bookRepository.save(book);
+        return create(book, UuidV7.next());
     }
 
+    /**
+     * Creates {@code book} under an id chosen by the caller, which lets callers
+     * that group writes by shard know where the book will live beforehand.
+     */
+    @Transactional
+    public Book create(Book book, UUID id) {
+        book.setId(id);
+        book.setVersion(null);
+        try (DataSourceRouting.Scope ignored = bookShards.pin(id)) {
+            Book savedBook = bookRepository.save(book);
+            bookChangeRecorder.recordCreated(savedBook);
+            // nothing has touched the database yet, so flush while the owning shard is pinned
+            entityManager.flush();
+            bookCache.evict(savedBook.getId());
+            eventPublisher.publishEvent(new BookSavedEvent(savedBook));
+            return savedBook;
+        }
+    }
+
+    @Transactional(readOnly = true)
     public List<Book> getAll() {
-        return bookRepository.findAll();
+        return concat(bookShards.onEveryShard(bookRepository::findAll));
+    }
+
+    @Transactional(readOnly = true)
+    public List<Book> getAll(BookFilter filter) {
+        return concat(bookShards.onEveryShard(() -> bookRepository.findAll(BookSpecifications.matching(filter))));
+    }
+
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getAll(BookFilter filter, Set<String> fields) {
+        return concat(bookShards.onEveryShard(() -> bookRepository.findAllFields(BookSpecifications.matching(filter), fields)));
+    }
+
+    @Transactional(readOnly = true)
+    public BookPage getPage(BookFilter filter, BookCursor cursor, int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE + ".");
+        }
+        List<List<Book>> pages = bookShards.onEveryShard(() -> bookRepository.findPage(BookSpecifications.matching(filter),
+                cursor.sortProperty(), cursor.direction(), cursor.lastValue(), cursor.lastId(), size + 1));
+        List<Book> books = merge(pages, cursor.order(), size + 1);
+        if (books.size() <= size) {
+            return new BookPage(books, null);
+        }
+        List<Book> content = books.subList(0, size);
+        Book last = content.get(size - 1);
+        return new BookPage(List.copyOf(content), BookCursor.after(cursor.sortProperty(), cursor.direction(), last).encode());
+    }
+
+    /**
+     * Hands every book to {@code consumer}, one shard after the other, without
+     * holding more than the current row in memory.
+     */
+    public void streamAll(Consumer<Book> consumer) {
+        for (int shard = 0; shard < bookShards.count(); shard++) {
+            bookShards.onShard(shard, () -> readOnlyTransaction.execute(status -> {
+                try (Stream<Book> books = bookRepository.streamAll()) {
+                    books.forEach(book -> {
+                        consumer.accept(book);
+                        entityManager.detach(book);
+                    });
+                }
+                return null;
+            }));
+        }
     }
 
     public Book getById(UUID id) {
-        Optional<Book> optionalBook = bookRepository.findById(id);
+        Book cachedBook = bookCache.get(id);
+        if (cachedBook != null) {
+            return cachedBook;
+        }
+        long generation = bookCache.generation();
+        Optional<Book> optionalBook = onOwningShard(id, () -> bookRepository.findById(id));
         if (optionalBook.isEmpty()) {
             throw new BookNotFoundException("A book with id: " + id + " was not found.");
         }
+        bookCache.put(optionalBook.get(), generation);
         return optionalBook.get();
     }
 
+    public List<BookLookup> getByIds(List<UUID> ids) {
+        if (ids.size() > MAX_BATCH_GET_SIZE) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_GET_SIZE + " ids can be fetched at once.");
+        }
+        if (ids.stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("Ids must not be null.");
+        }
+        Map<UUID, Book> books = new HashMap<>();
+        List<UUID> misses = new ArrayList<>();
+        for (UUID id : new LinkedHashSet<>(ids)) {
+            Book cachedBook = bookCache.get(id);
+            if (cachedBook != null) {
+                books.put(id, cachedBook);
+            } else {
+                misses.add(id);
+            }
+        }
+        long generation = bookCache.generation();
+        List<List<Book>> found = bookShards.onOwningShards(misses, id -> id, shardMisses -> {
+            List<Book> shardBooks = new ArrayList<>(shardMisses.size());
+            for (int from = 0; from < shardMisses.size(); from += BATCH_GET_CHUNK_SIZE) {
+                shardBooks.addAll(bookRepository.findAllById(
+                        shardMisses.subList(from, Math.min(from + BATCH_GET_CHUNK_SIZE, shardMisses.size()))));
+            }
+            return shardBooks;
+        });
+        for (Book book : concat(found)) {
+            books.put(book.getId(), book);
+            bookCache.put(book, generation);
+        }
+        List<BookLookup> lookups = new ArrayList<>(ids.size());
+        for (UUID id : ids) {
+            Book book = books.get(id);
+            lookups.add(book != null ? BookLookup.found(book) : BookLookup.notFound(id));
+        }
+        return lookups;
+    }
+
+    public CacheStats getCacheStats() {
+        return bookCache.stats();
+    }
+
+    @Transactional(readOnly = true)
     public List<Book> getByTitle(String title) {
-        return bookRepository.findByTitle(title);
+        return concat(bookShards.onEveryShard(() -> bookRepository.findByTitle(title)));
     }
 
+    @Transactional
     public Book update(Book book, UUID id) {
-        Optional<Book> optionalBook = bookRepository.findById(id);
-        if (optionalBook.isEmpty()) {
-            throw new BookNotFoundException("A book with id: " + id + " was not found.");
-        }
-        book.setId(id);
-        return bookRepository.save(book);
+        return update(book, id, null);
+    }
+
+    @Transactional
+    public Book update(Book book, UUID id, Long expectedVersion) {
+        Map<String, Object> columns = new LinkedHashMap<>();
+        columns.put("title", book.getTitle());
+        columns.put("author", book.getAuthor());
+        columns.put("genre", book.getGenre());
+        columns.put("numberOfPages", book.getNumberOfPages());
+        columns.put("rating", book.getRating());
+        columns.put("hasRead", book.getHasRead());
+        return updateColumns(id, expectedVersion, columns);
     }
 
+    @Transactional
     public Book patch(Book book, UUID id) {
-        Optional<Book> optionalBook = bookRepository.findById(id);
-        if (optionalBook.isEmpty()) {
-            throw new BookNotFoundException("A book with id: " + id + " was not found.");
+        return patch(book, id, null);
+    }
+
+    @Transactional
+    public Book patch(Book book, UUID id, Long expectedVersion) {
+        Map<String, Object> columns = new LinkedHashMap<>();
+        putIfPresent(columns, "title", book.getTitle());
+        putIfPresent(columns, "author", book.getAuthor());
+        putIfPresent(columns, "genre", book.getGenre());
+        putIfPresent(columns, "numberOfPages", book.getNumberOfPages());
+        putIfPresent(columns, "rating", book.getRating());
+        putIfPresent(columns, "hasRead", book.getHasRead());
+        return updateColumns(id, expectedVersion, columns);
+    }
+
+    private Book updateColumns(UUID id, Long expectedVersion, Map<String, Object> columns) {
+        try (DataSourceRouting.Scope ignored = bookShards.pin(id)) {
+            Optional<Book> optionalBook = bookRepository.updateColumns(id, expectedVersion, columns);
+            bookCache.evict(id);
+            if (optionalBook.isEmpty()) {
+                if (expectedVersion != null && existsOnPrimary(id)) {
+                    throw new BookVersionMismatchException("A book with id: " + id + " is not at version " + expectedVersion + ".");
+                }
+                throw new BookNotFoundException("A book with id: " + id + " was not found.");
+            }
+            bookChangeRecorder.recordUpdated(optionalBook.get());
+            eventPublisher.publishEvent(new BookSavedEvent(optionalBook.get()));
+            return optionalBook.get();
+        }
+    }
+
+    private boolean existsOnPrimary(UUID id) {
+        try (DataSourceRouting.Scope ignored = DataSourceRouting.pinToPrimary()) {
+            return bookRepository.existsById(id);
+        }
+    }
+
+    private static void putIfPresent(Map<String, Object> columns, String property, Object value) {
+        if (value != null) {
+            columns.put(property, value);
         }
-        Book updatedBook = optionalBook.get();
+    }
+
+    static void applyPatch(Book book, Book updatedBook) {
         if (book.getTitle() != null) {
             updatedBook.setTitle(book.getTitle());
         }
@@ -71,10 +291,56 @@ public class BookService {
         if (book.getHasRead() != null) {
             updatedBook.setHasRead(book.getHasRead());
         }
-        return bookRepository.save(updatedBook);
     }
 
+    @Transactional
     public void delete(UUID id) {
-        bookRepository.deleteById(id);
+        try (DataSourceRouting.Scope ignored = bookShards.pin(id)) {
+            Optional<Book> optionalBook = bookRepository.findById(id);
+            bookRepository.deleteById(id);
+            optionalBook.ifPresent(bookChangeRecorder::recordDeleted);
+            bookCache.evict(id);
+            eventPublisher.publishEvent(new BookDeletedEvent(id));
+        }
+    }
+
+    private <T> T onOwningShard(UUID id, Supplier<T> work) {
+        return bookShards.onShard(bookShards.shardOf(id), work);
+    }
+
+    static <T> List<T> concat(List<? extends Collection<T>> parts) {
+        if (parts.size() == 1) {
+            return new ArrayList<>(parts.get(0));
+        }
+        List<T> all = new ArrayList<>(parts.stream().mapToInt(Collection::size).sum());
+        parts.forEach(all::addAll);
+        return all;
+    }
+
+    /**
+     * Merges lists that are each sorted by {@code order} into the first
+     * {@code limit} elements of their sorted union.
+     */
+    static <T> List<T> merge(List<List<T>> sorted, Comparator<? super T> order, int limit) {
+        if (sorted.size() == 1) {
+            List<T> only = sorted.get(0);
+            return only.size() <= limit ? only : only.subList(0, limit);
+        }
+        int[] positions = new int[sorted.size()];
+        List<T> merged = new ArrayList<>(limit);
+        while (merged.size() < limit) {
+            int next = -1;
+            for (int i = 0; i < sorted.size(); i++) {
+                if (positions[i] < sorted.get(i).size() && (next < 0
+                        || order.compare(sorted.get(i).get(positions[i]), sorted.get(next).get(positions[next])) < 0)) {
+                    next = i;
+                }
+            }
+            if (next < 0) {
+                break;
+            }
+            merged.add(sorted.get(next).get(positions[next]++));
+        }
+        return merged;
     }
 }
@@ -0,0 +1,98 @@
+package com.example.library.service;
+
+import com.example.library.model.AuthorRating;
+import com.example.library.model.BookStats;
+import com.example.library.model.BookTotals;
+import com.example.library.model.GenreCount;
+import com.example.library.repository.BookRepository;
+import com.example.library.routing.BookShards;
+import com.example.library.stats.BookStatsSummary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class BookStatsService {
+
+    private static final Logger log = LoggerFactory.getLogger(BookStatsService.class);
+
+    private final BookStatsSummary bookStatsSummary;
+    private final BookService bookService;
+    private final BookRepository bookRepository;
+    private final BookShards bookShards;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TaskExecutor taskExecutor;
+
+    public BookStatsService(BookStatsSummary bookStatsSummary, BookService bookService, BookRepository bookRepository,
+                            BookShards bookShards,
+                            PlatformTransactionManager transactionManager,
+                            @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor) {
+        this.bookStatsSummary = bookStatsSummary;
+        this.bookService = bookService;
+        this.bookRepository = bookRepository;
+        this.bookShards = bookShards;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.taskExecutor = taskExecutor;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildSummaryInBackground() {
+        taskExecutor.execute(this::rebuildSummary);
+    }
+
+    public void rebuildSummary() {
+        long start = System.nanoTime();
+        bookService.streamAll(bookStatsSummary::add);
+        bookStatsSummary.markReady();
+        log.info("Summarized {} books for stats in {} ms", bookStatsSummary.stats().books(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public BookStats getStats(boolean exact) {
+        if (!exact && bookStatsSummary.isReady()) {
+            return bookStatsSummary.stats();
+        }
+        List<ShardStats> shards = bookShards.onEveryShard(() -> readOnlyTransaction.execute(status -> new ShardStats(
+                bookRepository.countTotals(), bookRepository.countByGenre(), bookRepository.averageRatingByAuthor())));
+        if (shards.size() == 1) {
+            return BookStats.of(shards.get(0).totals(), shards.get(0).genres(), shards.get(0).authors());
+        }
+        long books = 0;
+        long readBooks = 0;
+        long pagesRead = 0;
+        Map<String, Long> genres = new LinkedHashMap<>();
+        Map<String, double[]> authors = new LinkedHashMap<>();
+        for (ShardStats shard : shards) {
+            books += shard.totals().books();
+            readBooks += shard.totals().readBooks();
+            pagesRead += shard.totals().pagesRead();
+            shard.genres().forEach(genre -> genres.merge(genre.genre(), genre.books(), Long::sum));
+            for (AuthorRating author : shard.authors()) {
+                // sum of ratings and number of rated books, so the averages can be recombined
+                double[] sums = authors.computeIfAbsent(author.author(), ignored -> new double[2]);
+                sums[0] += author.averageRating() * author.ratedBooks();
+                sums[1] += author.ratedBooks();
+            }
+        }
+        List<GenreCount> genreCounts = new ArrayList<>(genres.size());
+        genres.forEach((genre, count) -> genreCounts.add(new GenreCount(genre, count)));
+        List<AuthorRating> authorRatings = new ArrayList<>(authors.size());
+        authors.forEach((author, sums) -> authorRatings.add(new AuthorRating(author, sums[0] / sums[1], (long) sums[1])));
+        return BookStats.of(new BookTotals(books, readBooks, pagesRead), genreCounts, authorRatings);
+    }
+
+    private record ShardStats(BookTotals totals, List<GenreCount> genres, List<AuthorRating> authors) {
+    }
+}
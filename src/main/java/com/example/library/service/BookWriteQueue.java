@@ -0,0 +1,336 @@
+package com.example.library.service;
+
+import com.example.library.event.BookWriteCompletedEvent;
+import com.example.library.exceptions.BookNotFoundException;
+import com.example.library.exceptions.BookVersionMismatchException;
+import com.example.library.exceptions.WriteNotFoundException;
+import com.example.library.exceptions.WriteQueueFullException;
+import com.example.library.id.UuidV7;
+import com.example.library.model.Book;
+import com.example.library.model.WriteStatus;
+import com.example.library.routing.BookShards;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Accepts creates and patches into a bounded in-memory queue and applies them
+ * in groups, one transaction per group. A group is committed once it holds
+ * {@code max-group-size} writes or {@code max-delay} has passed since its
+ * first write was taken. If a group fails it is replayed one write at a time,
+ * so a bad write only fails itself. With several shards a group is split by
+ * the shard each book lives on, and each part commits on its own.
+ * <p>
+ * Durability: an accepted write lives only in memory until its group
+ * commits, and is lost if the process dies before then. A write is durable
+ * once its status is {@link WriteStatus.Status#COMPLETED}. A graceful
+ * shutdown stops accepting writes and applies everything already queued.
+ * Finished statuses are kept for {@code retention} so callers can poll them.
+ */
+@Service
+public class BookWriteQueue implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(BookWriteQueue.class);
+
+    private final BookService bookService;
+    private final BookShards bookShards;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BlockingQueue<PendingWrite> queue;
+    private final int capacity;
+    private final int maxGroupSize;
+    private final long maxDelayNanos;
+    private final Duration retention;
+    private final int maxRetained;
+    private final Map<UUID, PendingWrite> writes = new ConcurrentHashMap<>();
+    private final Queue<PendingWrite> finished = new ArrayDeque<>();
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong groups = new AtomicLong();
+    private final AtomicLong groupedWrites = new AtomicLong();
+    private volatile boolean accepting = true;
+    private volatile boolean running;
+    private Thread drainer;
+
+    public BookWriteQueue(BookService bookService, BookShards bookShards, PlatformTransactionManager transactionManager,
+                          ApplicationEventPublisher eventPublisher,
+                          @Value("${library.write-queue.capacity:10000}") int capacity,
+                          @Value("${library.write-queue.max-group-size:100}") int maxGroupSize,
+                          @Value("${library.write-queue.max-delay:PT0.005S}") Duration maxDelay,
+                          @Value("${library.write-queue.retention:PT10M}") Duration retention,
+                          @Value("${library.write-queue.max-retained:100000}") int maxRetained) {
+        this.bookService = bookService;
+        this.bookShards = bookShards;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.capacity = capacity;
+        this.maxGroupSize = maxGroupSize;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.retention = retention;
+        this.maxRetained = maxRetained;
+    }
+
+    public WriteStatus submitCreate(Book book) {
+        return submit(WriteStatus.Operation.CREATE, book, null, null);
+    }
+
+    public WriteStatus submitPatch(Book changes, UUID id, Long expectedVersion) {
+        return submit(WriteStatus.Operation.PATCH, changes, id, expectedVersion);
+    }
+
+    private WriteStatus submit(WriteStatus.Operation operation, Book book, UUID id, Long expectedVersion) {
+        if (!accepting) {
+            rejected.incrementAndGet();
+            throw new WriteQueueFullException("The write queue is shutting down.");
+        }
+        UUID bookId = operation == WriteStatus.Operation.CREATE ? UuidV7.next() : id;
+        PendingWrite write = new PendingWrite(WriteStatus.pending(UuidV7.next(), operation, id), bookId, copy(book),
+                expectedVersion, new CompletableFuture<>());
+        writes.put(write.accepted().id(), write);
+        if (!queue.offer(write)) {
+            writes.remove(write.accepted().id());
+            rejected.incrementAndGet();
+            throw new WriteQueueFullException("The write queue is full (" + capacity + " writes).");
+        }
+        accepted.incrementAndGet();
+        return write.accepted();
+    }
+
+    public WriteStatus getStatus(UUID id) {
+        PendingWrite write = find(id);
+        return write.completion().getNow(write.accepted());
+    }
+
+    public CompletableFuture<WriteStatus> completion(UUID id) {
+        return find(id).completion().copy();
+    }
+
+    private PendingWrite find(UUID id) {
+        PendingWrite write = writes.get(id);
+        if (write == null) {
+            throw new WriteNotFoundException("A write with id: " + id + " was not found.");
+        }
+        return write;
+    }
+
+    public int depth() {
+        return queue.size();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public long accepted() {
+        return accepted.get();
+    }
+
+    public long rejected() {
+        return rejected.get();
+    }
+
+    public long completed() {
+        return completed.get();
+    }
+
+    public long failed() {
+        return failed.get();
+    }
+
+    public long groups() {
+        return groups.get();
+    }
+
+    public long groupedWrites() {
+        return groupedWrites.get();
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        accepting = true;
+        running = true;
+        drainer = new Thread(this::drain, "book-write-queue");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        accepting = false;
+        running = false;
+        try {
+            drainer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<PendingWrite> remaining = new ArrayList<>(maxGroupSize);
+        while (queue.drainTo(remaining, maxGroupSize) > 0) {
+            apply(remaining);
+            remaining.clear();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // stop after the web server so that no request is accepted once draining has begun
+        return 0;
+    }
+
+    private void drain() {
+        List<PendingWrite> group = new ArrayList<>(maxGroupSize);
+        try {
+            while (running || !queue.isEmpty()) {
+                PendingWrite first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                fill(group);
+                try {
+                    apply(group);
+                } catch (RuntimeException e) {
+                    log.error("Applying a group of {} queued writes failed", group.size(), e);
+                }
+                group.clear();
+                expire();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void fill(List<PendingWrite> group) throws InterruptedException {
+        long deadline = System.nanoTime() + maxDelayNanos;
+        while (group.size() < maxGroupSize) {
+            queue.drainTo(group, maxGroupSize - group.size());
+            long remaining = deadline - System.nanoTime();
+            if (group.size() == maxGroupSize || remaining <= 0) {
+                return;
+            }
+            PendingWrite next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            group.add(next);
+        }
+    }
+
+    private void apply(List<PendingWrite> group) {
+        if (bookShards.count() == 1) {
+            applyOnShard(group);
+            return;
+        }
+        bookShards.partition(group, PendingWrite::bookId)
+                .forEach((shard, writes) -> bookShards.onShard(shard, () -> {
+                    applyOnShard(writes);
+                    return null;
+                }));
+    }
+
+    private void applyOnShard(List<PendingWrite> group) {
+        List<Book> books;
+        try {
+            books = transactionTemplate.execute(status -> {
+                List<Book> written = new ArrayList<>(group.size());
+                for (PendingWrite write : group) {
+                    written.add(write(write));
+                }
+                return written;
+            });
+        } catch (RuntimeException e) {
+            if (group.size() == 1) {
+                finish(group.get(0), failure(group.get(0), e));
+                return;
+            }
+            for (PendingWrite write : group) {
+                applyOnShard(List.of(write));
+            }
+            return;
+        }
+        groups.incrementAndGet();
+        groupedWrites.addAndGet(group.size());
+        for (int i = 0; i < group.size(); i++) {
+            finish(group.get(i), group.get(i).accepted().completed(books.get(i)));
+        }
+    }
+
+    private Book write(PendingWrite write) {
+        WriteStatus status = write.accepted();
+        if (status.operation() == WriteStatus.Operation.CREATE) {
+            return bookService.create(copy(write.book()), write.bookId());
+        }
+        return bookService.patch(write.book(), status.bookId(), write.expectedVersion());
+    }
+
+    private static WriteStatus failure(PendingWrite write, RuntimeException e) {
+        if (e instanceof BookNotFoundException) {
+            return write.accepted().failed(WriteStatus.Status.NOT_FOUND, e.getMessage());
+        }
+        if (e instanceof BookVersionMismatchException) {
+            return write.accepted().failed(WriteStatus.Status.PRECONDITION_FAILED, e.getMessage());
+        }
+        return write.accepted().failed(WriteStatus.Status.FAILED, e.getMessage());
+    }
+
+    private void finish(PendingWrite write, WriteStatus status) {
+        (status.status() == WriteStatus.Status.COMPLETED ? completed : failed).incrementAndGet();
+        eventPublisher.publishEvent(new BookWriteCompletedEvent(status));
+        write.completion().complete(status);
+        synchronized (finished) {
+            finished.add(write);
+        }
+    }
+
+    private void expire() {
+        Instant cutoff = Instant.now().minus(retention);
+        synchronized (finished) {
+            while (!finished.isEmpty() && (finished.size() > maxRetained
+                    || finished.peek().completion().join().completedAt().isBefore(cutoff))) {
+                writes.remove(finished.poll().accepted().id());
+            }
+        }
+    }
+
+    private static Book copy(Book book) {
+        return new Book(null, book.getTitle(), book.getAuthor(), book.getGenre(), book.getNumberOfPages(),
+                book.getRating(), book.getHasRead());
+    }
+
+    private record PendingWrite(WriteStatus accepted, UUID bookId, Book book, Long expectedVersion,
+                                CompletableFuture<WriteStatus> completion) {
+    }
+}
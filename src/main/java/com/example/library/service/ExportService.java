@@ -0,0 +1,105 @@
+package com.example.library.service;
+
+import com.example.library.exceptions.ExportNotFoundException;
+import com.example.library.export.BookExporter;
+import com.example.library.export.ExportFormat;
+import com.example.library.model.ExportSnapshot;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+public class ExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportService.class);
+
+    private final BookExporter bookExporter;
+    private final Path exportDirectory;
+    private final ThreadPoolTaskExecutor exportExecutor;
+    private final Map<UUID, ExportSnapshot> snapshots = new ConcurrentHashMap<>();
+
+    public ExportService(BookExporter bookExporter, ThreadPoolTaskExecutorBuilder executorBuilder,
+                         @Value("${library.export.directory}") Path exportDirectory,
+                         @Value("${library.export.threads:1}") int threads) {
+        this.bookExporter = bookExporter;
+        this.exportDirectory = exportDirectory.toAbsolutePath().normalize();
+        this.exportExecutor = executorBuilder
+                .corePoolSize(threads)
+                .maxPoolSize(threads)
+                .queueCapacity(Integer.MAX_VALUE)
+                .threadNamePrefix("export-")
+                .build();
+        this.exportExecutor.initialize();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        exportExecutor.shutdown();
+    }
+
+    public long stream(ExportFormat format, boolean gzip, WritableByteChannel channel) throws IOException {
+        return bookExporter.export(format, gzip, channel);
+    }
+
+    public ExportSnapshot startSnapshot(ExportFormat format, boolean gzip) {
+        ExportSnapshot snapshot = ExportSnapshot.started(format, gzip);
+        snapshots.put(snapshot.id(), snapshot);
+        exportExecutor.execute(() -> writeSnapshot(snapshot));
+        return snapshot;
+    }
+
+    public ExportSnapshot getSnapshot(UUID id) {
+        ExportSnapshot snapshot = snapshots.get(id);
+        if (snapshot == null) {
+            throw new ExportNotFoundException("An export with id: " + id + " was not found.");
+        }
+        return snapshot;
+    }
+
+    public Path getSnapshotFile(UUID id) {
+        ExportSnapshot snapshot = getSnapshot(id);
+        if (snapshot.status() != ExportSnapshot.Status.READY) {
+            throw new IllegalStateException("Export " + id + " is " + snapshot.status() + ".");
+        }
+        return exportDirectory.resolve(snapshot.fileName());
+    }
+
+    private void writeSnapshot(ExportSnapshot snapshot) {
+        Path target = exportDirectory.resolve(snapshot.fileName());
+        Path partial = exportDirectory.resolve(snapshot.fileName() + ".part");
+        try {
+            Files.createDirectories(exportDirectory);
+            long rows;
+            try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                rows = bookExporter.export(snapshot.format(), snapshot.gzip(), channel);
+                channel.force(false);
+            }
+            Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            snapshots.put(snapshot.id(), snapshot.ready(rows, Files.size(target)));
+            log.info("Export {} wrote {} rows to {}", snapshot.id(), rows, target);
+        } catch (Exception e) {
+            log.warn("Export {} failed", snapshot.id(), e);
+            snapshots.put(snapshot.id(), snapshot.failed(e.getMessage()));
+            try {
+                Files.deleteIfExists(partial);
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
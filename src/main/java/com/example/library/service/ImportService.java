@@ -0,0 +1,388 @@
+package com.example.library.service;
+
+import com.example.library.changes.BookChangeRecorder;
+import com.example.library.event.BookSavedEvent;
+import com.example.library.exceptions.ImportJobNotFoundException;
+import com.example.library.id.UuidV7;
+import com.example.library.importer.BookRowParser;
+import com.example.library.importer.CsvBookParser;
+import com.example.library.importer.LineReader;
+import com.example.library.importer.NdjsonBookParser;
+import com.example.library.model.Book;
+import com.example.library.model.ImportJob;
+import com.example.library.model.ImportStatus;
+import com.example.library.repository.ImportJobRepository;
+import com.example.library.routing.BookShards;
+import com.example.library.routing.ShardRouting;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Imports CSV or NDJSON files into the books table. A reader task parses the
+ * file through a {@link LineReader} and hands batches to the job thread over a
+ * small bounded queue, so reading blocks whenever writing falls behind. The
+ * reader runs on a thread of its own rather than on the task executor, so a
+ * busy executor cannot leave a job waiting for a reader that never starts. Each
+ * batch is committed together with the job's byte offset, which makes a failed
+ * or interrupted job resumable from the last committed row.
+ * <p>
+ * With several shards a batch is split by shard. The parts on the other
+ * shards commit first and the home shard's part commits last, together with
+ * the offset. If the job dies in between, resuming imports those rows again,
+ * so across shards a batch is imported at least once rather than exactly once.
+ */
+@Service
+public class ImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportService.class);
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final long READER_POLL_MILLIS = 1000;
+
+    private final ImportJobRepository importJobRepository;
+    private final BookShards bookShards;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BookChangeRecorder bookChangeRecorder;
+    private final ObjectMapper objectMapper;
+    private final TaskExecutor taskExecutor;
+    private final Path importDirectory;
+    private final int batchSize;
+    private final int queueCapacity;
+    private final Set<UUID> activeJobs = ConcurrentHashMap.newKeySet();
+    private final Map<UUID, Throughput> throughputs = new ConcurrentHashMap<>();
+
+    public ImportService(ImportJobRepository importJobRepository, BookShards bookShards, EntityManager entityManager,
+                         TransactionTemplate transactionTemplate, ApplicationEventPublisher eventPublisher,
+                         BookChangeRecorder bookChangeRecorder, ObjectMapper objectMapper, @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor,
+                         @Value("${library.import.directory}") Path importDirectory,
+                         @Value("${library.import.batch-size:1000}") int batchSize,
+                         @Value("${library.import.queue-capacity:4}") int queueCapacity) {
+        this.importJobRepository = importJobRepository;
+        this.bookShards = bookShards;
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.bookChangeRecorder = bookChangeRecorder;
+        this.objectMapper = objectMapper;
+        this.taskExecutor = taskExecutor;
+        this.importDirectory = importDirectory.toAbsolutePath().normalize();
+        this.batchSize = batchSize;
+        this.queueCapacity = queueCapacity;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void failInterruptedJobs() {
+        for (ImportJob job : importJobRepository.findByStatus(ImportJob.Status.RUNNING)) {
+            job.setStatus(ImportJob.Status.FAILED);
+            job.setLastError("Interrupted by shutdown; resume to continue from offset " + job.getCommittedOffset() + ".");
+            importJobRepository.save(job);
+        }
+    }
+
+    public ImportStatus importUpload(MultipartFile file, ImportJob.Format format) throws IOException {
+        Files.createDirectories(importDirectory);
+        String name = file.getOriginalFilename() == null ? "upload" : Path.of(file.getOriginalFilename()).getFileName().toString();
+        Path target = importDirectory.resolve(UUID.randomUUID() + "-" + name);
+        file.transferTo(target);
+        return start(target, format == null ? formatOf(name) : format);
+    }
+
+    public ImportStatus importLocal(String path, ImportJob.Format format) throws IOException {
+        Path source = importDirectory.resolve(path).normalize();
+        if (!source.startsWith(importDirectory) || !Files.isRegularFile(source)) {
+            throw new IllegalArgumentException("No importable file at: " + path);
+        }
+        return start(source, format == null ? formatOf(source.getFileName().toString()) : format);
+    }
+
+    public ImportStatus resume(UUID id) {
+        if (!activeJobs.add(id)) {
+            throw new IllegalStateException("Import " + id + " is already running.");
+        }
+        try {
+            ImportJob job = findJob(id);
+            if (job.getStatus() == ImportJob.Status.COMPLETED) {
+                throw new IllegalStateException("Import " + id + " is " + job.getStatus() + " and cannot be resumed.");
+            }
+            job.setStatus(ImportJob.Status.RUNNING);
+            job.setLastError(null);
+            job.setFinishedAt(null);
+            importJobRepository.save(job);
+            launch(id);
+        } catch (RuntimeException e) {
+            activeJobs.remove(id);
+            throw e;
+        }
+        return getStatus(id);
+    }
+
+    public ImportStatus getStatus(UUID id) {
+        ImportJob job = findJob(id);
+        Throughput throughput = throughputs.get(id);
+        return ImportStatus.of(job, throughput == null ? 0 : throughput.rowsPerSecond());
+    }
+
+    private ImportStatus start(Path source, ImportJob.Format format) throws IOException {
+        ImportJob job = importJobRepository.save(new ImportJob(source.toString(), format, Files.size(source)));
+        activeJobs.add(job.getId());
+        try {
+            launch(job.getId());
+        } catch (RuntimeException e) {
+            activeJobs.remove(job.getId());
+            throw e;
+        }
+        return getStatus(job.getId());
+    }
+
+    /**
+     * Runs a job the caller has already claimed in {@code activeJobs}; the
+     * claim is released once the run is over.
+     */
+    private void launch(UUID id) {
+        taskExecutor.execute(() -> {
+            try {
+                run(id);
+            } finally {
+                throughputs.remove(id);
+                activeJobs.remove(id);
+            }
+        });
+    }
+
+    void run(UUID id) {
+        Throughput throughput = new Throughput(System.nanoTime());
+        throughputs.put(id, throughput);
+        try {
+            ImportJob job = findJob(id);
+            try (LineReader lines = new LineReader(Path.of(job.getSourcePath()), job.getCommittedOffset(), READ_BUFFER_SIZE)) {
+                BookRowParser parser = parserFor(job, lines);
+                pipe(id, lines, parser, throughput);
+            }
+            finish(id, ImportJob.Status.COMPLETED, null);
+            log.info("Import {} completed at {} rows/s", id, Math.round(throughput.rowsPerSecond()));
+        } catch (Exception e) {
+            log.warn("Import {} failed", id, e);
+            finish(id, ImportJob.Status.FAILED, e.getMessage());
+        } finally {
+            throughput.stop();
+        }
+    }
+
+    private BookRowParser parserFor(ImportJob job, LineReader lines) throws IOException {
+        if (job.getFormat() == ImportJob.Format.NDJSON) {
+            return new NdjsonBookParser(objectMapper);
+        }
+        if (job.getCsvHeader() == null) {
+            String header = lines.readLine();
+            if (header == null) {
+                throw new IllegalArgumentException("CSV file is empty.");
+            }
+            CsvBookParser parser = new CsvBookParser(header);
+            transactionTemplate.executeWithoutResult(status -> {
+                ImportJob managed = findJob(job.getId());
+                managed.setCsvHeader(header);
+                managed.setCommittedOffset(lines.offset());
+            });
+            return parser;
+        }
+        return new CsvBookParser(job.getCsvHeader());
+    }
+
+    private void pipe(UUID id, LineReader lines, BookRowParser parser, Throughput throughput) throws Exception {
+        BlockingQueue<Batch> queue = new ArrayBlockingQueue<>(queueCapacity);
+        AtomicBoolean cancelled = new AtomicBoolean();
+        Thread reader = new Thread(() -> read(lines, parser, queue, cancelled), "import-reader-" + id);
+        reader.setDaemon(true);
+        reader.start();
+        try {
+            while (true) {
+                Batch batch = queue.poll(READER_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (batch == null) {
+                    if (reader.isAlive()) {
+                        continue;
+                    }
+                    batch = queue.poll();
+                    if (batch == null) {
+                        throw new IllegalStateException("The reader of import " + id + " stopped before the end of the file.");
+                    }
+                }
+                if (batch.failure() != null) {
+                    throw batch.failure();
+                }
+                if (!batch.books().isEmpty() || batch.rejected() > 0) {
+                    commit(id, batch);
+                    throughput.add(batch.books().size());
+                }
+                if (batch.last()) {
+                    return;
+                }
+            }
+        } finally {
+            cancelled.set(true);
+            queue.clear();
+        }
+    }
+
+    private void read(LineReader lines, BookRowParser parser, BlockingQueue<Batch> queue, AtomicBoolean cancelled) {
+        try {
+            List<Book> books = new ArrayList<>(batchSize);
+            long rejected = 0;
+            String lastError = null;
+            while (true) {
+                long lineOffset = lines.offset();
+                String line = lines.readLine();
+                if (line == null) {
+                    put(queue, new Batch(books, lines.offset(), rejected, lastError, true, null), cancelled);
+                    return;
+                }
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    books.add(parser.parse(line));
+                } catch (IllegalArgumentException e) {
+                    rejected++;
+                    lastError = "Row at byte " + lineOffset + ": " + e.getMessage();
+                }
+                if (books.size() + rejected >= batchSize) {
+                    if (!put(queue, new Batch(books, lines.offset(), rejected, lastError, false, null), cancelled)) {
+                        return;
+                    }
+                    books = new ArrayList<>(batchSize);
+                    rejected = 0;
+                    lastError = null;
+                }
+            }
+        } catch (Exception e) {
+            put(queue, new Batch(List.of(), 0, 0, null, true, e), cancelled);
+        }
+    }
+
+    private boolean put(BlockingQueue<Batch> queue, Batch batch, AtomicBoolean cancelled) {
+        try {
+            while (!cancelled.get()) {
+                if (queue.offer(batch, 100, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    private void commit(UUID id, Batch batch) {
+        batch.books().forEach(book -> book.setId(UuidV7.next()));
+        Map<Integer, List<Book>> shards = bookShards.partition(batch.books(), Book::getId);
+        shards.forEach((shard, books) -> {
+            if (shard != ShardRouting.HOME_SHARD) {
+                bookShards.onShard(shard, () -> transactionTemplate.execute(status -> persist(books)));
+            }
+        });
+        transactionTemplate.executeWithoutResult(status -> {
+            persist(shards.getOrDefault(ShardRouting.HOME_SHARD, List.of()));
+            importJobRepository.recordProgress(id, batch.endOffset(), batch.books().size(), batch.rejected());
+            if (batch.lastError() != null) {
+                importJobRepository.recordError(id, truncate(batch.lastError()));
+            }
+        });
+    }
+
+    private List<Book> persist(List<Book> books) {
+        for (Book book : books) {
+            entityManager.persist(book);
+            eventPublisher.publishEvent(new BookSavedEvent(book));
+        }
+        entityManager.flush();
+        books.forEach(bookChangeRecorder::recordCreated);
+        entityManager.flush();
+        entityManager.clear();
+        return books;
+    }
+
+    private void finish(UUID id, ImportJob.Status status, String error) {
+        ImportJob job = findJob(id);
+        job.setStatus(status);
+        if (error != null) {
+            job.setLastError(truncate(error));
+        }
+        job.setFinishedAt(Instant.now());
+        importJobRepository.save(job);
+    }
+
+    private ImportJob findJob(UUID id) {
+        return importJobRepository.findById(id)
+                .orElseThrow(() -> new ImportJobNotFoundException("An import with id: " + id + " was not found."));
+    }
+
+    private static String truncate(String message) {
+        return message.length() <= ImportJob.MAX_ERROR_LENGTH ? message : message.substring(0, ImportJob.MAX_ERROR_LENGTH);
+    }
+
+    private static ImportJob.Format formatOf(String fileName) {
+        String name = fileName.toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) {
+            return ImportJob.Format.CSV;
+        }
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+            return ImportJob.Format.NDJSON;
+        }
+        throw new IllegalArgumentException("Cannot tell the format of: " + fileName);
+    }
+
+    private record Batch(List<Book> books, long endOffset, long rejected, String lastError, boolean last, Exception failure) {
+    }
+
+    private static final class Throughput {
+        private final long startNanos;
+        private final AtomicLong rows = new AtomicLong();
+        private volatile long stopNanos;
+
+        private Throughput(long startNanos) {
+            this.startNanos = startNanos;
+        }
+
+        private void add(long count) {
+            rows.addAndGet(count);
+        }
+
+        private void stop() {
+            stopNanos = System.nanoTime();
+        }
+
+        private double rowsPerSecond() {
+            long end = stopNanos == 0 ? System.nanoTime() : stopNanos;
+            double seconds = (end - startNanos) / 1e9;
+            return seconds <= 0 ? 0 : rows.get() / seconds;
+        }
+    }
+}
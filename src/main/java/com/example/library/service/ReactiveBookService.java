@@ -0,0 +1,189 @@
+package com.example.library.service;
+
+import com.example.library.cache.BookCache;
+import com.example.library.event.BookDeletedEvent;
+import com.example.library.event.BookSavedEvent;
+import com.example.library.exceptions.BookNotFoundException;
+import com.example.library.id.UuidV7;
+import com.example.library.model.Book;
+import com.example.library.model.BookChange;
+import com.example.library.repository.BookRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.r2dbc.spi.Readable;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Book access for the reactive API. Every write inserts its row into the
+ * {@code book_changes} outbox in the same R2DBC transaction as the book, so
+ * change subscribers see reactive writes exactly like servlet ones.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveBookService {
+
+    private static final String COLUMNS = "id, title, author, genre, number_of_pages, rating, has_read, version, updated_at";
+
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator transactionalOperator;
+    private final BookCache bookCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+
+    public ReactiveBookService(DatabaseClient databaseClient, TransactionalOperator transactionalOperator,
+                               BookCache bookCache, ApplicationEventPublisher eventPublisher, ObjectMapper objectMapper) {
+        this.databaseClient = databaseClient;
+        this.transactionalOperator = transactionalOperator;
+        this.bookCache = bookCache;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+    }
+
+    public Mono<Book> create(Book book) {
+        book.setId(UuidV7.next());
+        book.setVersion(0L);
+        return bindAll(databaseClient.sql("insert into books (" + COLUMNS + ") "
+                        + "values (:id, :title, :author, :genre, :numberOfPages, :rating, :hasRead, 0, current_timestamp)"), book)
+                .fetch().rowsUpdated()
+                .then(record(BookChange.Type.CREATED, book))
+                .thenReturn(book)
+                .as(transactionalOperator::transactional)
+                .doOnNext(this::saved);
+    }
+
+    public Flux<Book> getAll() {
+        return databaseClient.sql("select " + COLUMNS + " from books")
+                .map(ReactiveBookService::toBook)
+                .all();
+    }
+
+    public Mono<Book> getById(UUID id) {
+        return databaseClient.sql("select " + COLUMNS + " from books where id = :id")
+                .bind("id", id)
+                .map(ReactiveBookService::toBook)
+                .one()
+                .switchIfEmpty(Mono.error(() -> new BookNotFoundException("A book with id: " + id + " was not found.")));
+    }
+
+    public Flux<Book> getByTitle(String title) {
+        return databaseClient.sql("select " + COLUMNS + " from books where title = :title")
+                .bind("title", title)
+                .map(ReactiveBookService::toBook)
+                .all();
+    }
+
+    public Flux<Book> search(String query, int page, int size) {
+        if (page < 0 || size < 1 || size > BookService.MAX_PAGE_SIZE) {
+            return Flux.error(new IllegalArgumentException(
+                    "Page must be non-negative and size between 1 and " + BookService.MAX_PAGE_SIZE + "."));
+        }
+        return databaseClient.sql("select " + COLUMNS + " from books where id in (" + BookRepository.SEARCH_IDS + ") "
+                        + "order by title, id limit :limit offset :offset")
+                .bind("pattern", BookRepository.prefixPattern(query))
+                .bind("limit", size)
+                .bind("offset", (long) page * size)
+                .map(ReactiveBookService::toBook)
+                .all();
+    }
+
+    public Mono<Book> update(Book book, UUID id) {
+        book.setId(id);
+        return bindAll(databaseClient.sql("update books set title = :title, author = :author, genre = :genre, "
+                        + "number_of_pages = :numberOfPages, rating = :rating, has_read = :hasRead, "
+                        + "version = version + 1, updated_at = current_timestamp where id = :id"), book)
+                .fetch().rowsUpdated()
+                .flatMap(rows -> rows == 0
+                        ? Mono.error(new BookNotFoundException("A book with id: " + id + " was not found."))
+                        : getById(id))
+                .flatMap(updated -> record(BookChange.Type.UPDATED, updated).thenReturn(updated))
+                .as(transactionalOperator::transactional)
+                .doOnNext(this::saved);
+    }
+
+    public Mono<Book> patch(Book book, UUID id) {
+        book.setId(id);
+        return bindAll(databaseClient.sql("update books set title = coalesce(:title, title), "
+                        + "author = coalesce(:author, author), genre = coalesce(:genre, genre), "
+                        + "number_of_pages = coalesce(:numberOfPages, number_of_pages), "
+                        + "rating = coalesce(:rating, rating), has_read = coalesce(:hasRead, has_read), "
+                        + "version = version + 1, updated_at = current_timestamp where id = :id"), book)
+                .fetch().rowsUpdated()
+                .flatMap(rows -> rows == 0
+                        ? Mono.error(new BookNotFoundException("A book with id: " + id + " was not found."))
+                        : getById(id))
+                .flatMap(updated -> record(BookChange.Type.UPDATED, updated).thenReturn(updated))
+                .as(transactionalOperator::transactional)
+                .doOnNext(this::saved);
+    }
+
+    public Mono<Void> delete(UUID id) {
+        return databaseClient.sql("select " + COLUMNS + " from books where id = :id for update")
+                .bind("id", id)
+                .map(ReactiveBookService::toBook)
+                .one()
+                .flatMap(existing -> databaseClient.sql("delete from books where id = :id")
+                        .bind("id", id)
+                        .fetch().rowsUpdated()
+                        .then(record(BookChange.Type.DELETED, existing)))
+                .as(transactionalOperator::transactional)
+                .then(Mono.fromRunnable(() -> {
+                    bookCache.evict(id);
+                    eventPublisher.publishEvent(new BookDeletedEvent(id));
+                }));
+    }
+
+    private Mono<Void> record(BookChange.Type type, Book book) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(book);
+        } catch (JsonProcessingException e) {
+            return Mono.error(new UncheckedIOException(e));
+        }
+        return databaseClient.sql("insert into book_changes (id, book_id, type, book_version, payload, created_at) "
+                        + "values (next value for book_changes_seq, :bookId, cast(:type as varchar(16)), :bookVersion, :payload, "
+                        + "current_timestamp)")
+                .bind("bookId", book.getId())
+                .bind("type", type.name())
+                .bind("bookVersion", book.getVersion())
+                .bind("payload", payload)
+                .fetch().rowsUpdated()
+                .then();
+    }
+
+    private void saved(Book book) {
+        bookCache.evict(book.getId());
+        eventPublisher.publishEvent(new BookSavedEvent(book));
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bindAll(DatabaseClient.GenericExecuteSpec spec, Book book) {
+        spec = spec.bind("id", book.getId());
+        spec = bindNullable(spec, "title", book.getTitle(), String.class);
+        spec = bindNullable(spec, "author", book.getAuthor(), String.class);
+        spec = bindNullable(spec, "genre", book.getGenre(), String.class);
+        spec = bindNullable(spec, "numberOfPages", book.getNumberOfPages(), Integer.class);
+        spec = bindNullable(spec, "rating", book.getRating(), Integer.class);
+        return bindNullable(spec, "hasRead", book.getHasRead(), Boolean.class);
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bindNullable(DatabaseClient.GenericExecuteSpec spec, String name,
+                                                                  Object value, Class<?> type) {
+        return value == null ? spec.bindNull(name, type) : spec.bind(name, value);
+    }
+
+    private static Book toBook(Readable row) {
+        return new Book(row.get("id", UUID.class), row.get("title", String.class), row.get("author", String.class),
+                row.get("genre", String.class), row.get("number_of_pages", Integer.class),
+                row.get("rating", Integer.class), row.get("has_read", Boolean.class), row.get("version", Long.class),
+                row.get("updated_at", Instant.class));
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.library.service;
+
+import com.example.library.cache.BookCache;
+import com.example.library.model.Book;
+import com.example.library.repository.BookRepository;
+import com.example.library.routing.BookShards;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Reports how long startup took for the number of books already stored and,
+ * when {@code library.cache.preload} is set, fills the book cache with the
+ * most recently updated books so that reads after a restart of a file-backed
+ * node do not all start out as cache misses.
+ */
+@Service
+public class StartupWarmer {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupWarmer.class);
+
+    private final BookRepository bookRepository;
+    private final BookShards bookShards;
+    private final BookCache bookCache;
+    private final boolean preload;
+    private final int maxSize;
+
+    public StartupWarmer(BookRepository bookRepository, BookShards bookShards, BookCache bookCache,
+                         @Value("${library.cache.preload:false}") boolean preload,
+                         @Value("${library.cache.max-size:10000}") int maxSize) {
+        this.bookRepository = bookRepository;
+        this.bookShards = bookShards;
+        this.bookCache = bookCache;
+        this.preload = preload;
+        this.maxSize = maxSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onReady(ApplicationReadyEvent event) {
+        long books = bookShards.onEveryShard(bookRepository::count).stream().mapToLong(Long::longValue).sum();
+        log.info("Started with {} books in {} ms", books, event.getTimeTaken().toMillis());
+        if (preload) {
+            long start = System.nanoTime();
+            int loaded = preloadCache();
+            log.info("Preloaded {} books into the cache in {} ms", loaded, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    public int preloadCache() {
+        if (maxSize <= 0) {
+            return 0;
+        }
+        long generation = bookCache.generation();
+        List<Book> books = BookService.merge(
+                bookShards.onEveryShard(() -> bookRepository.findRecentlyUpdated(PageRequest.ofSize(maxSize))),
+                Comparator.comparing(Book::getUpdatedAt, Comparator.nullsFirst(Comparator.<Instant>naturalOrder())).reversed(),
+                maxSize);
+        books.forEach(book -> bookCache.put(book, generation));
+        return books.size();
+    }
+}
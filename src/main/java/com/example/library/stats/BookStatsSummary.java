@@ -0,0 +1,154 @@
+package com.example.library.stats;
+
+import com.example.library.event.BookDeletedEvent;
+import com.example.library.event.BookSavedEvent;
+import com.example.library.event.BookTombstones;
+import com.example.library.model.AuthorRating;
+import com.example.library.model.Book;
+import com.example.library.model.BookStats;
+import com.example.library.model.BookTotals;
+import com.example.library.model.GenreCount;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Catalog statistics maintained incrementally from book events. The summary
+ * remembers what each book contributed, so a save replaces the previous
+ * contribution and a delete subtracts it without rescanning the table. The
+ * last computed {@link BookStats} is kept until the next change.
+ * <p>
+ * As in {@code BookColumns}, saves only replace a contribution of an equal or
+ * newer version, and saves of deleted books are dropped through
+ * {@link BookTombstones}, so neither a late event nor the startup load can
+ * undo a newer change.
+ */
+@Component
+public class BookStatsSummary {
+
+    private record Contribution(long version, String genre, String author, Integer rating, int pagesRead, boolean read) {
+    }
+
+    private final Map<UUID, Contribution> contributions = new HashMap<>();
+    private final BookTombstones tombstones = new BookTombstones();
+    private final Map<String, Long> booksPerGenre = new HashMap<>();
+    private final Map<String, long[]> ratingsPerAuthor = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private long readBooks;
+    private long pagesRead;
+    private volatile BookStats snapshot;
+    private volatile boolean ready;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void markReady() {
+        lock.writeLock().lock();
+        try {
+            tombstones.markLoaded();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookSaved(BookSavedEvent event) {
+        add(event.book());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookDeleted(BookDeletedEvent event) {
+        remove(event.id());
+    }
+
+    public void add(Book book) {
+        Contribution contribution = contribution(book);
+        lock.writeLock().lock();
+        try {
+            putLocked(book, contribution);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(UUID id) {
+        lock.writeLock().lock();
+        try {
+            tombstones.add(id);
+            Contribution previous = contributions.remove(id);
+            if (previous != null) {
+                apply(previous, -1);
+                snapshot = null;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public BookStats stats() {
+        BookStats stats = snapshot;
+        if (stats != null) {
+            return stats;
+        }
+        lock.readLock().lock();
+        try {
+            List<GenreCount> genres = new ArrayList<>(booksPerGenre.size());
+            booksPerGenre.forEach((genre, books) -> genres.add(new GenreCount(genre, books)));
+            List<AuthorRating> authors = new ArrayList<>(ratingsPerAuthor.size());
+            ratingsPerAuthor.forEach((author, ratings) ->
+                    authors.add(new AuthorRating(author, (double) ratings[0] / ratings[1], ratings[1])));
+            stats = BookStats.of(new BookTotals(contributions.size(), readBooks, pagesRead), genres, authors);
+            snapshot = stats;
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static Contribution contribution(Book book) {
+        boolean read = Boolean.TRUE.equals(book.getHasRead());
+        return new Contribution(book.getVersion() == null ? 0 : book.getVersion(), book.getGenre(), book.getAuthor(),
+                book.getRating(), read && book.getNumberOfPages() != null ? book.getNumberOfPages() : 0, read);
+    }
+
+    private void putLocked(Book book, Contribution contribution) {
+        if (tombstones.contains(book.getId())) {
+            return;
+        }
+        Contribution previous = contributions.get(book.getId());
+        if (previous != null) {
+            if (book.getVersion() != null && book.getVersion() < previous.version()) {
+                return;
+            }
+            apply(previous, -1);
+        }
+        contributions.put(book.getId(), contribution);
+        apply(contribution, 1);
+        snapshot = null;
+    }
+
+    private void apply(Contribution contribution, int sign) {
+        booksPerGenre.merge(contribution.genre(), (long) sign, (a, b) -> a + b == 0 ? null : a + b);
+        if (contribution.rating() != null) {
+            long[] ratings = ratingsPerAuthor.computeIfAbsent(contribution.author(), author -> new long[2]);
+            ratings[0] += (long) sign * contribution.rating();
+            ratings[1] += sign;
+            if (ratings[1] == 0) {
+                ratingsPerAuthor.remove(contribution.author());
+            }
+        }
+        if (contribution.read()) {
+            readBooks += sign;
+        }
+        pagesRead += (long) sign * contribution.pagesRead();
+    }
+}
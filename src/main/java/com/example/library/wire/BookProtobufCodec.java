@@ -0,0 +1,152 @@
+package com.example.library.wire;
+
+import com.example.library.model.Book;
+import com.example.library.model.BookFields;
+import com.example.library.model.BookPage;
+import com.example.library.model.SearchResult;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Hand-written encoder and decoder for the messages in {@code book.proto}.
+ * Field numbers of Book follow {@link BookFields#ALL}, so entities and sparse
+ * fieldset rows are written by the same code and unset fields are omitted.
+ */
+public final class BookProtobufCodec {
+
+    private static final int CONTENT = 1;
+    private static final int NEXT_CURSOR = 2;
+    private static final int TOTAL = 2;
+    private static final int PAGE = 3;
+    private static final int SIZE = 4;
+
+    private BookProtobufCodec() {
+    }
+
+    public static void write(Object value, OutputStream outputStream) throws IOException {
+        CodedOutputStream out = CodedOutputStream.newInstance(outputStream);
+        if (value instanceof Book || value instanceof Map<?, ?>) {
+            writeFields(out, value);
+        } else if (value instanceof BookPage page) {
+            writeElements(out, page.content());
+            if (page.nextCursor() != null) {
+                out.writeString(NEXT_CURSOR, page.nextCursor());
+            }
+        } else if (value instanceof SearchResult<?> result) {
+            writeElements(out, result.content());
+            out.writeInt64(TOTAL, result.total());
+            out.writeInt32(PAGE, result.page());
+            out.writeInt32(SIZE, result.size());
+        } else if (value instanceof Collection<?> books) {
+            writeElements(out, books);
+        } else {
+            throw new IllegalArgumentException("Cannot write " + value.getClass().getName() + " as protobuf");
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes one entry of a BookList. Concatenated entries form a valid
+     * BookList message, which is what lets a list be streamed row by row.
+     */
+    public static void writeElement(CodedOutputStream out, Object book) throws IOException {
+        out.writeTag(CONTENT, com.google.protobuf.WireFormat.WIRETYPE_LENGTH_DELIMITED);
+        out.writeUInt32NoTag(size(book));
+        writeFields(out, book);
+    }
+
+    public static Book readBook(InputStream inputStream) throws IOException {
+        CodedInputStream in = CodedInputStream.newInstance(inputStream);
+        Book book = new Book();
+        while (true) {
+            int tag = in.readTag();
+            if (tag == 0) {
+                return book;
+            }
+            switch (com.google.protobuf.WireFormat.getTagFieldNumber(tag)) {
+                case 1 -> book.setId(toUuid(in.readByteArray()));
+                case 2 -> book.setTitle(in.readString());
+                case 3 -> book.setAuthor(in.readString());
+                case 4 -> book.setGenre(in.readString());
+                case 5 -> book.setNumberOfPages(in.readInt32());
+                case 6 -> book.setRating(in.readInt32());
+                case 7 -> book.setHasRead(in.readBool());
+                case 8 -> book.setVersion(in.readInt64());
+                default -> in.skipField(tag);
+            }
+        }
+    }
+
+    private static void writeElements(CodedOutputStream out, Collection<?> books) throws IOException {
+        for (Object book : books) {
+            writeElement(out, book);
+        }
+    }
+
+    private static void writeFields(CodedOutputStream out, Object book) throws IOException {
+        for (int i = 0; i < BookFields.ALL.size(); i++) {
+            Object value = value(book, BookFields.ALL.get(i));
+            if (value instanceof UUID id) {
+                out.writeByteArray(i + 1, toBytes(id));
+            } else if (value instanceof String string) {
+                out.writeString(i + 1, string);
+            } else if (value instanceof Integer integer) {
+                out.writeInt32(i + 1, integer);
+            } else if (value instanceof Boolean bool) {
+                out.writeBool(i + 1, bool);
+            } else if (value instanceof Long number) {
+                out.writeInt64(i + 1, number);
+            }
+        }
+    }
+
+    private static int size(Object book) {
+        int size = 0;
+        for (int i = 0; i < BookFields.ALL.size(); i++) {
+            Object value = value(book, BookFields.ALL.get(i));
+            if (value instanceof UUID) {
+                size += CodedOutputStream.computeTagSize(i + 1) + CodedOutputStream.computeUInt32SizeNoTag(16) + 16;
+            } else if (value instanceof String string) {
+                size += CodedOutputStream.computeStringSize(i + 1, string);
+            } else if (value instanceof Integer integer) {
+                size += CodedOutputStream.computeInt32Size(i + 1, integer);
+            } else if (value instanceof Boolean bool) {
+                size += CodedOutputStream.computeBoolSize(i + 1, bool);
+            } else if (value instanceof Long number) {
+                size += CodedOutputStream.computeInt64Size(i + 1, number);
+            }
+        }
+        return size;
+    }
+
+    private static Object value(Object book, String field) {
+        if (book instanceof Book entity) {
+            return BookFields.value(entity, field);
+        }
+        if (book instanceof Map<?, ?> row) {
+            return row.get(field);
+        }
+        throw new IllegalArgumentException("Cannot write " + book.getClass().getName() + " as a protobuf Book");
+    }
+
+    private static byte[] toBytes(UUID id) {
+        return ByteBuffer.allocate(16).putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits()).array();
+    }
+
+    private static UUID toUuid(byte[] bytes) throws InvalidProtocolBufferException {
+        if (bytes.length != 16) {
+            throw new InvalidProtocolBufferException("Book id must be 16 bytes, got " + bytes.length);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.library.wire;
+
+import com.example.library.model.Book;
+import com.example.library.model.BookPage;
+import com.example.library.model.SearchResult;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Reads and writes {@code application/x-protobuf} for books, lists of books,
+ * pages and search results using {@link BookProtobufCodec}.
+ */
+public class BookProtobufHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public BookProtobufHttpMessageConverter() {
+        super(WireFormat.PROTOBUF.mediaType());
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return clazz == Book.class || clazz == BookPage.class || clazz == SearchResult.class;
+    }
+
+    @Override
+    public boolean canRead(Type type, @Nullable Class<?> contextClass, @Nullable MediaType mediaType) {
+        return type == Book.class && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(@Nullable Type type, Class<?> clazz, @Nullable MediaType mediaType) {
+        if (!canWrite(mediaType)) {
+            return false;
+        }
+        if (supports(clazz)) {
+            return true;
+        }
+        if (type == null || !Collection.class.isAssignableFrom(clazz)) {
+            return false;
+        }
+        Class<?> element = ResolvableType.forType(type).asCollection().resolveGeneric(0);
+        return element != null && (element == Book.class || Map.class.isAssignableFrom(element));
+    }
+
+    @Override
+    public Object read(Type type, @Nullable Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+        return readInternal(Book.class, inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        try {
+            return BookProtobufCodec.readBook(inputMessage.getBody());
+        } catch (IOException e) {
+            throw new HttpMessageNotReadableException("Invalid protobuf Book: " + e.getMessage(), e, inputMessage);
+        }
+    }
+
+    @Override
+    protected void writeInternal(Object value, @Nullable Type type, HttpOutputMessage outputMessage) throws IOException {
+        BookProtobufCodec.write(value, outputMessage.getBody());
+    }
+}
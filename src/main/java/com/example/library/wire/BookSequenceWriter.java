@@ -0,0 +1,38 @@
+package com.example.library.wire;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes a stream of books as a sequence of top-level values: newline
+ * delimited for JSON, back to back for the self-delimiting binary formats.
+ */
+public class BookSequenceWriter {
+
+    private final ObjectWriter writer;
+    private final JsonGenerator generator;
+    private final boolean newlineDelimited;
+
+    BookSequenceWriter(ObjectMapper objectMapper, OutputStream outputStream, boolean newlineDelimited) throws IOException {
+        this.writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.generator = objectMapper.getFactory().createGenerator(outputStream);
+        this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.newlineDelimited = newlineDelimited;
+    }
+
+    public void write(Object book) throws IOException {
+        writer.writeValue(generator, book);
+        if (newlineDelimited) {
+            generator.writeRaw('\n');
+        }
+    }
+
+    public void finish() throws IOException {
+        generator.close();
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.library.wire;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * One configured mapper per Jackson-backed format, all built from the same
+ * Spring Boot Jackson settings so every representation carries the same
+ * fields, plus the hand-written protobuf encoding.
+ */
+@Component
+public class WireFormats {
+
+    private final Map<WireFormat, ObjectMapper> mappers = new EnumMap<>(WireFormat.class);
+
+    public WireFormats(ObjectMapper objectMapper, Jackson2ObjectMapperBuilder objectMapperBuilder) {
+        mappers.put(WireFormat.JSON, objectMapper);
+        mappers.put(WireFormat.CBOR, objectMapperBuilder.factory(new CBORFactory()).build());
+        mappers.put(WireFormat.SMILE, objectMapperBuilder.factory(new SmileFactory()).build());
+    }
+
+    public ObjectMapper mapper(WireFormat format) {
+        ObjectMapper mapper = mappers.get(format);
+        if (mapper == null) {
+            throw new IllegalArgumentException(format + " is not a Jackson format");
+        }
+        return mapper;
+    }
+
+    public byte[] serialize(Object value, WireFormat format) {
+        try {
+            if (format == WireFormat.PROTOBUF) {
+                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                BookProtobufCodec.write(value, outputStream);
+                return outputStream.toByteArray();
+            }
+            return mapper(format).writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public BookSequenceWriter sequenceWriter(WireFormat format, OutputStream outputStream) throws IOException {
+        return new BookSequenceWriter(mapper(format), outputStream, format == WireFormat.JSON);
+    }
+}
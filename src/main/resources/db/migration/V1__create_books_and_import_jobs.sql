@@ -0,0 +1,33 @@
+create table books (
+    id uuid not null,
+    title varchar(255),
+    author varchar(255),
+    genre varchar(255),
+    number_of_pages integer,
+    rating integer,
+    has_read boolean,
+    version bigint default 0 not null,
+    updated_at timestamp(6) with time zone,
+    primary key (id)
+);
+
+create index idx_books_title on books (title);
+create index idx_books_author on books (author);
+create index idx_books_genre on books (genre);
+create index idx_books_updated_at on books (updated_at desc);
+
+create table import_jobs (
+    id uuid not null,
+    source_path varchar(255),
+    format enum ('CSV', 'NDJSON'),
+    status enum ('COMPLETED', 'FAILED', 'RUNNING'),
+    csv_header varchar(4000),
+    size_bytes bigint not null,
+    committed_offset bigint not null,
+    rows_committed bigint not null,
+    rows_rejected bigint not null,
+    last_error varchar(1000),
+    created_at timestamp(6) with time zone,
+    finished_at timestamp(6) with time zone,
+    primary key (id)
+);
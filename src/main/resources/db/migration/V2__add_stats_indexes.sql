@@ -0,0 +1,2 @@
+create index idx_books_author_rating on books (author, rating);
+create index idx_books_has_read_pages on books (has_read, number_of_pages);
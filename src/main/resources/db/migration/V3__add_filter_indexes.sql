@@ -0,0 +1,3 @@
+create index idx_books_genre_rating on books (genre, rating);
+drop index idx_books_genre;
+drop index idx_books_author;
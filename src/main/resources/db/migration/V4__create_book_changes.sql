@@ -0,0 +1,14 @@
+create sequence book_changes_seq start with 1 increment by 50;
+
+create table book_changes (
+    id bigint not null,
+    book_id uuid not null,
+    type enum ('CREATED', 'DELETED', 'UPDATED') not null,
+    book_version bigint,
+    payload varchar(4000),
+    created_at timestamp(6) with time zone not null,
+    published_seq bigint,
+    primary key (id)
+);
+
+create unique index idx_book_changes_published_seq on book_changes (published_seq);
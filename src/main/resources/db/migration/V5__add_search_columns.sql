@@ -0,0 +1,7 @@
+alter table books add column title_lc varchar(255) generated always as (lower(title));
+alter table books add column author_lc varchar(255) generated always as (lower(author));
+alter table books add column genre_lc varchar(255) generated always as (lower(genre));
+
+create index idx_books_title_lc on books (title_lc);
+create index idx_books_author_lc on books (author_lc);
+create index idx_books_genre_lc on books (genre_lc);
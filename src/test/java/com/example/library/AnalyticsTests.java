@@ -0,0 +1,67 @@
+package com.example.library;
+
+import com.example.library.analytics.BookColumns;
+import com.example.library.model.Book;
+import com.example.library.service.BookAnalyticsService;
+import com.example.library.service.BookService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:analytics")
+@AutoConfigureMockMvc
+class AnalyticsTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private BookService bookService;
+
+	@Autowired
+	private BookAnalyticsService bookAnalyticsService;
+
+	@Autowired
+	private BookColumns bookColumns;
+
+	@Test
+	void queryAnswersFromColumnsKeptCurrentByBookServiceWrites() throws Exception {
+		Book loaded = bookService.create(new Book(null, "The Way of Kings", "Brandon Sanderson", "Fantasy", 1007, 4, false));
+		bookAnalyticsService.rebuildColumns();
+		assertTrue(bookColumns.isReady());
+
+		Book created = bookService.create(new Book(null, "Fairy Tale", "Stephen King", "Fantasy", 608, 5, false));
+		bookService.create(new Book(null, "The Hobbit", "J.R.R. Tolkien", "Fantasy", 310, 5, false));
+		bookService.patch(new Book(null, null, null, null, null, 3, null), loaded.getId());
+
+		mockMvc.perform(get("/api/books/analytics")
+						.param("genre", "Fantasy")
+						.param("hasRead", "false")
+						.param("minPages", "501")
+						.param("sort", "rating,desc"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.total").value(2))
+				.andExpect(jsonPath("$.books", hasSize(2)))
+				.andExpect(jsonPath("$.books[0].id").value(created.getId().toString()))
+				.andExpect(jsonPath("$.books[1].rating").value(3))
+				.andExpect(jsonPath("$.books[1].version").value(1));
+
+		bookService.delete(created.getId());
+		mockMvc.perform(get("/api/books/analytics").param("genre", "Fantasy").param("minPages", "501"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.total").value(1));
+
+		mockMvc.perform(get("/api/books/analytics").param("sort", "title"))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(get("/api/books/analytics").param("limit", "0"))
+				.andExpect(status().isBadRequest());
+	}
+}
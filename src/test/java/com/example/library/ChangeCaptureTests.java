@@ -0,0 +1,154 @@
+package com.example.library;
+
+import com.example.library.changes.BookChangeLog;
+import com.example.library.controller.BookChangeController;
+import com.example.library.exceptions.BookNotFoundException;
+import com.example.library.model.Book;
+import com.example.library.model.BookChange;
+import com.example.library.repository.BookChangeRepository;
+import com.example.library.service.BookService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"spring.datasource.url=jdbc:h2:mem:changes",
+		"library.changes.publish-interval=PT0.05S"
+})
+class ChangeCaptureTests {
+
+	private static final Path LOG_FILE = createLogFile();
+
+	@DynamicPropertySource
+	static void changeLog(DynamicPropertyRegistry registry) {
+		registry.add("library.changes.log-file", LOG_FILE::toString);
+	}
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private BookService bookService;
+
+	@Autowired
+	private BookChangeRepository bookChangeRepository;
+
+	@Autowired
+	private BookChangeLog bookChangeLog;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	private final HttpClient client = HttpClient.newHttpClient();
+
+	@Test
+	void mutationsAreCapturedPublishedToTheLogAndStreamed() throws Exception {
+		Book book = bookService.create(new Book(null, "Fairy Tale", "Stephen King", "Fantasy", 608, 3, false));
+		bookService.update(new Book(null, "Fairy Tale", "Stephen King", "Fantasy", 608, 4, false), book.getId());
+		bookService.patch(new Book(null, null, null, null, null, null, true), book.getId());
+		assertThrows(BookNotFoundException.class,
+				() -> bookService.update(new Book(null, "Missing", null, null, null, null, null), UUID.randomUUID()));
+		bookService.delete(book.getId());
+		bookService.delete(book.getId());
+
+		awaitPublished(4);
+		List<JsonNode> logged = new ArrayList<>();
+		for (String line : Files.readAllLines(LOG_FILE)) {
+			logged.add(objectMapper.readTree(line));
+		}
+		assertEquals(List.of("CREATED", "UPDATED", "UPDATED", "DELETED"),
+				logged.stream().map(node -> node.get("type").asText()).toList());
+		assertEquals(List.of(1L, 2L, 3L, 4L), logged.stream().map(node -> node.get("publishedSeq").asLong()).toList());
+		assertEquals(List.of(0L, 1L, 2L, 2L), logged.stream().map(node -> node.get("bookVersion").asLong()).toList());
+		assertEquals(4, logged.get(1).get("book").get("rating").asInt());
+		assertTrue(logged.get(2).get("book").get("hasRead").asBoolean());
+		assertEquals(book.getId().toString(), logged.get(3).get("bookId").asText());
+
+		HttpResponse<String> tail = client.send(request("/api/books/changes/log?offset=" + lineEnd(1)).build(),
+				HttpResponse.BodyHandlers.ofString());
+		assertEquals(200, tail.statusCode());
+		assertEquals(Long.toString(bookChangeLog.length()),
+				tail.headers().firstValue(BookChangeController.NEXT_OFFSET_HEADER).orElse(null));
+		assertEquals(3, tail.body().lines().count());
+		assertEquals(416, client.send(request("/api/books/changes/log?offset=" + (bookChangeLog.length() + 1)).build(),
+				HttpResponse.BodyHandlers.discarding()).statusCode());
+
+		HttpResponse<Stream<String>> events = client.send(request("/api/books/changes")
+						.header("Accept", "text/event-stream")
+						.header("Last-Event-ID", "2")
+						.build(),
+				HttpResponse.BodyHandlers.ofLines());
+		assertEquals(200, events.statusCode());
+		Iterator<String> lines = events.body().iterator();
+		assertEquals("3", nextEventId(lines));
+		assertEquals("4", nextEventId(lines));
+
+		bookService.create(new Book(null, "The Silent Patient", "Alex Michaelides", "Thriller", 336, 4, true));
+		assertEquals("5", nextEventId(lines));
+		events.body().close();
+	}
+
+	private void awaitPublished(int count) throws InterruptedException {
+		long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+		while (bookChangeRepository.findAll().stream().filter(change -> change.getPublishedSeq() != null).count() < count) {
+			assertTrue(System.nanoTime() < deadline, "Changes were not published in time");
+			Thread.sleep(20);
+		}
+		assertEquals(count, bookChangeRepository.count());
+		assertTrue(bookChangeRepository.findAll().stream().map(BookChange::getPublishedSeq).allMatch(seq -> seq != null));
+	}
+
+	private long lineEnd(int lines) throws IOException {
+		byte[] bytes = Files.readAllBytes(LOG_FILE);
+		int seen = 0;
+		for (int i = 0; i < bytes.length; i++) {
+			if (bytes[i] == '\n' && ++seen == lines) {
+				return i + 1;
+			}
+		}
+		throw new IllegalStateException("Log has fewer than " + lines + " lines");
+	}
+
+	private static String nextEventId(Iterator<String> lines) {
+		while (lines.hasNext()) {
+			String line = lines.next();
+			if (line.startsWith("id:")) {
+				return line.substring(3).trim();
+			}
+		}
+		throw new IllegalStateException("Event stream ended");
+	}
+
+	private HttpRequest.Builder request(String path) {
+		return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).timeout(Duration.ofSeconds(10));
+	}
+
+	private static Path createLogFile() {
+		try {
+			return Files.createTempDirectory("library-changes").resolve("book-changes.ndjson");
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
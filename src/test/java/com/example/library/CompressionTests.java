@@ -0,0 +1,61 @@
+package com.example.library;
+
+import com.example.library.model.Book;
+import com.example.library.repository.BookRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = "spring.datasource.url=jdbc:h2:mem:compression")
+class CompressionTests {
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private BookRepository bookRepository;
+
+	private final HttpClient client = HttpClient.newHttpClient();
+
+	@Test
+	void largeResponsesAreGzippedAndSmallOnesAreNot() throws Exception {
+		bookRepository.saveAll(IntStream.range(0, 100)
+				.mapToObj(i -> new Book(null, "Title " + i, "Author " + i, "Genre", 100 + i, i % 5, i % 2 == 0))
+				.toList());
+
+		HttpResponse<byte[]> list = get("/api/books", "application/cbor");
+		assertEquals(200, list.statusCode());
+		assertEquals("gzip", list.headers().firstValue("Content-Encoding").orElse(null));
+		assertEquals("application/cbor", list.headers().firstValue("Content-Type").orElse(null));
+		byte[] cbor;
+		try (GZIPInputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(list.body()))) {
+			cbor = inputStream.readAllBytes();
+		}
+		assertTrue(cbor.length > list.body().length);
+
+		HttpResponse<byte[]> single = get("/api/books/" + bookRepository.findAll().get(0).getId(), "application/json");
+		assertEquals(200, single.statusCode());
+		assertTrue(single.headers().firstValue("Content-Encoding").isEmpty());
+	}
+
+	private HttpResponse<byte[]> get(String path, String accept) throws IOException, InterruptedException {
+		HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+				.header("Accept", accept)
+				.header("Accept-Encoding", "gzip")
+				.build();
+		return client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+	}
+}
@@ -0,0 +1,44 @@
+package com.example.library;
+
+import com.example.library.cache.BookCache;
+import com.example.library.model.Book;
+import com.example.library.service.BookService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileStorageTests {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void booksSurviveRestartAndArePreloadedIntoCache() {
+		UUID id;
+		try (ConfigurableApplicationContext context = start()) {
+			id = context.getBean(BookService.class)
+					.create(new Book(null, "Fairy Tale", "Stephen King", "Fantasy", 608, 3, true)).getId();
+		}
+		try (ConfigurableApplicationContext context = start()) {
+			assertEquals(1, context.getBean(BookCache.class).stats().size());
+			assertEquals("Fairy Tale", context.getBean(BookService.class).getById(id).getTitle());
+			assertEquals(1, context.getBean(BookCache.class).stats().hits());
+		}
+	}
+
+	private ConfigurableApplicationContext start() {
+		return new SpringApplicationBuilder(LibraryApplication.class)
+				.web(WebApplicationType.NONE)
+				.profiles("file")
+				.run("--library.storage.directory=" + directory.toAbsolutePath(),
+						"--library.storage.write-delay-ms=0");
+	}
+
+}
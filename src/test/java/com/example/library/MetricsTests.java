@@ -0,0 +1,44 @@
+package com.example.library;
+
+import com.example.library.model.Book;
+import com.example.library.service.BookService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:metrics")
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class MetricsTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private BookService bookService;
+
+	@Test
+	void prometheusEndpointExposesLibraryMetrics() throws Exception {
+		Book book = bookService.create(new Book(null, "Fairy Tale", "Stephen King", "Fantasy", 608, 5, true));
+		mockMvc.perform(get("/api/books/" + book.getId())).andExpect(status().isOk());
+
+		mockMvc.perform(get("/actuator/prometheus"))
+				.andExpect(status().isOk())
+				.andExpect(content().string(containsString("library_book_service_seconds_bucket{class=\"com.example.library.service.BookService\"")))
+				.andExpect(content().string(containsString("method=\"getById\"")))
+				.andExpect(content().string(containsString("http_server_requests_seconds_bucket")))
+				.andExpect(content().string(containsString("spring_data_repository_invocations_seconds_bucket")))
+				.andExpect(content().string(containsString("hikaricp_connections_pending")))
+				.andExpect(content().string(containsString("library_entities{entity=\"book\"} 1.0")))
+				.andExpect(content().string(containsString("library_cache_requests_total{result=\"miss\"}")));
+	}
+
+}
@@ -0,0 +1,45 @@
+package com.example.library;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:ratelimit",
+		"library.rate-limit.client.permits-per-second=0.1",
+		"library.rate-limit.client.burst=2",
+		"library.rate-limit.client.trusted-proxies=127.0.0.1"
+})
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class RateLimitTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Test
+	void clientsOverTheirLimitGet429AndRejectionsAreCounted() throws Exception {
+		mockMvc.perform(get("/api/books").header("X-Client-Id", "greedy")).andExpect(status().isOk());
+		mockMvc.perform(get("/api/books").header("X-Client-Id", "greedy")).andExpect(status().isOk());
+		mockMvc.perform(get("/api/books").header("X-Client-Id", "greedy"))
+				.andExpect(status().isTooManyRequests())
+				.andExpect(header().string("Retry-After", "10"));
+		mockMvc.perform(get("/api/books").header("X-Client-Id", "polite")).andExpect(status().isOk());
+
+		mockMvc.perform(get("/actuator/prometheus"))
+				.andExpect(status().isOk())
+				.andExpect(content().string(containsString("library_ratelimit_rejections_total{endpoint=\"read\",reason=\"client\"} 1.0")))
+				.andExpect(content().string(containsString("library_concurrency_limit{endpoint=\"bulk\"} 4.0")))
+				.andExpect(content().string(containsString("library_concurrency_in_flight{endpoint=\"read\"}")))
+				.andExpect(content().string(containsString("library_ratelimit_clients 2.0")));
+	}
+}
@@ -0,0 +1,42 @@
+package com.example.library;
+
+import io.r2dbc.pool.ConnectionPool;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = {"spring.datasource.url=jdbc:h2:mem:reactive-app", "library.reactive.r2dbc-url=r2dbc:h2:mem:///reactive-app"})
+@ActiveProfiles("reactive")
+class ReactiveApplicationTests {
+
+	@Autowired
+	private WebTestClient client;
+
+	@Autowired
+	private DatabaseClient databaseClient;
+
+	@Test
+	void reactiveApiUsesAConnectionPool() {
+		assertInstanceOf(ConnectionPool.class, databaseClient.getConnectionFactory());
+	}
+
+	@Test
+	void createdBookIsReadableThroughReactiveApi() {
+		client.post().uri("/api/books").contentType(MediaType.APPLICATION_JSON)
+				.bodyValue("{\"title\":\"Fairy Tale\",\"author\":\"Stephen King\"}")
+				.exchange()
+				.expectStatus().isCreated();
+		client.get().uri("/api/books/search?q=fairy").accept(MediaType.APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody().jsonPath("$[0].author").isEqualTo("Stephen King");
+	}
+
+}
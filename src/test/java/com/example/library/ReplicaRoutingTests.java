@@ -0,0 +1,70 @@
+package com.example.library;
+
+import com.example.library.model.Book;
+import com.example.library.routing.DataSourceRouting;
+import com.example.library.routing.ReadYourWritesFilter;
+import com.example.library.service.BookService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:routing-primary",
+		"library.replicas.urls=jdbc:h2:mem:routing-replica-0,jdbc:h2:mem:routing-replica-1",
+		"library.replicas.migrate=true"})
+@AutoConfigureMockMvc
+class ReplicaRoutingTests {
+
+	@Autowired
+	private BookService bookService;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void setup() {
+		for (String database : List.of("routing-primary", "routing-replica-0", "routing-replica-1")) {
+			JdbcTemplate jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:" + database, "sa", ""));
+			jdbcTemplate.update("delete from books");
+			jdbcTemplate.update("insert into books (id, title, author) values (random_uuid(), 'Dune', ?)", database);
+		}
+	}
+
+	@Test
+	void readOnlyQueriesAreSpreadOverReplicas() {
+		String first = bookService.getByTitle("Dune").get(0).getAuthor();
+		String second = bookService.getByTitle("Dune").get(0).getAuthor();
+		assertTrue(first.startsWith("routing-replica-"));
+		assertTrue(second.startsWith("routing-replica-"));
+		assertNotEquals(first, second);
+	}
+
+	@Test
+	void writesAndPinnedReadsUseThePrimary() {
+		Book created = bookService.create(new Book(null, "It", "Stephen King", "Horror", 1138, 4, false));
+		try (DataSourceRouting.Scope ignored = DataSourceRouting.pinToPrimary()) {
+			assertEquals("routing-primary", bookService.getByTitle("Dune").get(0).getAuthor());
+			assertEquals(created.getId(), bookService.getByTitle("It").get(0).getId());
+		}
+	}
+
+	@Test
+	void readYourWritesHeaderKeepsRequestOnThePrimary() throws Exception {
+		mockMvc.perform(get("/api/books/title/Dune").accept(MediaType.APPLICATION_JSON)
+						.header(ReadYourWritesFilter.HEADER, "true"))
+				.andExpect(jsonPath("$[0].author").value("routing-primary"));
+	}
+
+}
@@ -0,0 +1,181 @@
+package com.example.library;
+
+import com.example.library.changes.BookChangePublisher;
+import com.example.library.exceptions.BookNotFoundException;
+import com.example.library.model.Book;
+import com.example.library.model.BookCursor;
+import com.example.library.model.BookFilter;
+import com.example.library.model.BookPage;
+import com.example.library.model.BulkItemResult;
+import com.example.library.routing.BookShards;
+import com.example.library.service.BookBulkService;
+import com.example.library.service.BookService;
+import com.example.library.service.BookStatsService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:shard-0",
+		"library.shards.urls=jdbc:h2:mem:shard-1,jdbc:h2:mem:shard-2",
+		"library.shards.migrate=true",
+		"library.changes.publish-interval=PT1H"})
+class ShardingTests {
+
+	private static final List<String> SHARDS = List.of("shard-0", "shard-1", "shard-2");
+
+	@Autowired
+	private BookService bookService;
+
+	@Autowired
+	private BookBulkService bookBulkService;
+
+	@Autowired
+	private BookStatsService bookStatsService;
+
+	@Autowired
+	private BookChangePublisher bookChangePublisher;
+
+	@Autowired
+	private BookShards bookShards;
+
+	@BeforeEach
+	void setup() {
+		for (String shard : SHARDS) {
+			jdbc(shard).update("delete from books");
+		}
+	}
+
+	@Test
+	void booksAreStoredOnlyOnTheirOwningShard() {
+		List<Book> books = createBooks(30);
+
+		assertEquals(3, bookShards.count());
+		for (Book book : books) {
+			for (int shard = 0; shard < SHARDS.size(); shard++) {
+				Integer rows = jdbc(SHARDS.get(shard)).queryForObject("select count(*) from books where id = ?", Integer.class, book.getId());
+				assertEquals(shard == bookShards.shardOf(book.getId()) ? 1 : 0, rows);
+			}
+		}
+		for (String shard : SHARDS) {
+			assertTrue(jdbc(shard).queryForObject("select count(*) from books", Integer.class) > 0, shard + " is empty");
+		}
+	}
+
+	@Test
+	void singleIdOperationsRunOnTheOwningShard() {
+		List<Book> books = createBooks(9);
+		for (Book book : books) {
+			assertEquals(book.getTitle(), bookService.getById(book.getId()).getTitle());
+			Book patched = bookService.patch(new Book(null, null, null, null, null, 1, null), book.getId(), book.getVersion());
+			assertEquals(1, patched.getRating());
+			String owner = SHARDS.get(bookShards.shardOf(book.getId()));
+			assertEquals(1, jdbc(owner).queryForObject("select rating from books where id = ?", Integer.class, book.getId()));
+		}
+
+		Book deleted = books.get(0);
+		bookService.delete(deleted.getId());
+		assertThrows(BookNotFoundException.class, () -> bookService.getById(deleted.getId()));
+		assertEquals(8, bookService.getAll().size());
+	}
+
+	@Test
+	void listReadsFanOutToEveryShard() {
+		List<Book> books = createBooks(12);
+
+		assertEquals(12, bookService.getAll().size());
+		assertEquals(Set.copyOf(ids(books)), Set.copyOf(ids(bookService.getAll())));
+		assertEquals(6, bookService.getAll(new BookFilter(null, null, 3, null, null, null, null)).size());
+		assertEquals(1, bookService.getByTitle("Book 7").size());
+		assertEquals(12, bookStatsService.getStats(true).books());
+		assertEquals(6, bookStatsService.getStats(true).readBooks());
+	}
+
+	@Test
+	void pagesAreMergedInSortOrderAcrossShards() {
+		List<Book> books = createBooks(23);
+		List<Book> expected = new ArrayList<>(books);
+		expected.sort(Comparator.comparing(Book::getRating, Comparator.nullsFirst(Comparator.<Integer>naturalOrder()))
+				.thenComparing(Book::getId).reversed());
+
+		List<Book> paged = new ArrayList<>();
+		BookCursor cursor = BookCursor.first("rating", Sort.Direction.DESC);
+		while (true) {
+			BookPage page = bookService.getPage(BookFilter.NONE, cursor, 4);
+			paged.addAll(page.content());
+			if (page.nextCursor() == null) {
+				break;
+			}
+			assertEquals(4, page.content().size());
+			cursor = BookCursor.decode(page.nextCursor());
+		}
+		assertEquals(ids(expected), ids(paged));
+	}
+
+	@Test
+	void bulkWritesAndChangesAreSplitByShard() {
+		List<Book> input = IntStream.range(0, 20)
+				.mapToObj(i -> new Book(null, "Bulk " + i, "Author", "Fantasy", 100, 3, false))
+				.toList();
+		List<BulkItemResult> results = bookBulkService.createAll(input.iterator());
+
+		assertEquals(20, results.size());
+		for (int i = 0; i < results.size(); i++) {
+			BulkItemResult result = results.get(i);
+			assertEquals(i, result.index());
+			assertEquals(BulkItemResult.Status.CREATED, result.status());
+			String owner = SHARDS.get(bookShards.shardOf(result.id()));
+			assertEquals("Bulk " + i, jdbc(owner).queryForObject("select title from books where id = ?", String.class, result.id()));
+		}
+
+		bookChangePublisher.publishBatch();
+		Set<Long> changeIds = new HashSet<>();
+		Set<Long> seqs = new HashSet<>();
+		for (int shard = 0; shard < SHARDS.size(); shard++) {
+			long rangeStart = (long) shard << 48;
+			List<Long> shardChangeIds = jdbc(SHARDS.get(shard)).queryForList("select id from book_changes", Long.class);
+			// each shard draws change ids from its own range
+			shardChangeIds.forEach(id -> assertTrue(id > rangeStart && id < rangeStart + (1L << 48), "change id " + id));
+			changeIds.addAll(shardChangeIds);
+			seqs.addAll(jdbc(SHARDS.get(shard)).queryForList("select published_seq from book_changes", Long.class));
+			assertEquals(0, jdbc(SHARDS.get(shard)).queryForObject("select count(*) from book_changes where published_seq is null", Integer.class));
+		}
+		int changes = SHARDS.stream()
+				.mapToInt(shard -> jdbc(shard).queryForObject("select count(*) from book_changes", Integer.class))
+				.sum();
+		assertEquals(changes, changeIds.size());
+		assertEquals(LongStream.rangeClosed(1, changes).boxed().collect(Collectors.toSet()), seqs);
+	}
+
+	private List<Book> createBooks(int count) {
+		List<Book> books = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			books.add(bookService.create(new Book(null, "Book " + i, "Author " + i % 3, "Fantasy", 100 + i, i % 6, i % 2 == 0)));
+		}
+		return books;
+	}
+
+	private static List<UUID> ids(List<Book> books) {
+		return books.stream().map(Book::getId).toList();
+	}
+
+	private static JdbcTemplate jdbc(String database) {
+		return new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:" + database, "sa", ""));
+	}
+}
@@ -0,0 +1,162 @@
+package com.example.library.analytics;
+
+import com.example.library.model.Book;
+import com.example.library.model.BookFilter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookColumnsTest {
+
+    private BookColumns bookColumns;
+
+    public final Book fairyTale = new Book(UUID.randomUUID(), "Fairy Tale", "Stephen King", "Fantasy", 608, 3, false, 0L, null);
+    public final Book wayOfKings = new Book(UUID.randomUUID(), "The Way of Kings", "Brandon Sanderson", "Fantasy", 1007, 5, false, 0L, null);
+    public final Book hobbit = new Book(UUID.randomUUID(), "The Hobbit", "J.R.R. Tolkien", "Fantasy", 310, 4, false, 0L, null);
+    public final Book kingdom = new Book(UUID.randomUUID(), "The Kingdom", "Jo Nesbo", "Thriller", 560, 4, true, 0L, null);
+    public final Book untitled = new Book(UUID.randomUUID(), "Untitled", null, "Fantasy", null, null, null, 0L, null);
+
+    private static BookFilter filter(String genre, Integer minPages, Boolean hasRead) {
+        return new BookFilter(genre, null, null, null, minPages, null, hasRead);
+    }
+
+    private static List<UUID> ids(BookColumns.Result result) {
+        return result.books().stream().map(Book::getId).toList();
+    }
+
+    @BeforeEach
+    public void setup() {
+        bookColumns = new BookColumns();
+        for (Book book : List.of(fairyTale, wayOfKings, hobbit, kingdom, untitled)) {
+            bookColumns.add(book);
+        }
+        bookColumns.markReady();
+    }
+
+    @Test
+    public void query_shouldFilterAndSortByRating() {
+        BookColumns.Result result = bookColumns.query(filter("Fantasy", 501, false), "rating", Sort.Direction.DESC, 10);
+        assertEquals(List.of(wayOfKings.getId(), fairyTale.getId()), ids(result));
+        assertEquals(2, result.total());
+        Book first = result.books().get(0);
+        assertEquals("The Way of Kings", first.getTitle());
+        assertEquals("Brandon Sanderson", first.getAuthor());
+        assertEquals(1007, first.getNumberOfPages());
+        assertEquals(false, first.getHasRead());
+        assertEquals(0L, first.getVersion());
+    }
+
+    @Test
+    public void query_shouldNotMatchNullValuesAndSortThemLast() {
+        assertEquals(3, bookColumns.query(filter(null, null, false), null, Sort.Direction.ASC, 10).total());
+        assertEquals(4, bookColumns.query(new BookFilter(null, null, 1, null, null, null, null), null, Sort.Direction.ASC, 10).total());
+        BookColumns.Result byPages = bookColumns.query(filter("Fantasy", null, null), "numberOfPages", Sort.Direction.DESC, 10);
+        assertEquals(List.of(wayOfKings.getId(), fairyTale.getId(), hobbit.getId(), untitled.getId()), ids(byPages));
+        Book last = byPages.books().get(3);
+        assertNull(last.getAuthor());
+        assertNull(last.getRating());
+        assertNull(last.getHasRead());
+    }
+
+    @Test
+    public void query_shouldSortDictionaryColumnsByValue() {
+        BookColumns.Result result = bookColumns.query(BookFilter.NONE, "author", Sort.Direction.ASC, 10);
+        assertEquals(List.of(wayOfKings.getId(), hobbit.getId(), kingdom.getId(), fairyTale.getId(), untitled.getId()),
+                ids(result));
+    }
+
+    @Test
+    public void query_shouldApplyLimitButCountEveryMatch() {
+        BookColumns.Result result = bookColumns.query(BookFilter.NONE, "rating", Sort.Direction.ASC, 2);
+        assertEquals(List.of(fairyTale.getId()), ids(result).subList(0, 1));
+        assertEquals(2, result.books().size());
+        assertEquals(5, result.total());
+    }
+
+    @Test
+    public void query_shouldReturnNothingForUnknownGenre() {
+        assertEquals(0, bookColumns.query(filter("Poetry", null, null), null, Sort.Direction.ASC, 10).total());
+    }
+
+    @Test
+    public void query_shouldThrowForUnknownSortProperty() {
+        assertThrows(IllegalArgumentException.class,
+                () -> bookColumns.query(BookFilter.NONE, "title", Sort.Direction.ASC, 10));
+    }
+
+    @Test
+    public void add_shouldReplaceRowButIgnoreOlderVersions() {
+        bookColumns.add(new Book(fairyTale.getId(), "Fairy Tale", "Stephen King", "Fantasy", 608, 5, true, 2L, null));
+        bookColumns.add(new Book(fairyTale.getId(), "Fairy Tale", "Stephen King", "Fantasy", 608, 1, false, 1L, null));
+        Book stored = bookColumns.query(new BookFilter(null, "Stephen King", null, null, null, null, null),
+                null, Sort.Direction.ASC, 10).books().get(0);
+        assertEquals(5, stored.getRating());
+        assertEquals(true, stored.getHasRead());
+        assertEquals(2L, stored.getVersion());
+        assertEquals(5, bookColumns.size());
+    }
+
+    @Test
+    public void remove_shouldMoveLastRowIntoFreedSlot() {
+        bookColumns.remove(fairyTale.getId());
+        bookColumns.remove(UUID.randomUUID());
+        assertEquals(4, bookColumns.size());
+        BookColumns.Result result = bookColumns.query(filter("Fantasy", null, null), "rating", Sort.Direction.ASC, 10);
+        assertEquals(List.of(hobbit.getId(), wayOfKings.getId(), untitled.getId()), ids(result));
+        bookColumns.add(new Book(untitled.getId(), "Untitled", null, "Horror", null, 2, null, 1L, null));
+        assertEquals(2, bookColumns.query(filter("Fantasy", null, null), null, Sort.Direction.ASC, 10).total());
+    }
+
+    @Test
+    public void add_shouldSkipBooksDeletedWhileLoading() {
+        BookColumns loading = new BookColumns();
+        loading.remove(fairyTale.getId());
+        loading.add(fairyTale);
+        loading.add(hobbit);
+        loading.markReady();
+        assertEquals(List.of(hobbit.getId()), ids(loading.query(BookFilter.NONE, null, Sort.Direction.ASC, 10)));
+    }
+
+    @Test
+    public void add_shouldNotBringBackABookWhoseDeleteWasAppliedFirst() {
+        bookColumns.markReady();
+        bookColumns.remove(hobbit.getId());
+        bookColumns.add(new Book(hobbit.getId(), "The Hobbit", "J.R.R. Tolkien", "Fantasy", 310, 5, true, 1L, null));
+        assertFalse(ids(bookColumns.query(BookFilter.NONE, null, Sort.Direction.ASC, 10)).contains(hobbit.getId()));
+    }
+
+    @Test
+    public void query_shouldMatchASequentialScanAcrossManyLeaves() {
+        Random random = new Random(42);
+        String[] genres = {"Fantasy", "Thriller", "Horror", "Romance"};
+        List<Book> books = new ArrayList<>();
+        BookColumns large = new BookColumns();
+        for (int i = 0; i < BookColumns.LEAF_SIZE * 5 + 17; i++) {
+            Book book = new Book(new UUID(0, i), "Book " + i, "Author " + random.nextInt(500),
+                    genres[random.nextInt(genres.length)], 50 + random.nextInt(1000), 1 + random.nextInt(5),
+                    random.nextBoolean(), 0L, null);
+            books.add(book);
+            large.add(book);
+        }
+        large.markReady();
+
+        BookColumns.Result result = large.query(filter("Fantasy", 501, false), "numberOfPages", Sort.Direction.DESC, 1000);
+        List<Book> expected = books.stream()
+                .filter(book -> book.getGenre().equals("Fantasy") && book.getNumberOfPages() >= 501 && !book.getHasRead())
+                .sorted(Comparator.comparing(Book::getNumberOfPages).reversed())
+                .toList();
+        assertEquals(expected.size(), result.total());
+        assertEquals(expected.stream().limit(1000).map(Book::getNumberOfPages).toList(),
+                result.books().stream().map(Book::getNumberOfPages).toList());
+        // rows with equal keys come back in storage order, which is insertion order here
+        assertEquals(expected.stream().limit(1000).map(Book::getId).toList(), ids(result));
+    }
+}
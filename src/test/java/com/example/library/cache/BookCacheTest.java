@@ -0,0 +1,63 @@
+package com.example.library.cache;
+
+import com.example.library.model.Book;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookCacheTest {
+
+    private BookCache bookCache;
+    private long now;
+
+    public final Book book = new Book(UUID.randomUUID(), "Fairy Tale", "Stephen King", "Fantasy", 608, 3, true);
+    public final Book book2 = new Book(UUID.randomUUID(), "The Silent Patient", "Alex Michaelides", "Thriller", 336, 4, true);
+    public final Book book3 = new Book(UUID.randomUUID(), "Dune", "Frank Herbert", "Science Fiction", 412, 5, false);
+
+    @BeforeEach
+    public void setup() {
+        now = 0;
+        bookCache = new BookCache(2, Duration.ofSeconds(10), () -> now);
+    }
+
+    @Test
+    public void get_shouldReturnCachedBookAndCountHit() {
+        bookCache.put(book, bookCache.generation());
+        assertEquals(book, bookCache.get(book.getId()));
+        assertNull(bookCache.get(book2.getId()));
+        assertEquals(new CacheStats(1, 1, 1, 0, 0), bookCache.stats());
+    }
+
+    @Test
+    public void put_shouldEvictLeastRecentlyUsedBookWhenFull() {
+        bookCache.put(book, bookCache.generation());
+        bookCache.put(book2, bookCache.generation());
+        bookCache.get(book.getId());
+        bookCache.put(book3, bookCache.generation());
+        assertNull(bookCache.get(book2.getId()));
+        assertEquals(book, bookCache.get(book.getId()));
+        assertEquals(book3, bookCache.get(book3.getId()));
+        assertEquals(1, bookCache.stats().evictions());
+    }
+
+    @Test
+    public void get_shouldExpireBookAfterTtl() {
+        bookCache.put(book, bookCache.generation());
+        now = Duration.ofSeconds(10).toNanos();
+        assertNull(bookCache.get(book.getId()));
+        assertEquals(1, bookCache.stats().expirations());
+        assertEquals(0, bookCache.stats().size());
+    }
+
+    @Test
+    public void put_shouldIgnoreLoadThatRacedWithInvalidation() {
+        long generation = bookCache.generation();
+        bookCache.evict(book.getId());
+        bookCache.put(book, generation);
+        assertNull(bookCache.get(book.getId()));
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.library.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SerializedResponseCacheTest {
+
+    private SerializedResponseCache responseCache;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    public void setup() {
+        responseCache = new SerializedResponseCache(10, DataSize.ofBytes(100), DataSize.ofBytes(60));
+    }
+
+    @Test
+    public void get_shouldCacheResponsesUnderTheEntryLimit() {
+        CachedResponse first = responseCache.get("a", () -> body(40));
+        assertSame(first, responseCache.get("a", () -> body(40)));
+        assertEquals(1, loads.get());
+        assertEquals(new CacheStats(1, 1, 1, 0, 0), responseCache.stats());
+    }
+
+    @Test
+    public void get_shouldNotCacheResponsesAboveTheEntryLimit() {
+        responseCache.get("all", () -> body(61));
+        responseCache.get("all", () -> body(61));
+        assertEquals(2, loads.get());
+        assertEquals(0, responseCache.stats().size());
+    }
+
+    @Test
+    public void get_shouldEvictLeastRecentlyUsedResponsesOverTheByteLimit() {
+        responseCache.get("a", () -> body(40));
+        responseCache.get("b", () -> body(40));
+        responseCache.get("a", () -> body(40));
+        responseCache.get("c", () -> body(40));
+
+        assertEquals(2, responseCache.stats().size());
+        assertEquals(1, responseCache.stats().evictions());
+        responseCache.get("a", () -> body(40));
+        responseCache.get("c", () -> body(40));
+        assertEquals(3, loads.get());
+        responseCache.get("b", () -> body(40));
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    public void clear_shouldReleaseTheCachedBytes() {
+        responseCache.get("a", () -> body(60));
+        responseCache.clear();
+        responseCache.get("b", () -> body(50));
+        responseCache.get("c", () -> body(50));
+        assertEquals(2, responseCache.stats().size());
+        assertEquals(0, responseCache.stats().evictions());
+    }
+
+    private byte[] body(int length) {
+        loads.incrementAndGet();
+        return new byte[length];
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.library.changes;
+
+import com.example.library.model.BookChange;
+import com.example.library.repository.BookChangeRepository;
+import com.example.library.routing.BookShards;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+
+class BookChangeBroadcasterTest {
+
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+    private final BookShards bookShards = new BookShards(List.of(), 1);
+    private BookChangeBroadcaster broadcaster;
+    private long seq;
+
+    @BeforeEach
+    public void setup() {
+        BookChangeRepository bookChangeRepository = Mockito.mock(BookChangeRepository.class);
+        Mockito.when(bookChangeRepository.findPublishedAfter(anyLong(), any())).thenReturn(List.of());
+        broadcaster = new BookChangeBroadcaster(bookChangeRepository, bookShards, tasks::add, Duration.ofMinutes(1), 10, 2);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        bookShards.shutdown();
+    }
+
+    @Test
+    public void broadcast_shouldHandBatchesToTheExecutorInsteadOfSending() {
+        broadcaster.subscribe(0);
+        runTasks();
+        assertEquals(1, broadcaster.subscriberCount());
+
+        broadcaster.broadcast(batch());
+        broadcaster.broadcast(batch());
+        assertEquals(1, tasks.size());
+        runTasks();
+
+        broadcaster.broadcast(batch());
+        assertEquals(1, tasks.size());
+        assertEquals(1, broadcaster.subscriberCount());
+    }
+
+    @Test
+    public void broadcast_shouldDropASubscriberWhoseBufferIsFull() {
+        broadcaster.subscribe(0);
+        broadcaster.subscribe(0);
+        runTasks();
+
+        broadcaster.broadcast(batch());
+        broadcaster.broadcast(batch());
+        assertEquals(2, broadcaster.subscriberCount());
+        broadcaster.broadcast(batch());
+        assertEquals(0, broadcaster.subscriberCount());
+        runTasks();
+
+        broadcaster.subscribe(seq);
+        runTasks();
+        broadcaster.broadcast(batch());
+        runTasks();
+        assertEquals(1, broadcaster.subscriberCount());
+    }
+
+    private List<BookChange> batch() {
+        BookChange change = new BookChange(BookChange.Type.CREATED, UUID.randomUUID(), 0L, "{}");
+        change.setPublishedSeq(++seq);
+        return List.of(change);
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.library.controller;
+
+import com.example.library.model.Book;
+import com.example.library.model.BulkItemResult;
+import com.example.library.model.BulkResult;
+import com.example.library.service.BookBulkService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookBulkControllerTest {
+
+    private BookBulkController bookBulkController;
+    private BookBulkService mockBookBulkService;
+
+    public final UUID id = UUID.fromString("59c47568-fde0-4dd7-9aef-03db6a962810");
+
+    @BeforeEach
+    public void setup() {
+        mockBookBulkService = Mockito.mock(BookBulkService.class);
+        bookBulkController = new BookBulkController(mockBookBulkService, new ObjectMapper());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void createBooks_shouldReadNdjsonAndReturnResults() throws Exception {
+        ArgumentCaptor<Iterator<Book>> captor = ArgumentCaptor.forClass(Iterator.class);
+        List<String> titles = new ArrayList<>();
+        Mockito.when(mockBookBulkService.createAll(captor.capture())).thenAnswer(invocation -> {
+            captor.getValue().forEachRemaining(book -> titles.add(book.getTitle()));
+            return List.of(new BulkItemResult(0, id, BulkItemResult.Status.CREATED, null),
+                    new BulkItemResult(1, null, BulkItemResult.Status.FAILED, "boom"));
+        });
+        String body = "{\"title\":\"Fairy Tale\"}\n{\"title\":\"Dune\"}\n";
+        ResponseEntity<BulkResult> response = bookBulkController.createBooks(stream(body));
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(List.of("Fairy Tale", "Dune"), titles);
+        assertEquals(1, response.getBody().succeeded());
+        assertEquals(1, response.getBody().failed());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void patchBooks_shouldReadJsonArray() throws Exception {
+        ArgumentCaptor<Iterator<Book>> captor = ArgumentCaptor.forClass(Iterator.class);
+        List<UUID> ids = new ArrayList<>();
+        Mockito.when(mockBookBulkService.patchAll(captor.capture())).thenAnswer(invocation -> {
+            captor.getValue().forEachRemaining(book -> ids.add(book.getId()));
+            return List.of(new BulkItemResult(0, id, BulkItemResult.Status.UPDATED, null));
+        });
+        ResponseEntity<BulkResult> response = bookBulkController.patchBooks(stream("[{\"id\":\"" + id + "\",\"rating\":5}]"));
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(List.of(id), ids);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void deleteBooks_shouldReadIds() throws Exception {
+        ArgumentCaptor<Iterator<UUID>> captor = ArgumentCaptor.forClass(Iterator.class);
+        List<UUID> ids = new ArrayList<>();
+        Mockito.when(mockBookBulkService.deleteAll(captor.capture())).thenAnswer(invocation -> {
+            captor.getValue().forEachRemaining(ids::add);
+            return List.of(new BulkItemResult(0, id, BulkItemResult.Status.DELETED, null));
+        });
+        ResponseEntity<BulkResult> response = bookBulkController.deleteBooks(stream("[\"" + id + "\"]"));
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(List.of(id), ids);
+        assertEquals(1, response.getBody().succeeded());
+    }
+
+    private ByteArrayInputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
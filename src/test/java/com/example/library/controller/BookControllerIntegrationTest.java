@@ -1,8 +1,14 @@
 package com.example.library.controller;
 
 import com.example.library.model.Book;
+import com.example.library.model.BookFilter;
+import com.example.library.model.BookLookup;
 import com.example.library.service.BookService;
+import com.example.library.wire.BookProtobufCodec;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,11 +17,22 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Consumer;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -32,6 +49,7 @@ public class BookControllerIntegrationTest {
 
     @Test
     public void createBook() throws Exception {
+        Mockito.when(mockBookService.create(Mockito.any())).thenReturn(book);
         mvc.perform( MockMvcRequestBuilders
                 .post("/api/books")
                 .content(asJsonString(new Book(null, "firstName4", "lastName4", "email4@mail.com", 4, 3, false)))
@@ -54,6 +72,115 @@ public class BookControllerIntegrationTest {
                 ).andExpect(status().isOk());
     }
 
+    @Test
+    public void getAllBooksWithFilter() throws Exception {
+        BookFilter filter = new BookFilter("Fantasy", null, 3, 5, null, null, true);
+        Mockito.when(mockBookService.getAll(filter)).thenReturn(List.of(book));
+        mvc.perform(MockMvcRequestBuilders.get("/api/books")
+                        .param("genre", "Fantasy").param("minRating", "3").param("maxRating", "5").param("hasRead", "true")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(book.getId().toString()));
+    }
+
+    @Test
+    public void getBookPageWithInvalidFilterReturns400() throws Exception {
+        Mockito.when(mockBookService.getPage(Mockito.any(), Mockito.any(), Mockito.anyInt()))
+                .thenThrow(new IllegalArgumentException());
+        mvc.perform(MockMvcRequestBuilders.get("/api/books")
+                        .param("size", "10").param("minRating", "5").param("maxRating", "1"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(MockMvcRequestBuilders.get("/api/books").param("minPages", "many"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void getBookPage() throws Exception {
+        mvc.perform(MockMvcRequestBuilders
+                .get("/api/books").param("size", "10").param("sort", "title,desc").accept(MediaType.APPLICATION_JSON)
+        ).andExpect(status().isOk());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void streamAllBooks() throws Exception {
+        Mockito.doAnswer(invocation -> {
+            ((Consumer<Book>) invocation.getArgument(0)).accept(book);
+            return null;
+        }).when(mockBookService).streamAll(Mockito.any());
+        MvcResult result = mvc.perform(MockMvcRequestBuilders
+                .get("/api/books").accept(MediaType.APPLICATION_NDJSON)
+        ).andExpect(request().asyncStarted()).andReturn();
+        mvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(asJsonString(book) + "\n"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void streamAllBooksAsCborSequence() throws Exception {
+        Mockito.doAnswer(invocation -> {
+            ((Consumer<Book>) invocation.getArgument(0)).accept(book);
+            ((Consumer<Book>) invocation.getArgument(0)).accept(book);
+            return null;
+        }).when(mockBookService).streamAll(Mockito.any());
+        MvcResult result = mvc.perform(MockMvcRequestBuilders
+                .get("/api/books").accept("application/cbor-seq")
+        ).andExpect(request().asyncStarted()).andReturn();
+        byte[] body = mvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/cbor-seq"))
+                .andReturn().getResponse().getContentAsByteArray();
+        try (MappingIterator<Map<String, Object>> books = new CBORMapper().readerFor(Map.class).readValues(body)) {
+            assertEquals(2, books.readAll().size());
+        }
+    }
+
+    @Test
+    public void getAllBooksDefaultsToJson() throws Exception {
+        Mockito.when(mockBookService.getAll()).thenReturn(List.of(book));
+        mvc.perform(MockMvcRequestBuilders.get("/api/books"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON));
+        mvc.perform(MockMvcRequestBuilders.get("/api/books").accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    public void getBookByIdAsProtobufAndSmile() throws Exception {
+        Mockito.when(mockBookService.getById(book.getId())).thenReturn(book);
+        byte[] protobuf = mvc.perform(MockMvcRequestBuilders
+                .get("/api/books/59c47568-fde0-4dd7-9aef-03db6a962810").accept("application/x-protobuf")
+        ).andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-protobuf"))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertEquals(book.getTitle(), BookProtobufCodec.readBook(new ByteArrayInputStream(protobuf)).getTitle());
+        byte[] smile = mvc.perform(MockMvcRequestBuilders
+                .get("/api/books/59c47568-fde0-4dd7-9aef-03db6a962810").accept("application/x-jackson-smile")
+        ).andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        assertEquals(book.getTitle(), new SmileMapper().readValue(smile, Book.class).getTitle());
+        mvc.perform(MockMvcRequestBuilders
+                .get("/api/books/59c47568-fde0-4dd7-9aef-03db6a962810").accept(MediaType.ALL)
+        ).andExpect(content().contentType(MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    public void createBookFromProtobuf() throws Exception {
+        Mockito.when(mockBookService.create(Mockito.any())).thenReturn(book);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        BookProtobufCodec.write(new Book(null, "firstName4", "lastName4", "email4@mail.com", 4, 3, false), body);
+        mvc.perform(MockMvcRequestBuilders
+                .post("/api/books")
+                .content(body.toByteArray())
+                .contentType("application/x-protobuf")
+                .accept(MediaType.APPLICATION_JSON)).andExpect(status().isCreated());
+        Mockito.verify(mockBookService).create(Mockito.argThat(created ->
+                "firstName4".equals(created.getTitle()) && created.getRating() == 3 && created.getId() == null));
+    }
+
     @Test
     public void getBookById() throws Exception {
         Mockito.when(mockBookService.getById(UUID.fromString("59c47568-fde0-4dd7-9aef-03db6a962810"))).thenReturn(new Book());
@@ -62,6 +189,36 @@ public class BookControllerIntegrationTest {
         ).andExpect(status().isOk());
     }
 
+    @Test
+    public void getBookByIdReturns304WhenETagMatches() throws Exception {
+        Book versioned = new Book(book.getId(), "firstName4", "lastName4", "email4@mail.com", 4, 3, false, 5L, null);
+        Mockito.when(mockBookService.getById(book.getId())).thenReturn(versioned);
+        mvc.perform(MockMvcRequestBuilders
+                .get("/api/books/59c47568-fde0-4dd7-9aef-03db6a962810").header("If-None-Match", "\"5\"")
+        ).andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"5\""))
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    public void getAllBooksReturns304WhenETagMatches() throws Exception {
+        Mockito.when(mockBookService.getAll()).thenReturn(List.of(book));
+        String eTag = mvc.perform(MockMvcRequestBuilders.get("/api/books").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-cache"))
+                .andReturn().getResponse().getHeader("ETag");
+        mvc.perform(MockMvcRequestBuilders.get("/api/books").accept(MediaType.APPLICATION_JSON).header("If-None-Match", eTag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    public void getStats() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/api/books/stats").param("exact", "true").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.books").value(0))
+                .andExpect(jsonPath("$.genres").isArray());
+    }
+
     @Test
     public void getBookByTitle() throws Exception {
         Mockito.when(mockBookService.getByTitle("Fairy Tale")).thenReturn(List.of(new Book()));
@@ -72,7 +229,7 @@ public class BookControllerIntegrationTest {
 
     @Test
     public void updateBook() throws Exception {
-        Mockito.when(mockBookService.getById(UUID.fromString("59c47568-fde0-4dd7-9aef-03db6a962810"))).thenReturn(book);
+        Mockito.when(mockBookService.update(Mockito.any(), Mockito.eq(book.getId()), Mockito.isNull())).thenReturn(book);
         mvc.perform( MockMvcRequestBuilders
                         .put("/api/books/59c47568-fde0-4dd7-9aef-03db6a962810")
                         .content(asJsonString(book))
@@ -83,7 +240,7 @@ public class BookControllerIntegrationTest {
 
     @Test
     public void patchBook() throws Exception {
-        Mockito.when(mockBookService.getById(UUID.fromString("59c47568-fde0-4dd7-9aef-03db6a962810"))).thenReturn(book);
+        Mockito.when(mockBookService.patch(Mockito.any(), Mockito.eq(book.getId()), Mockito.isNull())).thenReturn(book);
         mvc.perform( MockMvcRequestBuilders
                         .patch("/api/books/59c47568-fde0-4dd7-9aef-03db6a962810")
                         .content(asJsonString(book))
@@ -92,6 +249,20 @@ public class BookControllerIntegrationTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    public void patchBookWithIfMatch() throws Exception {
+        Book patched = new Book(book.getId(), "firstName4", "lastName4", "email4@mail.com", 4, 3, false, 8L, null);
+        Mockito.when(mockBookService.patch(Mockito.any(), Mockito.eq(book.getId()), Mockito.eq(7L))).thenReturn(patched);
+        mvc.perform( MockMvcRequestBuilders
+                        .patch("/api/books/59c47568-fde0-4dd7-9aef-03db6a962810")
+                        .header("If-Match", "\"7\"")
+                        .content("{\"rating\":3}")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"8\""));
+    }
+
     @Test
     public void deleteBookById() throws Exception {
         Mockito.when(mockBookService.getById(UUID.fromString("59c47568-fde0-4dd7-9aef-03db6a962810"))).thenReturn(book);
@@ -103,4 +274,57 @@ public class BookControllerIntegrationTest {
                 .andExpect(status().isOk());
     }
 
+
+    @Test
+    public void batchGetBooks() throws Exception {
+        UUID missing = UUID.fromString("00000000-0000-0000-0000-000000000001");
+        Mockito.when(mockBookService.getByIds(List.of(missing, book.getId())))
+                .thenReturn(List.of(BookLookup.notFound(missing), BookLookup.found(book)));
+        mvc.perform(MockMvcRequestBuilders.post("/api/books/batch-get")
+                        .content(asJsonString(List.of(missing, book.getId())))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(missing.toString()))
+                .andExpect(jsonPath("$[0].status").value("NOT_FOUND"))
+                .andExpect(jsonPath("$[1].status").value("FOUND"))
+                .andExpect(jsonPath("$[1].book.title").value("firstName4"));
+        mvc.perform(MockMvcRequestBuilders.get("/api/books")
+                        .param("ids", missing + "," + book.getId())
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[1].book.id").value(book.getId().toString()));
+    }
+
+    @Test
+    public void createBookAsync() throws Exception {
+        Mockito.when(mockBookService.create(Mockito.any(), Mockito.any())).thenReturn(book);
+        MvcResult accepted = mvc.perform(MockMvcRequestBuilders.post("/api/books")
+                        .header("Prefer", "respond-async")
+                        .content(asJsonString(new Book(null, "firstName4", "lastName4", "email4@mail.com", 4, 3, false)))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Preference-Applied", "respond-async"))
+                .andExpect(jsonPath("$.operation").value("CREATE"))
+                .andReturn();
+        String location = accepted.getResponse().getHeader("Location");
+
+        MvcResult polled = mvc.perform(MockMvcRequestBuilders.get(location).param("wait", "5"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(polled))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("COMPLETED"))
+                .andExpect(jsonPath("$.bookId").value(book.getId().toString()));
+    }
+
+    @Test
+    public void getUnknownWrite() throws Exception {
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get("/api/books/writes/" + UUID.randomUUID()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(result)).andExpect(status().isNotFound());
+    }
+
 }
@@ -1,16 +1,42 @@
 package com.example.library.controller;
 
+import com.example.library.cache.CacheStats;
+import com.example.library.cache.SerializedResponseCache;
+import com.example.library.event.BookSavedEvent;
 import com.example.library.exceptions.BookNotFoundException;
+import com.example.library.exceptions.BookVersionMismatchException;
+import com.example.library.exceptions.WriteQueueFullException;
 import com.example.library.model.Book;
+import com.example.library.model.BookCursor;
+import com.example.library.model.BookFilter;
+import com.example.library.model.BookLookup;
+import com.example.library.model.BookPage;
+import com.example.library.model.SearchResult;
+import com.example.library.model.WriteStatus;
+import com.example.library.service.BookSearchService;
 import com.example.library.service.BookService;
+import com.example.library.service.BookWriteQueue;
+import com.example.library.wire.WireFormat;
+import com.example.library.wire.WireFormats;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.unit.DataSize;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -19,6 +45,10 @@ class BookControllerTest {
 
     private BookController bookController;
     private BookService mockBookService;
+    private BookSearchService mockBookSearchService;
+    private BookWriteQueue mockBookWriteQueue;
+    private SerializedResponseCache responseCache;
+    private final ObjectMapper objectMapper = new ObjectMapper();
 
     public final Book input = new Book(null, "Fairy Tale", "Stephen King", "Fantasy", 608, 3, true);
     public final Book input2 = new Book(null, "The Silent Patient", "Alex Michaelides", "Thriller", 336, 4, true);
@@ -30,7 +60,11 @@ class BookControllerTest {
     @BeforeEach
     public void setup() {
         mockBookService = Mockito.mock(BookService.class);
-        bookController = new BookController(mockBookService);
+        mockBookSearchService = Mockito.mock(BookSearchService.class);
+        responseCache = new SerializedResponseCache(100, DataSize.ofMegabytes(1), DataSize.ofKilobytes(64));
+        mockBookWriteQueue = Mockito.mock(BookWriteQueue.class);
+        bookController = new BookController(mockBookService, mockBookSearchService, mockBookWriteQueue,
+                new WireFormats(objectMapper, Jackson2ObjectMapperBuilder.json()), responseCache, Duration.ZERO);
     }
 
     @Test
@@ -42,14 +76,107 @@ class BookControllerTest {
     }
 
     @Test
-    public void getAllBooks_shouldReturnListOfBooksAndOKHttpStatus() {
+    public void createBookAsync_shouldReturnStatusAndACCEPTEDHttpStatus() {
+        WriteStatus accepted = WriteStatus.pending(id, WriteStatus.Operation.CREATE, null);
+        Mockito.when(mockBookWriteQueue.submitCreate(input)).thenReturn(accepted);
+        ResponseEntity<WriteStatus> response = bookController.createBookAsync(input);
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertEquals(accepted, response.getBody());
+        assertEquals("/api/books/writes/" + id, response.getHeaders().getLocation().toString());
+        assertEquals("respond-async", response.getHeaders().getFirst("Preference-Applied"));
+    }
+
+    @Test
+    public void createBookAsync_shouldReturn503WhenQueueIsFull() {
+        Mockito.when(mockBookWriteQueue.submitCreate(input)).thenThrow(new WriteQueueFullException("full"));
+        ResponseEntity<WriteStatus> response = bookController.createBookAsync(input);
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("1", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    public void getAllBooks_shouldReturnListOfBooksAndOKHttpStatus() throws Exception {
         List<Book> books = new ArrayList<>();
         books.add(input);
         books.add(input2);
         Mockito.when(mockBookService.getAll()).thenReturn(books);
-        ResponseEntity<List<Book>> response = bookController.getAllBooks();
+        ResponseEntity<byte[]> response = bookController.getAllBooks(BookFilter.NONE, null, null);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertArrayEquals(objectMapper.writeValueAsBytes(books), response.getBody());
+        assertNotNull(response.getHeaders().getETag());
+        assertEquals("no-cache", response.getHeaders().getCacheControl());
+    }
+
+    @Test
+    public void getAllBooks_shouldServeSerializedResponseFromCacheUntilBookIsSaved() {
+        Mockito.when(mockBookService.getAll()).thenReturn(List.of(input), List.of(input, input2));
+        String firstETag = bookController.getAllBooks(BookFilter.NONE, null, null).getHeaders().getETag();
+        assertEquals(firstETag, bookController.getAllBooks(BookFilter.NONE, null, null).getHeaders().getETag());
+        Mockito.verify(mockBookService, Mockito.times(1)).getAll();
+
+        responseCache.onBookSaved(new BookSavedEvent(input2));
+        assertNotEquals(firstETag, bookController.getAllBooks(BookFilter.NONE, null, null).getHeaders().getETag());
+        Mockito.verify(mockBookService, Mockito.times(2)).getAll();
+    }
+
+    @Test
+    public void getAllBooks_shouldReturnOnlyRequestedFields() throws Exception {
+        List<Map<String, Object>> rows = List.of(Map.of("id", recordWithId.getId(), "title", "Fairy Tale"));
+        Mockito.when(mockBookService.getAll(BookFilter.NONE, Set.of("id", "title", "author"))).thenReturn(rows);
+        ResponseEntity<byte[]> response = bookController.getAllBooks(BookFilter.NONE, "author, title", null);
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertEquals(books, response.getBody());
+        assertArrayEquals(objectMapper.writeValueAsBytes(rows), response.getBody());
+        Mockito.verify(mockBookService, Mockito.never()).getAll();
+    }
+
+    @Test
+    public void getAllBooks_shouldReturn400WhenFieldIsUnknown() {
+        ResponseEntity<byte[]> response = bookController.getAllBooks(BookFilter.NONE, "title,isbn", null);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    public void getAllBooks_shouldNegotiateBinaryFormatsAndCacheEachSeparately() throws Exception {
+        Mockito.when(mockBookService.getAll()).thenReturn(List.of(recordWithId));
+        ResponseEntity<byte[]> json = bookController.getAllBooks(BookFilter.NONE, null, "application/json");
+        ResponseEntity<byte[]> cbor = bookController.getAllBooks(BookFilter.NONE, null, "application/cbor, application/json;q=0.5");
+        assertEquals(MediaType.APPLICATION_CBOR, cbor.getHeaders().getContentType());
+        assertEquals(List.of(HttpHeaders.ACCEPT), cbor.getHeaders().getVary());
+        assertEquals(recordWithId.getId(), new CBORMapper().readValue(cbor.getBody(), Book[].class)[0].getId());
+        assertNotEquals(json.getHeaders().getETag(), cbor.getHeaders().getETag());
+
+        ResponseEntity<byte[]> protobuf = bookController.getAllBooks(BookFilter.NONE, null, "application/x-protobuf");
+        assertEquals(WireFormat.PROTOBUF.mediaType(), protobuf.getHeaders().getContentType());
+        assertTrue(protobuf.getBody().length < json.getBody().length);
+        Mockito.verify(mockBookService, Mockito.times(3)).getAll();
+    }
+
+    @Test
+    public void getAllBooks_shouldReturn406WhenNoFormatIsAcceptable() {
+        ResponseEntity<byte[]> response = bookController.getAllBooks(BookFilter.NONE, null, "text/html");
+        assertEquals(HttpStatus.NOT_ACCEPTABLE, response.getStatusCode());
+    }
+
+    @Test
+    public void getBookPage_shouldReturnPageAndOKHttpStatus() throws Exception {
+        BookPage page = new BookPage(List.of(recordWithId), null);
+        Mockito.when(mockBookService.getPage(BookFilter.NONE, BookCursor.first("title", Sort.Direction.DESC), 10)).thenReturn(page);
+        ResponseEntity<byte[]> response = bookController.getBookPage(BookFilter.NONE, 10, "title,desc", null, null);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertArrayEquals(objectMapper.writeValueAsBytes(page), response.getBody());
+    }
+
+    @Test
+    public void getBookPage_shouldReturn400WhenSortIsUnknown() {
+        ResponseEntity<byte[]> response = bookController.getBookPage(BookFilter.NONE, 10, "publisher", null, null);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    public void getBookPage_shouldReturn400WhenCursorDoesNotMatchSort() {
+        String cursor = BookCursor.after("title", Sort.Direction.ASC, recordWithId).encode();
+        ResponseEntity<byte[]> response = bookController.getBookPage(BookFilter.NONE, 10, "rating", cursor, null);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
     }
 
     @Test
@@ -60,6 +187,16 @@ class BookControllerTest {
         assertEquals(recordWithId, response.getBody());
     }
 
+    @Test
+    public void getBookById_shouldReturnVersionETagAndLastModified() {
+        Instant updatedAt = Instant.parse("2024-06-01T10:15:30Z");
+        Book book = new Book(recordWithId.getId(), "Fairy Tale", "Stephen King", "Fantasy", 608, 3, true, 7L, updatedAt);
+        Mockito.when(mockBookService.getById(recordWithId.getId())).thenReturn(book);
+        ResponseEntity<Book> response = bookController.getBookById(recordWithId.getId());
+        assertEquals("\"7\"", response.getHeaders().getETag());
+        assertEquals(updatedAt.toEpochMilli(), response.getHeaders().getLastModified());
+    }
+
     @Test
     public void getBookById_shouldReturn404WhenBookNotFound() {
         Mockito.when(mockBookService.getById(id)).thenThrow(new BookNotFoundException("A book with id: " + id + " was not found."));
@@ -67,6 +204,15 @@ class BookControllerTest {
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     }
 
+    @Test
+    public void getCacheStats_shouldReturnStatsAndOKHttpStatus() {
+        CacheStats stats = new CacheStats(1, 2, 3, 4, 5);
+        Mockito.when(mockBookService.getCacheStats()).thenReturn(stats);
+        ResponseEntity<CacheStats> response = bookController.getCacheStats();
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(stats, response.getBody());
+    }
+
     @Test
     public void getBookByTitle_shouldReturnListOfBooksAndOKHttpStatus() {
         Mockito.when(mockBookService.getByTitle(recordWithId.getTitle())).thenReturn(List.of(recordWithId));
@@ -75,36 +221,84 @@ class BookControllerTest {
         assertEquals(List.of(recordWithId), response.getBody());
     }
 
+    @Test
+    public void searchBooks_shouldReturnResultAndOKHttpStatus() throws Exception {
+        SearchResult<Book> result = new SearchResult<>(List.of(recordWithId), 1, 0, 20);
+        Mockito.when(mockBookSearchService.search("king", 0, 20)).thenReturn(result);
+        ResponseEntity<byte[]> response = bookController.searchBooks("king", 0, 20, null, null);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertArrayEquals(objectMapper.writeValueAsBytes(result), response.getBody());
+    }
+
+    @Test
+    public void searchBooks_shouldReturn400WhenPageIsInvalid() {
+        Mockito.when(mockBookSearchService.search("king", -1, 20)).thenThrow(new IllegalArgumentException());
+        ResponseEntity<byte[]> response = bookController.searchBooks("king", -1, 20, null, null);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
     @Test
     public void updateBook_shouldReturnBookAndOKHttpStatus() {
-        Mockito.when(mockBookService.update(input2, recordWithId.getId())).thenReturn(recordWithId2);
-        ResponseEntity<Book> response = bookController.updateBook(input2, recordWithId.getId());
+        Mockito.when(mockBookService.update(input2, recordWithId.getId(), null)).thenReturn(recordWithId2);
+        ResponseEntity<Book> response = bookController.updateBook(input2, recordWithId.getId(), null);
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(recordWithId2, response.getBody());
     }
 
     @Test
     public void updateBook_shouldReturn404WhenBookNotFound() {
-        Mockito.when(mockBookService.update(input, id)).thenThrow(new BookNotFoundException("A book with id: " + id + " was not found."));
-        ResponseEntity<Book> response = bookController.updateBook(input, id);
+        Mockito.when(mockBookService.update(input, id, null)).thenThrow(new BookNotFoundException("A book with id: " + id + " was not found."));
+        ResponseEntity<Book> response = bookController.updateBook(input, id, null);
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     }
 
     @Test
     public void patchBook_shouldReturnBookAndOKHttpStatus() {
-        Mockito.when(mockBookService.patch(input2, recordWithId.getId())).thenReturn(recordWithId2);
-        ResponseEntity<Book> response = bookController.patchBook(input2, recordWithId.getId());
+        Mockito.when(mockBookService.patch(input2, recordWithId.getId(), null)).thenReturn(recordWithId2);
+        ResponseEntity<Book> response = bookController.patchBook(input2, recordWithId.getId(), null);
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(recordWithId2, response.getBody());
     }
 
     @Test
     public void patchBook_shouldReturn404WhenBookNotFound() {
-        Mockito.when(mockBookService.patch(input, id)).thenThrow(new BookNotFoundException("A book with id: " + id + " was not found."));
-        ResponseEntity<Book> response = bookController.patchBook(input, id);
+        Mockito.when(mockBookService.patch(input, id, null)).thenThrow(new BookNotFoundException("A book with id: " + id + " was not found."));
+        ResponseEntity<Book> response = bookController.patchBook(input, id, null);
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     }
 
+    @Test
+    public void patchBook_shouldPassIfMatchVersionAndReturnNewETag() {
+        Book patched = new Book(recordWithId.getId(), "Fairy Tale", "Stephen King", "Fantasy", 608, 5, true, 4L, null);
+        Mockito.when(mockBookService.patch(input, recordWithId.getId(), 3L)).thenReturn(patched);
+        ResponseEntity<Book> response = bookController.patchBook(input, recordWithId.getId(), "\"3\"");
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("\"4\"", response.getHeaders().getETag());
+    }
+
+    @Test
+    public void patchBookAsync_shouldPassIfMatchVersionAndReturnACCEPTEDHttpStatus() {
+        WriteStatus accepted = WriteStatus.pending(UUID.randomUUID(), WriteStatus.Operation.PATCH, id);
+        Mockito.when(mockBookWriteQueue.submitPatch(input, id, 3L)).thenReturn(accepted);
+        ResponseEntity<WriteStatus> response = bookController.patchBookAsync(input, id, "\"3\"");
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertEquals(accepted, response.getBody());
+    }
+
+    @Test
+    public void patchBook_shouldReturn412WhenVersionDoesNotMatch() {
+        Mockito.when(mockBookService.patch(input, id, 3L)).thenThrow(new BookVersionMismatchException("A book with id: " + id + " is not at version 3."));
+        ResponseEntity<Book> response = bookController.patchBook(input, id, "\"3\"");
+        assertEquals(HttpStatus.PRECONDITION_FAILED, response.getStatusCode());
+    }
+
+    @Test
+    public void updateBook_shouldReturn412ForWeakOrMalformedIfMatch() {
+        assertEquals(HttpStatus.PRECONDITION_FAILED, bookController.updateBook(input, id, "W/\"3\"").getStatusCode());
+        assertEquals(HttpStatus.PRECONDITION_FAILED, bookController.updateBook(input, id, "\"abc\"").getStatusCode());
+        Mockito.verifyNoInteractions(mockBookService);
+    }
+
     @Test
     public void deleteBook_shouldReturnOKHttpStatus() {
         ResponseEntity<Book> response = bookController.deleteBook(recordWithId.getId());
@@ -112,4 +306,21 @@ class BookControllerTest {
     }
 
 
-}
\ No newline at end of file
+
+    @Test
+    public void batchGetBooks_shouldReturnLookupsAndOKHttpStatus() {
+        List<BookLookup> lookups = List.of(BookLookup.found(recordWithId), BookLookup.notFound(id));
+        Mockito.when(mockBookService.getByIds(List.of(recordWithId.getId(), id))).thenReturn(lookups);
+        ResponseEntity<List<BookLookup>> response = bookController.batchGetBooks(List.of(recordWithId.getId(), id));
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(lookups, response.getBody());
+    }
+
+    @Test
+    public void batchGetBooks_shouldReturnBAD_REQUESTWhenTooManyIds() {
+        Mockito.when(mockBookService.getByIds(Mockito.any())).thenThrow(new IllegalArgumentException());
+        ResponseEntity<List<BookLookup>> response = bookController.batchGetBooks(List.of(id));
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+}
@@ -0,0 +1,73 @@
+package com.example.library.controller;
+
+import com.example.library.exceptions.WriteNotFoundException;
+import com.example.library.model.Book;
+import com.example.library.model.WriteStatus;
+import com.example.library.service.BookWriteQueue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookWriteControllerTest {
+
+    private BookWriteController bookWriteController;
+    private BookWriteQueue mockBookWriteQueue;
+
+    public final UUID id = UUID.fromString("59c47568-fde0-4dd7-9aef-03db6a962810");
+    public final WriteStatus pending = WriteStatus.pending(id, WriteStatus.Operation.CREATE, null);
+    public final WriteStatus completed = pending.completed(
+            new Book(UUID.randomUUID(), "Fairy Tale", "Stephen King", "Fantasy", 608, 3, true, 0L, null));
+
+    @BeforeEach
+    public void setup() {
+        mockBookWriteQueue = Mockito.mock(BookWriteQueue.class);
+        bookWriteController = new BookWriteController(mockBookWriteQueue);
+    }
+
+    @Test
+    public void getWrite_shouldReturnStatusAndOKHttpStatus() {
+        Mockito.when(mockBookWriteQueue.getStatus(id)).thenReturn(pending);
+        ResponseEntity<WriteStatus> response = bookWriteController.getWrite(id, 0).join();
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(pending, response.getBody());
+        Mockito.verify(mockBookWriteQueue, Mockito.never()).completion(id);
+    }
+
+    @Test
+    public void getWrite_shouldWaitForCompletion() {
+        Mockito.when(mockBookWriteQueue.getStatus(id)).thenReturn(pending);
+        Mockito.when(mockBookWriteQueue.completion(id)).thenReturn(CompletableFuture.completedFuture(completed));
+        ResponseEntity<WriteStatus> response = bookWriteController.getWrite(id, 5).join();
+        assertEquals(completed, response.getBody());
+    }
+
+    @Test
+    public void getWrite_shouldReturnPendingStatusWhenWaitTimesOut() {
+        Mockito.when(mockBookWriteQueue.getStatus(id)).thenReturn(pending);
+        Mockito.when(mockBookWriteQueue.completion(id)).thenReturn(new CompletableFuture<>());
+        ResponseEntity<WriteStatus> response = bookWriteController.getWrite(id, 1).join();
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(pending, response.getBody());
+    }
+
+    @Test
+    public void getWrite_shouldReturn400WhenWaitIsTooLong() {
+        Mockito.when(mockBookWriteQueue.getStatus(id)).thenReturn(pending);
+        ResponseEntity<WriteStatus> response = bookWriteController.getWrite(id, BookWriteController.MAX_WAIT_SECONDS + 1).join();
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    public void getWrite_shouldReturn404WhenWriteNotFound() {
+        Mockito.when(mockBookWriteQueue.getStatus(id)).thenThrow(new WriteNotFoundException("missing"));
+        ResponseEntity<WriteStatus> response = bookWriteController.getWrite(id, 0).join();
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+}
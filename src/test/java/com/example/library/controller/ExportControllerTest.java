@@ -0,0 +1,89 @@
+package com.example.library.controller;
+
+import com.example.library.exceptions.ExportNotFoundException;
+import com.example.library.export.ExportFormat;
+import com.example.library.model.ExportSnapshot;
+import com.example.library.service.ExportService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExportControllerTest {
+
+    @TempDir
+    Path directory;
+
+    private ExportController exportController;
+    private ExportService mockExportService;
+
+    public final UUID id = UUID.fromString("59c47568-fde0-4dd7-9aef-03db6a962810");
+
+    @BeforeEach
+    public void setup() {
+        mockExportService = Mockito.mock(ExportService.class);
+        exportController = new ExportController(mockExportService);
+    }
+
+    @Test
+    public void startExport_shouldReturnSnapshotAndACCEPTEDHttpStatus() {
+        ExportSnapshot snapshot = ExportSnapshot.started(ExportFormat.CSV, true);
+        Mockito.when(mockExportService.startSnapshot(ExportFormat.CSV, true)).thenReturn(snapshot);
+        ResponseEntity<ExportSnapshot> response = exportController.startExport(ExportFormat.CSV, true);
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertEquals(snapshot, response.getBody());
+    }
+
+    @Test
+    public void getExport_shouldReturn404WhenExportNotFound() {
+        Mockito.when(mockExportService.getSnapshot(id)).thenThrow(new ExportNotFoundException("missing"));
+        ResponseEntity<ExportSnapshot> response = exportController.getExport(id);
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    @Test
+    public void downloadExport_shouldTransferReadySnapshotFile() throws Exception {
+        ExportSnapshot snapshot = ExportSnapshot.started(ExportFormat.CSV, false).ready(1, 5);
+        Path file = Files.writeString(directory.resolve(snapshot.fileName()), "title");
+        Mockito.when(mockExportService.getSnapshot(id)).thenReturn(snapshot);
+        Mockito.when(mockExportService.getSnapshotFile(id)).thenReturn(file);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        exportController.downloadExport(id, new MockHttpServletRequest(), response);
+        assertEquals(200, response.getStatus());
+        assertEquals("text/csv", response.getContentType());
+        assertEquals("title", response.getContentAsString());
+    }
+
+    @Test
+    public void downloadExport_shouldUseSendfileWhenSupported() throws Exception {
+        ExportSnapshot snapshot = ExportSnapshot.started(ExportFormat.NDJSON, true).ready(1, 5);
+        Path file = directory.resolve(snapshot.fileName());
+        Mockito.when(mockExportService.getSnapshot(id)).thenReturn(snapshot);
+        Mockito.when(mockExportService.getSnapshotFile(id)).thenReturn(file);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAttribute("org.apache.tomcat.sendfile.support", true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        exportController.downloadExport(id, request, response);
+        assertEquals(file.toString(), request.getAttribute("org.apache.tomcat.sendfile.filename"));
+        assertEquals("application/gzip", response.getContentType());
+    }
+
+    @Test
+    public void downloadExport_shouldReturn409WhenSnapshotIsNotReady() throws Exception {
+        Mockito.when(mockExportService.getSnapshot(id)).thenReturn(ExportSnapshot.started(ExportFormat.CSV, false));
+        Mockito.when(mockExportService.getSnapshotFile(id)).thenThrow(new IllegalStateException());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        exportController.downloadExport(id, new MockHttpServletRequest(), response);
+        assertEquals(409, response.getStatus());
+    }
+}
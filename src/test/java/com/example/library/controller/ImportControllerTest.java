@@ -0,0 +1,61 @@
+package com.example.library.controller;
+
+import com.example.library.exceptions.ImportJobNotFoundException;
+import com.example.library.model.ImportJob;
+import com.example.library.model.ImportStatus;
+import com.example.library.service.ImportService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImportControllerTest {
+
+    private ImportController importController;
+    private ImportService mockImportService;
+
+    public final UUID id = UUID.fromString("59c47568-fde0-4dd7-9aef-03db6a962810");
+    public final ImportStatus status = new ImportStatus(id, ImportJob.Format.CSV, ImportJob.Status.RUNNING,
+            100, 0, 0, 0, 0, null, Instant.now(), null);
+
+    @BeforeEach
+    public void setup() {
+        mockImportService = Mockito.mock(ImportService.class);
+        importController = new ImportController(mockImportService);
+    }
+
+    @Test
+    public void importLocal_shouldReturnStatusAndACCEPTEDHttpStatus() throws Exception {
+        Mockito.when(mockImportService.importLocal("books.csv", null)).thenReturn(status);
+        ResponseEntity<ImportStatus> response = importController.importLocal("books.csv", null);
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertEquals(status, response.getBody());
+    }
+
+    @Test
+    public void importLocal_shouldReturn400WhenPathIsInvalid() throws Exception {
+        Mockito.when(mockImportService.importLocal("../etc/passwd", null)).thenThrow(new IllegalArgumentException());
+        ResponseEntity<ImportStatus> response = importController.importLocal("../etc/passwd", null);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    public void getImport_shouldReturn404WhenImportNotFound() {
+        Mockito.when(mockImportService.getStatus(id)).thenThrow(new ImportJobNotFoundException("missing"));
+        ResponseEntity<ImportStatus> response = importController.getImport(id);
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    @Test
+    public void resumeImport_shouldReturn409WhenImportCannotBeResumed() {
+        Mockito.when(mockImportService.resume(id)).thenThrow(new IllegalStateException());
+        ResponseEntity<ImportStatus> response = importController.resumeImport(id);
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.library.controller;
+
+import com.example.library.exceptions.BookNotFoundException;
+import com.example.library.model.Book;
+import com.example.library.service.ReactiveBookService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+class ReactiveBookControllerTest {
+
+    private WebTestClient client;
+    private ReactiveBookService mockBookService;
+
+    public final Book recordWithId = new Book(UUID.randomUUID(), "Fairy Tale", "Stephen King", "Fantasy", 608, 3, true);
+    public final Book recordWithId2 = new Book(UUID.randomUUID(), "The Silent Patient", "Alex Michaelides", "Thriller", 336, 4, true);
+
+    public final UUID id = UUID.fromString("59c47568-fde0-4dd7-9aef-03db6a962810");
+
+    @BeforeEach
+    public void setup() {
+        mockBookService = Mockito.mock(ReactiveBookService.class);
+        client = WebTestClient.bindToController(new ReactiveBookController(mockBookService)).build();
+    }
+
+    @Test
+    public void createBook_shouldReturnCREATEDHttpStatus() {
+        Mockito.when(mockBookService.create(Mockito.any())).thenReturn(Mono.just(recordWithId));
+        client.post().uri("/api/books").contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"title\":\"Fairy Tale\"}")
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody().jsonPath("$.title").isEqualTo("Fairy Tale");
+    }
+
+    @Test
+    public void getAllBooks_shouldStreamNdjson() {
+        Mockito.when(mockBookService.getAll()).thenReturn(Flux.just(recordWithId, recordWithId2));
+        client.get().uri("/api/books").accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBodyList(Book.class).hasSize(2);
+    }
+
+    @Test
+    public void getBookById_shouldReturn404WhenBookNotFound() {
+        Mockito.when(mockBookService.getById(id)).thenReturn(Mono.error(new BookNotFoundException("missing")));
+        client.get().uri("/api/books/" + id).exchange().expectStatus().isNotFound();
+    }
+
+    @Test
+    public void patchBook_shouldReturnBookAndOKHttpStatus() {
+        Mockito.when(mockBookService.patch(Mockito.any(), Mockito.eq(recordWithId.getId()))).thenReturn(Mono.just(recordWithId));
+        client.patch().uri("/api/books/" + recordWithId.getId()).contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"rating\":3}")
+                .exchange()
+                .expectStatus().isOk();
+    }
+
+    @Test
+    public void deleteBook_shouldReturnOKHttpStatus() {
+        Mockito.when(mockBookService.delete(id)).thenReturn(Mono.empty());
+        client.delete().uri("/api/books/delete/" + id).exchange().expectStatus().isOk();
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.library.event;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookTombstonesTest {
+
+    @Test
+    public void add_shouldKeepEveryDeleteUntilLoadedAndOnlyTheLatestAfterwards() {
+        BookTombstones tombstones = new BookTombstones(2);
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+        tombstones.add(first);
+        tombstones.add(second);
+        tombstones.add(third);
+        assertEquals(3, tombstones.size());
+        assertTrue(tombstones.contains(first));
+
+        tombstones.markLoaded();
+        assertEquals(2, tombstones.size());
+        assertFalse(tombstones.contains(first));
+
+        UUID fourth = UUID.randomUUID();
+        tombstones.add(fourth);
+        assertFalse(tombstones.contains(second));
+        assertTrue(tombstones.contains(third));
+        assertTrue(tombstones.contains(fourth));
+    }
+}
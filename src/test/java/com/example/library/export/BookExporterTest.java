@@ -0,0 +1,82 @@
+package com.example.library.export;
+
+import com.example.library.model.Book;
+import com.example.library.repository.BookRepository;
+import com.example.library.routing.BookShards;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class BookExporterTest {
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private BookExporter bookExporter;
+    private Book fairyTale;
+
+    @BeforeEach
+    public void setup() {
+        bookExporter = new BookExporter(jdbcTemplate, new ObjectMapper(), new BookShards(List.of(), 1));
+        fairyTale = bookRepository.save(new Book(null, "Fairy Tale", "Stephen King", "Fantasy", 608, 3, true));
+        bookRepository.save(new Book(null, "Dune, Part \"One\"", null, null, null, null, null));
+        bookRepository.flush();
+    }
+
+    @Test
+    public void export_shouldWriteCsvWithHeaderAndQuotedFields() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = bookExporter.export(ExportFormat.CSV, false, Channels.newChannel(out));
+        assertEquals(2, rows);
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals("id,title,author,genre,numberOfPages,rating,hasRead", lines.get(0));
+        assertTrue(lines.contains(fairyTale.getId() + ",Fairy Tale,Stephen King,Fantasy,608,3,true"));
+        assertTrue(lines.stream().anyMatch(line -> line.endsWith(",\"Dune, Part \"\"One\"\"\",,,,,")));
+    }
+
+    @Test
+    public void export_shouldWriteGzippedNdjson() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bookExporter.export(ExportFormat.NDJSON, true, Channels.newChannel(out));
+        String json = new String(new GZIPInputStream(new ByteArrayInputStream(out.toByteArray())).readAllBytes(), StandardCharsets.UTF_8);
+        List<Book> books = json.lines().map(line -> {
+            try {
+                return new ObjectMapper().readValue(line, Book.class);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }).toList();
+        assertEquals(2, books.size());
+        Book exported = books.stream().filter(book -> fairyTale.getId().equals(book.getId())).findFirst().orElseThrow();
+        assertEquals(608, exported.getNumberOfPages());
+        assertEquals(true, exported.getHasRead());
+    }
+
+    @Test
+    public void export_shouldWriteColumnarBlocks() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bookExporter.export(ExportFormat.COLUMNAR, false, Channels.newChannel(out));
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
+        byte[] magic = new byte[4];
+        in.readFully(magic);
+        assertArrayEquals(ColumnarRowWriter.MAGIC, magic);
+        assertEquals(2, in.readInt());
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.library.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UuidV7Test {
+
+    private final AtomicLong millis = new AtomicLong(1_760_000_000_000L);
+    private final UuidV7 generator = new UuidV7(millis::get, new Random(42));
+
+    @Test
+    public void generate_setsVersionVariantAndTimestamp() {
+        UUID uuid = generator.generate();
+        assertEquals(7, uuid.version());
+        assertEquals(2, uuid.variant());
+        assertEquals(millis.get(), UuidV7.timestampMillis(uuid));
+    }
+
+    @Test
+    public void generate_increasesWithinTheSameMillisecondAndAcrossCounterOverflow() {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            ids.add(generator.generate().toString());
+        }
+        for (int i = 1; i < ids.size(); i++) {
+            assertTrue(ids.get(i - 1).compareTo(ids.get(i)) < 0, "Ids out of order at " + i);
+        }
+        assertEquals(7, UUID.fromString(ids.get(ids.size() - 1)).version());
+    }
+
+    @Test
+    public void generate_keepsIncreasingWhenTheClockStepsBack() {
+        UUID before = generator.generate();
+        millis.addAndGet(-5_000);
+        UUID after = generator.generate();
+        assertTrue(before.toString().compareTo(after.toString()) < 0);
+        assertEquals(UuidV7.timestampMillis(before), UuidV7.timestampMillis(after));
+    }
+
+    @Test
+    public void next_startsAtTheCurrentTime() {
+        long start = System.currentTimeMillis();
+        long timestamp = UuidV7.timestampMillis(UuidV7.next());
+        assertTrue(timestamp >= start && timestamp <= System.currentTimeMillis() + 1);
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.library.importer;
+
+import com.example.library.model.Book;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvBookParserTest {
+
+    private final CsvBookParser parser = new CsvBookParser("Title,author,genre,numberOfPages,rating,hasRead");
+
+    @Test
+    public void parse_shouldMapColumnsByHeaderName() {
+        Book book = parser.parse("\"Fairy Tale\",Stephen King,Fantasy,608,3,true");
+        assertEquals("Fairy Tale", book.getTitle());
+        assertEquals("Stephen King", book.getAuthor());
+        assertEquals("Fantasy", book.getGenre());
+        assertEquals(608, book.getNumberOfPages());
+        assertEquals(3, book.getRating());
+        assertEquals(true, book.getHasRead());
+    }
+
+    @Test
+    public void parse_shouldHandleQuotedCommasAndEmptyFields() {
+        Book book = parser.parse("\"Dune, Part \"\"One\"\"\",,,,,");
+        assertEquals("Dune, Part \"One\"", book.getTitle());
+        assertNull(book.getAuthor());
+        assertNull(book.getNumberOfPages());
+        assertNull(book.getHasRead());
+    }
+
+    @Test
+    public void parse_shouldRejectInvalidRows() {
+        assertThrows(IllegalArgumentException.class, () -> parser.parse(",Stephen King,Fantasy,608,3,true"));
+        assertThrows(IllegalArgumentException.class, () -> parser.parse("It,Stephen King,Horror,many,3,true"));
+        assertThrows(IllegalArgumentException.class, () -> parser.parse("It,Stephen King,Horror,1138,3,yes"));
+        assertThrows(IllegalArgumentException.class, () -> parser.parse("It,Stephen King"));
+    }
+
+    @Test
+    public void constructor_shouldRequireTitleColumn() {
+        assertThrows(IllegalArgumentException.class, () -> new CsvBookParser("author,genre"));
+    }
+}
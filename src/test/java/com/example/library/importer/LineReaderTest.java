@@ -0,0 +1,41 @@
+package com.example.library.importer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LineReaderTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void readLine_shouldReturnLinesAndTrackOffsetsAcrossBufferRefills() throws Exception {
+        Path file = directory.resolve("books.ndjson");
+        Files.writeString(file, "first\r\nsecönd\nlast", StandardCharsets.UTF_8);
+        try (LineReader reader = new LineReader(file, 0, 4)) {
+            assertEquals("first", reader.readLine());
+            assertEquals(7, reader.offset());
+            assertEquals("secönd", reader.readLine());
+            assertEquals(15, reader.offset());
+            assertEquals("last", reader.readLine());
+            assertNull(reader.readLine());
+        }
+    }
+
+    @Test
+    public void readLine_shouldStartAtGivenOffset() throws Exception {
+        Path file = directory.resolve("books.csv");
+        Files.writeString(file, "title\nFairy Tale\nDune\n", StandardCharsets.UTF_8);
+        try (LineReader reader = new LineReader(file, 17, 8)) {
+            assertEquals("Dune", reader.readLine());
+            assertNull(reader.readLine());
+            assertEquals(22, reader.offset());
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.library.load;
+
+import com.example.library.LibraryApplication;
+import com.example.library.search.BookSearchIndex;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Measures how long a file-backed node takes to restart for growing numbers
+ * of stored books: time until the context is ready and until the search
+ * index has been rebuilt. Run with {@code mvn test -Pload-test}; sizes can be
+ * changed with {@code -Dstartup.rows=100000,1000000,5000000}.
+ */
+@Tag("load")
+class StartupTimeLoadTest {
+
+    private static final int[] ROWS = Arrays.stream(System.getProperty("startup.rows", "100000,1000000").split(","))
+            .mapToInt(Integer::parseInt)
+            .toArray();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void measureRestartTimeAgainstDataSize() throws InterruptedException {
+        for (int rows : ROWS) {
+            Path storage = directory.resolve("rows-" + rows);
+            long seedMillis;
+            try (ConfigurableApplicationContext context = start(storage)) {
+                long start = System.nanoTime();
+                context.getBean(JdbcTemplate.class).update("""
+                        insert into books (id, title, author, genre, number_of_pages, rating, has_read, updated_at)
+                        select random_uuid(), 'Book ' || x, 'Author ' || mod(x, 1000), 'Genre ' || mod(x, 8),
+                               100 + mod(x, 900), mod(x, 5) + 1, mod(x, 2) = 0, current_timestamp
+                        from system_range(1, ?)
+                        """, rows);
+                seedMillis = (System.nanoTime() - start) / 1_000_000;
+            }
+
+            long start = System.nanoTime();
+            try (ConfigurableApplicationContext context = start(storage)) {
+                long readyMillis = (System.nanoTime() - start) / 1_000_000;
+                assertEquals(rows, context.getBean(JdbcTemplate.class).queryForObject("select count(*) from books", Long.class));
+                BookSearchIndex index = context.getBean(BookSearchIndex.class);
+                while (!index.isReady()) {
+                    Thread.sleep(50);
+                }
+                long indexedMillis = (System.nanoTime() - start) / 1_000_000;
+                System.out.printf("rows=%d seed=%d ms ready=%d ms search-index=%d ms%n",
+                        rows, seedMillis, readyMillis, indexedMillis);
+            }
+        }
+    }
+
+    private ConfigurableApplicationContext start(Path storage) {
+        return new SpringApplicationBuilder(LibraryApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("file")
+                .properties("logging.level.root=WARN", "logging.level.com.example.library=INFO")
+                .run("--library.storage.directory=" + storage.toAbsolutePath());
+    }
+}
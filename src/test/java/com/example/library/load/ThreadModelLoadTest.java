@@ -0,0 +1,139 @@
+package com.example.library.load;
+
+import com.example.library.LibraryApplication;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares throughput and tail latency of the platform-thread and
+ * virtual-thread execution modes. Run with {@code mvn test -Pload-test}; the
+ * virtual-thread mode only takes effect on a Java 21 runtime ({@code -Pjava21}).
+ * Tomcat's platform pool is deliberately kept smaller than the number of
+ * clients so that requests queue up in the platform-thread mode.
+ */
+@Tag("load")
+class ThreadModelLoadTest {
+
+    private static final int BOOKS = 1_000;
+    private static final int CLIENTS = Integer.getInteger("load.clients", 200);
+    private static final Duration DURATION = Duration.ofSeconds(Long.getLong("load.seconds", 15));
+
+    @Test
+    public void compareThreadModels() throws Exception {
+        Result platform = run(false);
+        Result virtual = run(true);
+        System.out.println(platform);
+        System.out.println(virtual);
+        assertEquals(0, platform.errors());
+        assertEquals(0, virtual.errors());
+    }
+
+    private Result run(boolean virtualThreads) throws Exception {
+        String mode = virtualThreads ? "virtual" : "platform";
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(LibraryApplication.class)
+                .properties("server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:load-" + mode,
+                        "spring.threads.virtual.enabled=" + virtualThreads,
+                        "server.tomcat.threads.max=20",
+                        "spring.datasource.hikari.maximum-pool-size=20",
+                        "library.rate-limit.enabled=false",
+                        "logging.level.root=WARN")
+                .run()) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            String baseUrl = "http://localhost:" + port + "/api/books";
+            HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+            List<String> ids = seed(client, baseUrl);
+            return drive(mode, client, baseUrl, ids);
+        }
+    }
+
+    private List<String> seed(HttpClient client, String baseUrl) throws Exception {
+        List<String> ids = new ArrayList<>(BOOKS);
+        for (int i = 0; i < BOOKS; i++) {
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"title\":\"Book " + i + "\",\"author\":\"Author\"}"))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            String body = response.body();
+            int start = body.indexOf("\"id\":\"") + 6;
+            ids.add(body.substring(start, start + 36));
+        }
+        return ids;
+    }
+
+    private Result drive(String mode, HttpClient client, String baseUrl, List<String> ids) throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        AtomicLong errors = new AtomicLong();
+        long deadline = System.nanoTime() + DURATION.toNanos();
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int c = 0; c < CLIENTS; c++) {
+            futures.add(clients.submit(() -> {
+                long[] latencies = new long[1024];
+                int count = 0;
+                while (System.nanoTime() < deadline) {
+                    String path = ThreadLocalRandom.current().nextInt(10) == 0
+                            ? "/search?q=book+" + ThreadLocalRandom.current().nextInt(BOOKS)
+                            : "/" + ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+                    long start = System.nanoTime();
+                    HttpResponse<Void> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build(),
+                            HttpResponse.BodyHandlers.discarding());
+                    if (response.statusCode() != 200) {
+                        errors.incrementAndGet();
+                    }
+                    if (count == latencies.length) {
+                        latencies = Arrays.copyOf(latencies, count * 2);
+                    }
+                    latencies[count++] = System.nanoTime() - start;
+                }
+                return Arrays.copyOf(latencies, count);
+            }));
+        }
+        long[] all = new long[0];
+        for (Future<long[]> future : futures) {
+            long[] latencies = future.get();
+            long[] merged = Arrays.copyOf(all, all.length + latencies.length);
+            System.arraycopy(latencies, 0, merged, all.length, latencies.length);
+            all = merged;
+        }
+        clients.shutdown();
+        Arrays.sort(all);
+        return new Result(mode, all.length / (double) DURATION.toSeconds(),
+                percentile(all, 0.50), percentile(all, 0.99), percentile(all, 0.999), errors.get());
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1)] / 1e6;
+    }
+
+    private record Result(String mode, double requestsPerSecond, double p50Millis, double p99Millis,
+                          double p999Millis, long errors) {
+        @Override
+        public String toString() {
+            return String.format("%-8s %10.0f req/s  p50 %7.2f ms  p99 %7.2f ms  p99.9 %7.2f ms  errors %d",
+                    mode, requestsPerSecond, p50Millis, p99Millis, p999Millis, errors);
+        }
+    }
+}
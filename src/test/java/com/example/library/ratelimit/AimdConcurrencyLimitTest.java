@@ -0,0 +1,61 @@
+package com.example.library.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AimdConcurrencyLimitTest {
+
+    private static final long THRESHOLD = 100;
+
+    @Test
+    public void tryAcquire_rejectsOnceLimitIsReached() {
+        AimdConcurrencyLimit limit = new AimdConcurrencyLimit(2, 1, 10, THRESHOLD, 0.5, 0);
+        assertTrue(limit.tryAcquire());
+        assertTrue(limit.tryAcquire());
+        assertFalse(limit.tryAcquire());
+        assertEquals(2, limit.inFlight());
+    }
+
+    @Test
+    public void release_growsLimitWhileFastAndBusy() {
+        AimdConcurrencyLimit limit = new AimdConcurrencyLimit(2, 1, 3, THRESHOLD, 0.5, 0);
+        limit.tryAcquire();
+        limit.release(10, 20);
+        assertEquals(3, limit.limit());
+        limit.tryAcquire();
+        limit.tryAcquire();
+        limit.release(30, 40);
+        limit.release(30, 40);
+        assertEquals(3, limit.limit());
+        assertEquals(0, limit.inFlight());
+    }
+
+    @Test
+    public void release_doesNotGrowLimitWhenMostlyIdle() {
+        AimdConcurrencyLimit limit = new AimdConcurrencyLimit(10, 1, 20, THRESHOLD, 0.5, 0);
+        limit.tryAcquire();
+        limit.release(10, 20);
+        assertEquals(10, limit.limit());
+    }
+
+    @Test
+    public void release_backsOffOncePerRoundTripWhenSlow() {
+        AimdConcurrencyLimit limit = new AimdConcurrencyLimit(8, 1, 20, THRESHOLD, 0.5, 0);
+        for (int i = 0; i < 3; i++) {
+            limit.tryAcquire();
+        }
+        limit.release(10, 500);
+        assertEquals(4, limit.limit());
+        limit.release(20, 510);
+        assertEquals(4, limit.limit());
+        limit.release(600, 800);
+        assertEquals(2, limit.limit());
+
+        limit.tryAcquire();
+        limit.release(900, 1100);
+        limit.tryAcquire();
+        limit.release(1200, 1400);
+        assertEquals(1, limit.limit());
+    }
+}
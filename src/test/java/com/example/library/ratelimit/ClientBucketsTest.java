@@ -0,0 +1,40 @@
+package com.example.library.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClientBucketsTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000_000L);
+
+    @Test
+    public void tryAcquire_shouldShareTheOverflowBucketWhileEveryTrackedClientIsActive() {
+        ClientBuckets clientBuckets = new ClientBuckets(1, 1, 2, now::get);
+        assertEquals(0, clientBuckets.tryAcquire("a"));
+        assertEquals(0, clientBuckets.tryAcquire("b"));
+        assertEquals(0, clientBuckets.tryAcquire("c"));
+        assertTrue(clientBuckets.tryAcquire("d") > 0);
+        assertEquals(2, clientBuckets.size());
+    }
+
+    @Test
+    public void tryAcquire_shouldDropFullBucketsABatchAtATime() {
+        int maxClients = ClientBuckets.SWEEP_BATCH * 4;
+        ClientBuckets clientBuckets = new ClientBuckets(1, 1, maxClients, now::get);
+        for (int i = 0; i < maxClients; i++) {
+            clientBuckets.tryAcquire("client-" + i);
+        }
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+
+        assertEquals(0, clientBuckets.tryAcquire("newcomer-0"));
+        assertEquals(maxClients - ClientBuckets.SWEEP_BATCH + 1, clientBuckets.size());
+        for (int i = 1; i < 4; i++) {
+            clientBuckets.tryAcquire("newcomer-" + i);
+        }
+        assertTrue(clientBuckets.size() <= maxClients);
+    }
+}
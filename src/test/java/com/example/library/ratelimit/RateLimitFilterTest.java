@@ -0,0 +1,118 @@
+package com.example.library.ratelimit;
+
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitFilterTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private Map<EndpointClass, AimdConcurrencyLimit> limits;
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    public void setup() {
+        limits = new EnumMap<>(EndpointClass.class);
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            limits.put(endpointClass, new AimdConcurrencyLimit(1, 1, 1, TimeUnit.SECONDS.toNanos(1), 0.9, 0));
+        }
+        filter = new RateLimitFilter(new TokenBucket(1, 3, now::get), new ClientBuckets(1, 2, 10, now::get),
+                limits, "X-Client-Id", Set.of("10.0.0.1"), now::get);
+    }
+
+    @Test
+    public void rejectsClientOverItsBucketWith429AndRetryAfter() throws Exception {
+        assertEquals(200, perform(request("GET", "/api/books/1", "a")).getStatus());
+        assertEquals(200, perform(request("GET", "/api/books/1", "a")).getStatus());
+        MockHttpServletResponse rejected = perform(request("GET", "/api/books/1", "a"));
+        assertEquals(429, rejected.getStatus());
+        assertEquals("1", rejected.getHeader("Retry-After"));
+        assertEquals(1, filter.rejections(RateLimitFilter.Rejection.CLIENT, EndpointClass.READ));
+
+        assertEquals(200, perform(request("GET", "/api/books/1", "b")).getStatus());
+        MockHttpServletResponse global = perform(request("POST", "/api/books", "c"));
+        assertEquals(429, global.getStatus());
+        assertEquals(1, filter.rejections(RateLimitFilter.Rejection.GLOBAL, EndpointClass.WRITE));
+    }
+
+    @Test
+    public void ignoresTheClientHeaderUnlessTheRequestComesFromATrustedProxy() throws Exception {
+        assertEquals(200, perform(direct("GET", "/api/books/1", "a")).getStatus());
+        assertEquals(200, perform(direct("GET", "/api/books/1", "b")).getStatus());
+        assertEquals(429, perform(direct("GET", "/api/books/1", "c")).getStatus());
+        assertEquals(1, filter.clientBuckets().size());
+    }
+
+    @Test
+    public void shedsRequestsOverTheConcurrencyLimitWith503() throws Exception {
+        limits.get(EndpointClass.BULK).tryAcquire();
+        MockHttpServletResponse response = perform(request("POST", "/api/books/bulk", "a"));
+        assertEquals(503, response.getStatus());
+        assertEquals("1", response.getHeader("Retry-After"));
+        assertEquals(1, filter.rejections(RateLimitFilter.Rejection.CONCURRENCY, EndpointClass.BULK));
+
+        assertEquals(200, perform(request("DELETE", "/api/books/delete/1", "a")).getStatus());
+        assertEquals(0, limits.get(EndpointClass.WRITE).inFlight());
+    }
+
+    @Test
+    public void holdsTheConcurrencySlotUntilAnAsyncRequestCompletes() throws Exception {
+        MockHttpServletRequest request = request("GET", "/api/books/export", "a");
+        request.setAsyncSupported(true);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response) {
+                request.startAsync();
+            }
+        });
+        assertEquals(1, limits.get(EndpointClass.READ).inFlight());
+        assertEquals(503, perform(request("GET", "/api/books/export", "b")).getStatus());
+
+        request.getAsyncContext().complete();
+        assertEquals(0, limits.get(EndpointClass.READ).inFlight());
+        request.getAsyncContext().complete();
+        assertEquals(0, limits.get(EndpointClass.READ).inFlight());
+    }
+
+    @Test
+    public void leavesOtherPathsAlone() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            assertEquals(200, perform(request("GET", "/actuator/health", "a")).getStatus());
+        }
+    }
+
+    private MockHttpServletRequest request(String method, String uri, String client) {
+        MockHttpServletRequest request = direct(method, uri, client);
+        request.setRemoteAddr("10.0.0.1");
+        return request;
+    }
+
+    private MockHttpServletRequest direct(String method, String uri, String client) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.addHeader("X-Client-Id", client);
+        return request;
+    }
+
+    private MockHttpServletResponse perform(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response) {
+                ((MockHttpServletResponse) response).setStatus(200);
+            }
+        });
+        return response;
+    }
+}
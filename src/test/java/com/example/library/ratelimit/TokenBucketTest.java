@@ -0,0 +1,70 @@
+package com.example.library.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000_000L);
+
+    @Test
+    public void tryAcquire_allowsBurstThenReportsWaitUntilNextToken() {
+        TokenBucket bucket = new TokenBucket(10, 3, now::get);
+        assertEquals(0, bucket.tryAcquire());
+        assertEquals(0, bucket.tryAcquire());
+        assertEquals(0, bucket.tryAcquire());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), bucket.tryAcquire());
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(40));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(60), bucket.tryAcquire());
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(60));
+        assertEquals(0, bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire() > 0);
+    }
+
+    @Test
+    public void availableTokens_refillUpToCapacity() {
+        TokenBucket bucket = new TokenBucket(10, 3, now::get);
+        bucket.tryAcquire();
+        bucket.tryAcquire();
+        assertEquals(1, bucket.availableTokens(), 1e-9);
+        assertFalse(bucket.isFull());
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertEquals(3, bucket.availableTokens(), 1e-9);
+        assertTrue(bucket.isFull());
+    }
+
+    @Test
+    public void tryAcquire_neverHandsOutMoreThanCapacityUnderContention() throws Exception {
+        TokenBucket bucket = new TokenBucket(1, 1000, now::get);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(executor.submit(() -> {
+                int acquired = 0;
+                for (int i = 0; i < 1000; i++) {
+                    if (bucket.tryAcquire() == 0) {
+                        acquired++;
+                    }
+                }
+                return acquired;
+            }));
+        }
+        int total = 0;
+        for (Future<Integer> future : futures) {
+            total += future.get();
+        }
+        executor.shutdown();
+        assertEquals(1000, total);
+    }
+}
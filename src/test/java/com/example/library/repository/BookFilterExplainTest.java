@@ -0,0 +1,104 @@
+package com.example.library.repository;
+
+import com.example.library.model.Book;
+import com.example.library.model.BookFilter;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Sort;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs H2's EXPLAIN on the SQL that Hibernate generates for a filter, to
+ * check that the composite indexes are picked for the common predicates.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.example.library.repository.BookFilterExplainTest$LastStatement")
+class BookFilterExplainTest {
+
+    public static class LastStatement implements StatementInspector {
+        static volatile String sql;
+
+        @Override
+        public String inspect(String sql) {
+            LastStatement.sql = sql;
+            return sql;
+        }
+    }
+
+    private static final String[] GENRES = {"Fantasy", "Horror", "Thriller", "Science Fiction", "Romance"};
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @BeforeEach
+    public void setup() {
+        bookRepository.saveAll(IntStream.range(0, 500)
+                .mapToObj(i -> new Book(null, "Title " + i, "Author " + (i % 50), GENRES[i % GENRES.length],
+                        100 + i, i / 5 % 5 + 1, i % 3 == 0))
+                .toList());
+        bookRepository.flush();
+    }
+
+    @Test
+    public void genreAndRatingRange_shouldUseGenreRatingIndex() {
+        List<Book> books = bookRepository.findAll(BookSpecifications.matching(
+                new BookFilter("Fantasy", null, 4, 5, null, null, null)));
+        assertEquals(40, books.size());
+        assertTrue(explain("Fantasy", 4, 5).contains("IDX_BOOKS_GENRE_RATING"));
+    }
+
+    @Test
+    public void authorAndMinRating_shouldUseAuthorRatingIndex() {
+        List<Book> books = bookRepository.findAll(BookSpecifications.matching(
+                new BookFilter(null, "Author 20", 3, null, null, null, null)));
+        assertEquals(10, books.size());
+        assertTrue(explain("Author 20", 3).contains("IDX_BOOKS_AUTHOR_RATING"));
+    }
+
+    @Test
+    public void hasReadAndPageRange_shouldUseHasReadPagesIndex() {
+        List<Book> books = bookRepository.findAll(BookSpecifications.matching(
+                new BookFilter(null, null, null, null, 200, 299, true)));
+        assertEquals(33, books.size());
+        assertTrue(explain(true, 200, 299).contains("IDX_BOOKS_HAS_READ_PAGES"));
+    }
+
+    @Test
+    public void filteredPageSortedByRating_shouldSeekOnGenreRatingIndex() {
+        List<Book> page = bookRepository.findPage(BookSpecifications.matching(
+                        new BookFilter("Horror", null, null, null, null, null, null)),
+                "rating", Sort.Direction.ASC, null, null, 10);
+        assertEquals(10, page.size());
+        assertTrue(page.stream().allMatch(book -> book.getGenre().equals("Horror") && book.getRating() == 1));
+        assertTrue(explain("Horror", 10).contains("IDX_BOOKS_GENRE_RATING"));
+    }
+
+    private String explain(Object... parameters) {
+        String sql = LastStatement.sql;
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("explain " + sql)) {
+                for (int i = 0; i < parameters.length; i++) {
+                    statement.setObject(i + 1, parameters[i]);
+                }
+                try (ResultSet plan = statement.executeQuery()) {
+                    plan.next();
+                    return plan.getString(1);
+                }
+            }
+        });
+    }
+}
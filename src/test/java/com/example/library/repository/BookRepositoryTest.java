@@ -0,0 +1,202 @@
+package com.example.library.repository;
+
+import com.example.library.model.AuthorRating;
+import com.example.library.model.Book;
+import com.example.library.model.BookFilter;
+import com.example.library.model.BookStats;
+import com.example.library.model.GenreCount;
+import com.example.library.stats.BookStatsSummary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class BookRepositoryTest {
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @BeforeEach
+    public void setup() {
+        bookRepository.saveAll(List.of(
+                new Book(null, "Fairy Tale", "Stephen King", "Fantasy", 608, 3, true),
+                new Book(null, "The Silent Patient", "Alex Michaelides", "Thriller", 336, 4, true),
+                new Book(null, "It", "Stephen King", "Horror", 1138, null, false),
+                new Book(null, "Dune", "Frank Herbert", "Science Fiction", 412, 5, false),
+                new Book(null, "Untitled", "Unknown", null, 100, null, null)));
+    }
+
+    @Test
+    public void updateColumns_shouldWriteOnlyGivenColumnsAndIncrementVersion() {
+        Book dune = bookRepository.findByTitle("Dune").get(0);
+        Optional<Book> updated = bookRepository.updateColumns(dune.getId(), dune.getVersion(), Map.of("rating", 4));
+        assertTrue(updated.isPresent());
+        assertEquals(4, updated.get().getRating());
+        assertEquals("Frank Herbert", updated.get().getAuthor());
+        assertEquals(dune.getVersion() + 1, updated.get().getVersion());
+    }
+
+    @Test
+    public void updateColumns_shouldWriteNullsAndSkipVersionCheckWithoutExpectedVersion() {
+        Book dune = bookRepository.findByTitle("Dune").get(0);
+        Map<String, Object> columns = new HashMap<>();
+        columns.put("genre", null);
+        Optional<Book> updated = bookRepository.updateColumns(dune.getId(), null, columns);
+        assertTrue(updated.isPresent());
+        assertNull(updated.get().getGenre());
+    }
+
+    @Test
+    public void updateColumns_shouldNotUpdateStaleVersionOrMissingBook() {
+        Book dune = bookRepository.findByTitle("Dune").get(0);
+        assertTrue(bookRepository.updateColumns(dune.getId(), dune.getVersion() + 1, Map.of("rating", 1)).isEmpty());
+        assertTrue(bookRepository.updateColumns(UUID.randomUUID(), null, Map.of("rating", 1)).isEmpty());
+        assertEquals(dune.getVersion() + 1,
+                bookRepository.updateColumns(dune.getId(), dune.getVersion(), Map.of()).orElseThrow().getVersion());
+    }
+
+    @Test
+    public void findAllFields_shouldSelectOnlyRequestedColumns() {
+        List<Map<String, Object>> rows = bookRepository.findAllFields(BookSpecifications.matching(BookFilter.NONE), new LinkedHashSet<>(List.of("id", "title", "author")));
+        assertEquals(5, rows.size());
+        Map<String, Object> dune = rows.stream().filter(row -> "Dune".equals(row.get("title"))).findFirst().orElseThrow();
+        assertEquals(List.of("id", "title", "author"), List.copyOf(dune.keySet()));
+        assertEquals("Frank Herbert", dune.get("author"));
+        assertInstanceOf(UUID.class, dune.get("id"));
+    }
+
+    @Test
+    public void findFieldsByIdIn_shouldReturnOnlyGivenIds() {
+        Book dune = bookRepository.findByTitle("Dune").get(0);
+        List<Map<String, Object>> rows = bookRepository.findFieldsByIdIn(List.of(dune.getId()), Set.of("id", "rating"));
+        assertEquals(List.of(Map.of("id", dune.getId(), "rating", 5)), rows);
+        assertEquals(List.of(), bookRepository.findFieldsByIdIn(List.of(), Set.of("id")));
+    }
+
+    @Test
+    public void statsQueries_shouldMatchIncrementalSummary() {
+        BookStats stats = BookStats.of(bookRepository.countTotals(), bookRepository.countByGenre(),
+                bookRepository.averageRatingByAuthor());
+        assertEquals(5, stats.books());
+        assertEquals(2, stats.readBooks());
+        assertEquals(608 + 336, stats.pagesRead());
+        assertEquals(new GenreCount(null, 1), stats.genres().get(0));
+        assertEquals(new AuthorRating("Stephen King", 3.0, 1),
+                stats.authors().stream().filter(author -> "Stephen King".equals(author.author())).findFirst().orElseThrow());
+
+        BookStatsSummary summary = new BookStatsSummary();
+        bookRepository.findAll().forEach(summary::add);
+        assertEquals(stats, summary.stats());
+    }
+
+    @Test
+    public void findAll_shouldApplyEveryFilterCriterion() {
+        assertEquals(List.of("Fairy Tale", "It"), titles(new BookFilter(null, "Stephen King", null, null, null, null, null)));
+        assertEquals(List.of("Dune", "The Silent Patient"), titles(new BookFilter(null, null, 4, 5, null, null, null)));
+        assertEquals(List.of("Dune", "It"), titles(new BookFilter(null, null, null, null, 400, null, false)));
+        assertEquals(List.of("Fairy Tale"), titles(new BookFilter("Fantasy", null, null, 3, 100, 700, true)));
+        assertThrows(IllegalArgumentException.class,
+                () -> titles(new BookFilter(null, null, null, null, 500, 100, null)));
+    }
+
+    private List<String> titles(BookFilter filter) {
+        return bookRepository.findAll(BookSpecifications.matching(filter)).stream().map(Book::getTitle).sorted().toList();
+    }
+
+    @Test
+    public void findPage_shouldWalkEveryRowOnceOrderedById() {
+        List<Book> seen = walk("id", Sort.Direction.ASC, 2);
+        assertEquals(5, seen.size());
+        for (int i = 1; i < seen.size(); i++) {
+            assertTrue(seen.get(i - 1).getId().toString().compareTo(seen.get(i).getId().toString()) < 0);
+        }
+    }
+
+    @Test
+    public void findPage_shouldWalkEveryRowOnceOrderedByRatingIncludingNulls() {
+        List<Book> ascending = walk("rating", Sort.Direction.ASC, 2);
+        assertEquals(List.of("It", "Untitled", "Fairy Tale", "The Silent Patient", "Dune").stream().sorted().toList(),
+                ascending.stream().map(Book::getTitle).sorted().toList());
+        assertNull(ascending.get(0).getRating());
+        assertNull(ascending.get(1).getRating());
+        assertEquals(5, ascending.get(4).getRating());
+
+        List<Book> descending = walk("rating", Sort.Direction.DESC, 2);
+        assertEquals(5, descending.size());
+        assertEquals(5, descending.get(0).getRating());
+        assertNull(descending.get(3).getRating());
+        assertNull(descending.get(4).getRating());
+    }
+
+    @Test
+    public void findPage_shouldBreakTiesOnAuthorById() {
+        List<Book> seen = walk("author", Sort.Direction.ASC, 1);
+        assertEquals(List.of("Alex Michaelides", "Frank Herbert", "Stephen King", "Stephen King", "Unknown"),
+                seen.stream().map(Book::getAuthor).toList());
+        assertNotEquals(seen.get(2).getId(), seen.get(3).getId());
+    }
+
+    private List<Book> walk(String sortProperty, Sort.Direction direction, int pageSize) {
+        List<Book> seen = new ArrayList<>();
+        Object lastValue = null;
+        Book last = null;
+        while (true) {
+            List<Book> page = bookRepository.findPage(BookSpecifications.matching(BookFilter.NONE), sortProperty, direction, lastValue,
+                    last == null ? null : last.getId(), pageSize);
+            seen.addAll(page);
+            if (page.size() < pageSize) {
+                return seen;
+            }
+            last = page.get(page.size() - 1);
+            lastValue = switch (sortProperty) {
+                case "rating" -> last.getRating();
+                case "author" -> last.getAuthor();
+                default -> last.getId();
+            };
+        }
+    }
+
+    @Test
+    public void save_shouldAssignTimeOrderedIdsSoKeysetPagesFollowInsertionOrder() {
+        List<Book> page = bookRepository.findPage(BookSpecifications.matching(BookFilter.NONE), "id",
+                Sort.Direction.ASC, null, null, 10);
+        assertEquals(List.of("Fairy Tale", "The Silent Patient", "It", "Dune", "Untitled"),
+                page.stream().map(Book::getTitle).toList());
+        assertTrue(page.stream().allMatch(book -> book.getId().version() == 7));
+    }
+
+    @Test
+    public void searchByPrefix_shouldMatchAnyColumnCaseInsensitivelyAndWildcardsLiterally() {
+        bookRepository.save(new Book(null, "100% Done", "Ann_Lee", "Essays", 120, 4, false));
+        assertEquals(Set.of("Fairy Tale", "It"), titles(bookRepository.searchByPrefix(
+                BookRepository.prefixPattern("STEPH"), PageRequest.of(0, 10)).getContent()));
+        assertEquals(Set.of("Dune"), titles(bookRepository.searchByPrefix(
+                BookRepository.prefixPattern("science"), PageRequest.of(0, 10)).getContent()));
+        assertEquals(Set.of("100% Done"), titles(bookRepository.searchByPrefix(
+                BookRepository.prefixPattern("100%"), PageRequest.of(0, 10)).getContent()));
+        assertEquals(Set.of(), titles(bookRepository.searchByPrefix(
+                BookRepository.prefixPattern("_"), PageRequest.of(0, 10)).getContent()));
+        assertEquals(2, bookRepository.searchByPrefix(
+                BookRepository.prefixPattern("stephen"), PageRequest.of(0, 1)).getTotalElements());
+    }
+
+    private Set<String> titles(List<Book> books) {
+        Set<String> titles = new LinkedHashSet<>();
+        books.forEach(book -> titles.add(book.getTitle()));
+        return titles;
+    }
+}
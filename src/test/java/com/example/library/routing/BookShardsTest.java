@@ -0,0 +1,85 @@
+package com.example.library.routing;
+
+import com.example.library.id.UuidV7;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookShardsTest {
+
+    private final BookShards bookShards = new BookShards(List.of("jdbc:h2:mem:one", "jdbc:h2:mem:two"), 4);
+
+    @AfterEach
+    public void tearDown() {
+        bookShards.shutdown();
+    }
+
+    @Test
+    public void shardOf_shouldBeStableAndSpreadIdsOverEveryShard() {
+        int[] books = new int[bookShards.count()];
+        for (int i = 0; i < 3000; i++) {
+            UUID id = UuidV7.next();
+            int shard = bookShards.shardOf(id);
+            assertEquals(shard, bookShards.shardOf(UUID.fromString(id.toString())));
+            books[shard]++;
+        }
+        for (int count : books) {
+            assertTrue(count > 800, "uneven spread: " + count);
+        }
+    }
+
+    @Test
+    public void onEveryShard_shouldRunOncePinnedToEachShard() {
+        assertEquals(List.of(0, 1, 2), bookShards.onEveryShard(ShardRouting::currentShard));
+        assertEquals(ShardRouting.HOME_SHARD, ShardRouting.currentShard());
+    }
+
+    @Test
+    public void onEveryShard_shouldRethrowTheFailureOfAShard() {
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> bookShards.onEveryShard(() -> {
+            if (ShardRouting.currentShard() == 2) {
+                throw new IllegalStateException("shard 2 is down");
+            }
+            return null;
+        }));
+        assertEquals("shard 2 is down", e.getMessage());
+    }
+
+    @Test
+    public void onOwningShards_shouldGroupItemsByTheShardOfTheirId() {
+        List<UUID> ids = List.of(UuidV7.next(), UuidV7.next(), UuidV7.next(), UuidV7.next(), UuidV7.next());
+        List<List<UUID>> groups = bookShards.onOwningShards(ids, id -> id, group -> {
+            group.forEach(id -> assertEquals(bookShards.shardOf(id), ShardRouting.currentShard()));
+            return group;
+        });
+        assertEquals(ids.size(), groups.stream().mapToInt(List::size).sum());
+    }
+
+    @Test
+    public void pin_shouldRejectASecondShardWhileOneIsPinned() {
+        try (DataSourceRouting.Scope ignored = ShardRouting.pinTo(1)) {
+            try (DataSourceRouting.Scope nested = ShardRouting.pinTo(1)) {
+                assertEquals(1, ShardRouting.currentShard());
+            }
+            assertEquals(1, ShardRouting.currentShard());
+            assertThrows(IllegalStateException.class, () -> ShardRouting.pinTo(2));
+        }
+        assertEquals(ShardRouting.HOME_SHARD, ShardRouting.currentShard());
+    }
+
+    @Test
+    public void determineCurrentLookupKey_shouldFollowThePinnedShard() {
+        ShardRoutingDataSource dataSource = new ShardRoutingDataSource(
+                List.of(Mockito.mock(DataSource.class), Mockito.mock(DataSource.class)));
+        assertEquals(0, dataSource.determineCurrentLookupKey());
+        try (DataSourceRouting.Scope ignored = ShardRouting.pinTo(1)) {
+            assertEquals(1, dataSource.determineCurrentLookupKey());
+        }
+    }
+}
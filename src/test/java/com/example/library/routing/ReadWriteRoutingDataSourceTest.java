@@ -0,0 +1,70 @@
+package com.example.library.routing;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadWriteRoutingDataSourceTest {
+
+    private final DataSource primary = Mockito.mock(DataSource.class);
+
+    @AfterEach
+    public void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    public void determineCurrentLookupKey_shouldUsePrimaryOutsideReadOnlyTransactions() {
+        ReadWriteRoutingDataSource dataSource = new ReadWriteRoutingDataSource(primary,
+                List.of(Mockito.mock(DataSource.class)), ReplicaSelection.ROUND_ROBIN);
+        assertEquals(ReadWriteRoutingDataSource.PRIMARY, dataSource.determineCurrentLookupKey());
+    }
+
+    @Test
+    public void determineCurrentLookupKey_shouldRotateReplicasForReadOnlyTransactions() {
+        ReadWriteRoutingDataSource dataSource = new ReadWriteRoutingDataSource(primary,
+                List.of(Mockito.mock(DataSource.class), Mockito.mock(DataSource.class)), ReplicaSelection.ROUND_ROBIN);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertEquals(0, dataSource.determineCurrentLookupKey());
+        assertEquals(1, dataSource.determineCurrentLookupKey());
+        assertEquals(0, dataSource.determineCurrentLookupKey());
+    }
+
+    @Test
+    public void determineCurrentLookupKey_shouldUsePrimaryWhenPinned() {
+        ReadWriteRoutingDataSource dataSource = new ReadWriteRoutingDataSource(primary,
+                List.of(Mockito.mock(DataSource.class)), ReplicaSelection.ROUND_ROBIN);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        try (DataSourceRouting.Scope outer = DataSourceRouting.pinToPrimary()) {
+            try (DataSourceRouting.Scope inner = DataSourceRouting.pinToPrimary()) {
+                assertEquals(ReadWriteRoutingDataSource.PRIMARY, dataSource.determineCurrentLookupKey());
+            }
+            assertEquals(ReadWriteRoutingDataSource.PRIMARY, dataSource.determineCurrentLookupKey());
+        }
+        assertEquals(0, dataSource.determineCurrentLookupKey());
+    }
+
+    @Test
+    public void selectReplica_shouldPreferPoolWithFewestActiveConnections() {
+        ReadWriteRoutingDataSource dataSource = new ReadWriteRoutingDataSource(primary,
+                List.of(hikari(5), hikari(1), hikari(3)), ReplicaSelection.LEAST_LOADED);
+        assertEquals(1, dataSource.selectReplica());
+        assertEquals(1, dataSource.selectReplica());
+    }
+
+    private static HikariDataSource hikari(int activeConnections) {
+        HikariPoolMXBean pool = Mockito.mock(HikariPoolMXBean.class);
+        Mockito.when(pool.getActiveConnections()).thenReturn(activeConnections);
+        HikariDataSource dataSource = Mockito.mock(HikariDataSource.class);
+        Mockito.when(dataSource.getHikariPoolMXBean()).thenReturn(pool);
+        return dataSource;
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.library.search;
+
+import com.example.library.model.Book;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookSearchIndexTest {
+
+    private BookSearchIndex bookSearchIndex;
+
+    public final Book fairyTale = new Book(UUID.randomUUID(), "Fairy Tale", "Stephen King", "Fantasy", 608, 3, true);
+    public final Book kingdom = new Book(UUID.randomUUID(), "The Kingdom", "Jo Nesbo", "Thriller", 560, 4, false);
+    public final Book patient = new Book(UUID.randomUUID(), "The Silent Patient", "Alex Michaelides", "Thriller", 336, 4, true);
+
+    @BeforeEach
+    public void setup() {
+        bookSearchIndex = new BookSearchIndex();
+        bookSearchIndex.add(fairyTale);
+        bookSearchIndex.add(kingdom);
+        bookSearchIndex.add(patient);
+    }
+
+    @Test
+    public void search_shouldMatchCaseInsensitivePrefixesAndRankExactMatchesAbovePrefixMatches() {
+        SearchHits hits = bookSearchIndex.search("KING", 0, 10);
+        assertEquals(List.of(fairyTale.getId(), kingdom.getId()), hits.ids());
+        assertEquals(2, hits.total());
+    }
+
+    @Test
+    public void search_shouldRequireEveryQueryToken() {
+        SearchHits hits = bookSearchIndex.search("the thriller pat", 0, 10);
+        assertEquals(List.of(patient.getId()), hits.ids());
+    }
+
+    @Test
+    public void search_shouldPaginateRankedResults() {
+        SearchHits hits = bookSearchIndex.search("thriller", 1, 1);
+        assertEquals(1, hits.ids().size());
+        assertEquals(2, hits.total());
+    }
+
+    @Test
+    public void add_shouldReplaceTokensOfUpdatedBook() {
+        Book renamed = new Book(fairyTale.getId(), "Holly", "Stephen King", "Thriller", 464, 4, false);
+        bookSearchIndex.add(renamed);
+        assertEquals(0, bookSearchIndex.search("fairy", 0, 10).total());
+        assertEquals(List.of(renamed.getId()), bookSearchIndex.search("holly", 0, 10).ids());
+    }
+
+    @Test
+    public void remove_shouldDropBookFromResults() {
+        bookSearchIndex.remove(patient.getId());
+        assertEquals(List.of(kingdom.getId()), bookSearchIndex.search("thriller", 0, 10).ids());
+        assertEquals(2, bookSearchIndex.size());
+    }
+
+    @Test
+    public void add_shouldIgnoreOlderVersionOfABook() {
+        bookSearchIndex.add(new Book(kingdom.getId(), "The Snowman", "Jo Nesbo", "Thriller", 560, 4, false, 2L, null));
+        bookSearchIndex.add(new Book(kingdom.getId(), "The Kingdom", "Jo Nesbo", "Thriller", 560, 4, false, 1L, null));
+        assertEquals(List.of(kingdom.getId()), bookSearchIndex.search("snowman", 0, 10).ids());
+        assertEquals(List.of(), bookSearchIndex.search("kingdom", 0, 10).ids());
+    }
+
+    @Test
+    public void add_shouldSkipOlderSnapshotRowsAndBooksDeletedWhileLoading() {
+        BookSearchIndex loading = new BookSearchIndex();
+        loading.add(new Book(kingdom.getId(), "The Snowman", "Jo Nesbo", "Thriller", 560, 4, false, 2L, null));
+        loading.remove(patient.getId());
+
+        loading.add(new Book(kingdom.getId(), "The Kingdom", "Jo Nesbo", "Thriller", 560, 4, false, 1L, null));
+        loading.add(patient);
+        loading.add(fairyTale);
+        loading.markReady();
+
+        assertEquals(2, loading.size());
+        assertEquals(List.of(kingdom.getId()), loading.search("snowman", 0, 10).ids());
+        assertEquals(List.of(), loading.search("patient", 0, 10).ids());
+    }
+
+    @Test
+    public void add_shouldNotBringBackABookWhoseDeleteWasAppliedFirst() {
+        bookSearchIndex.markReady();
+        bookSearchIndex.remove(patient.getId());
+        bookSearchIndex.add(new Book(patient.getId(), "The Silent Patient", "Alex Michaelides", "Thriller", 336, 5, true, 1L, null));
+        assertEquals(List.of(), bookSearchIndex.search("patient", 0, 10).ids());
+        assertEquals(2, bookSearchIndex.size());
+    }
+}
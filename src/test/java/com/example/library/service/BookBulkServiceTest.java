@@ -0,0 +1,124 @@
+package com.example.library.service;
+
+import com.example.library.cache.BookCache;
+import com.example.library.changes.BookChangeRecorder;
+import com.example.library.model.Book;
+import com.example.library.model.BookChange;
+import com.example.library.model.BulkItemResult;
+import com.example.library.repository.BookChangeRepository;
+import com.example.library.repository.BookRepository;
+import com.example.library.routing.BookShards;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import({BookBulkService.class, BookCache.class, BookChangeRecorder.class, BookShards.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = "library.bulk.chunk-size=2")
+class BookBulkServiceTest {
+
+    @Autowired
+    private BookBulkService bookBulkService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookChangeRepository bookChangeRepository;
+
+    @AfterEach
+    public void cleanup() {
+        bookRepository.deleteAllInBatch();
+        bookChangeRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void createAll_shouldPersistEveryBookAcrossChunks() {
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            books.add(new Book(null, "Title " + i, "Author", "Fantasy", 100 + i, 3, false));
+        }
+        List<BulkItemResult> results = bookBulkService.createAll(books.iterator());
+        assertEquals(5, results.size());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i, results.get(i).index());
+            assertEquals(BulkItemResult.Status.CREATED, results.get(i).status());
+            assertNotNull(results.get(i).id());
+        }
+        assertEquals(5, bookRepository.count());
+        assertEquals(5, bookChangeRepository.findAll().stream()
+                .filter(change -> change.getType() == BookChange.Type.CREATED).count());
+    }
+
+    @Test
+    public void createAll_shouldReportUnreadableItemAndKeepEarlierItems() {
+        Book book = new Book(null, "Fairy Tale", "Stephen King", "Fantasy", 608, 3, true);
+        List<BulkItemResult> results = bookBulkService.createAll(new Iterator<>() {
+            private boolean returned;
+
+            @Override
+            public boolean hasNext() {
+                if (returned) {
+                    throw new IllegalStateException("bad json");
+                }
+                return true;
+            }
+
+            @Override
+            public Book next() {
+                returned = true;
+                return book;
+            }
+        });
+        assertEquals(2, results.size());
+        assertEquals(BulkItemResult.Status.CREATED, results.get(0).status());
+        assertEquals(BulkItemResult.Status.FAILED, results.get(1).status());
+        assertEquals(1, bookRepository.count());
+    }
+
+    @Test
+    public void patchAll_shouldUpdateExistingBooksAndReportMissingOnes() {
+        Book saved = bookRepository.save(new Book(null, "Fairy Tale", "Stephen King", "Fantasy", 608, 3, true));
+        Book changes = new Book();
+        changes.setId(saved.getId());
+        changes.setRating(5);
+        Book missing = new Book();
+        missing.setId(UUID.randomUUID());
+        List<BulkItemResult> results = bookBulkService.patchAll(List.of(changes, missing).iterator());
+        assertEquals(BulkItemResult.Status.UPDATED, results.get(0).status());
+        assertEquals(BulkItemResult.Status.NOT_FOUND, results.get(1).status());
+        Book patched = bookRepository.findById(saved.getId()).orElseThrow();
+        assertEquals(5, patched.getRating());
+        assertEquals("Fairy Tale", patched.getTitle());
+    }
+
+    @Test
+    public void deleteAll_shouldDeleteExistingBooksAndReportMissingOnes() {
+        Book saved = bookRepository.save(new Book(null, "Fairy Tale", "Stephen King", "Fantasy", 608, 3, true));
+        UUID missing = UUID.randomUUID();
+        List<BulkItemResult> results = bookBulkService.deleteAll(List.of(saved.getId(), missing).iterator());
+        assertEquals(BulkItemResult.Status.DELETED, results.get(0).status());
+        assertEquals(BulkItemResult.Status.NOT_FOUND, results.get(1).status());
+        assertEquals(0, bookRepository.count());
+        List<BookChange> recorded = bookChangeRepository.findAll();
+        assertEquals(1, recorded.size());
+        assertEquals(BookChange.Type.DELETED, recorded.get(0).getType());
+        assertEquals(saved.getId(), recorded.get(0).getBookId());
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.library.service;
+
+import com.example.library.model.Book;
+import com.example.library.model.BookFields;
+import com.example.library.model.SearchResult;
+import com.example.library.repository.BookRepository;
+import com.example.library.routing.BookShards;
+import com.example.library.search.BookSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookSearchServiceTest {
+
+    private BookSearchService bookSearchService;
+    private BookSearchIndex bookSearchIndex;
+    private BookRepository mockBookRepository;
+
+    public final Book fairyTale = new Book(UUID.randomUUID(), "Fairy Tale", "Stephen King", "Fantasy", 608, 3, true);
+    public final Book kingdom = new Book(UUID.randomUUID(), "The Kingdom", "Jo Nesbo", "Thriller", 560, 4, false);
+
+    @BeforeEach
+    public void setup() {
+        bookSearchIndex = new BookSearchIndex();
+        mockBookRepository = Mockito.mock(BookRepository.class);
+        bookSearchService = new BookSearchService(bookSearchIndex, Mockito.mock(BookService.class), mockBookRepository,
+                new BookShards(List.of(), 1), new SyncTaskExecutor());
+    }
+
+    @Test
+    public void search_shouldReturnBooksInRankOrderOnceIndexIsReady() {
+        bookSearchIndex.add(fairyTale);
+        bookSearchIndex.add(kingdom);
+        bookSearchIndex.markReady();
+        Mockito.when(mockBookRepository.findAllById(List.of(fairyTale.getId(), kingdom.getId())))
+                .thenReturn(List.of(kingdom, fairyTale));
+        SearchResult<Book> result = bookSearchService.search("king", 0, 20);
+        assertEquals(List.of(fairyTale, kingdom), result.content());
+        assertEquals(2, result.total());
+    }
+
+    @Test
+    public void search_shouldFallBackToDatabaseBeforeIndexIsReady() {
+        Mockito.when(mockBookRepository.searchByPrefix(Mockito.eq("fairy%"), Mockito.any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(fairyTale)));
+        SearchResult<Book> result = bookSearchService.search("Fairy", 0, 20);
+        assertEquals(List.of(fairyTale), result.content());
+    }
+
+    @Test
+    public void searchWithFields_shouldReturnProjectedRowsInRankOrder() {
+        bookSearchIndex.add(fairyTale);
+        bookSearchIndex.add(kingdom);
+        bookSearchIndex.markReady();
+        Set<String> fields = BookFields.parse("title");
+        Mockito.when(mockBookRepository.findFieldsByIdIn(List.of(fairyTale.getId(), kingdom.getId()), fields))
+                .thenReturn(List.of(Map.of("id", kingdom.getId(), "title", "The Kingdom"),
+                        Map.of("id", fairyTale.getId(), "title", "Fairy Tale")));
+        SearchResult<Map<String, Object>> result = bookSearchService.search("king", 0, 20, fields);
+        assertEquals(List.of("Fairy Tale", "The Kingdom"), result.content().stream().map(row -> row.get("title")).toList());
+        Mockito.verify(mockBookRepository, Mockito.never()).findAllById(Mockito.any());
+    }
+
+    @Test
+    public void searchWithFields_shouldProjectFallbackResults() {
+        Mockito.when(mockBookRepository.searchByPrefix(Mockito.eq("fairy%"), Mockito.any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(fairyTale)));
+        SearchResult<Map<String, Object>> result = bookSearchService.search("Fairy", 0, 20, BookFields.parse("author"));
+        assertEquals(List.of(Map.of("id", fairyTale.getId(), "author", "Stephen King")), result.content());
+    }
+
+    @Test
+    public void search_throwsExceptionWhenSizeIsInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> bookSearchService.search("king", 0, 0));
+    }
+}
@@ -1,16 +1,34 @@
 package com.example.library.service;
 
+import com.example.library.cache.BookCache;
+import com.example.library.changes.BookChangeRecorder;
+import com.example.library.event.BookDeletedEvent;
+import com.example.library.event.BookSavedEvent;
 import com.example.library.exceptions.BookNotFoundException;
+import com.example.library.exceptions.BookVersionMismatchException;
 import com.example.library.model.Book;
+import com.example.library.model.BookCursor;
+import com.example.library.model.BookFilter;
+import com.example.library.model.BookLookup;
+import com.example.library.model.BookPage;
 import com.example.library.repository.BookRepository;
+import com.example.library.routing.BookShards;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -18,6 +36,10 @@ class BookServiceTest {
 
     private BookService bookService;
     private BookRepository mockBookRepository;
+    private EntityManager mockEntityManager;
+    private BookCache bookCache;
+    private ApplicationEventPublisher mockEventPublisher;
+    private BookChangeRecorder mockChangeRecorder;
 
     public final Book input = new Book(null, "Fairy Tale", "Stephen King", "Fantasy", 608, 3, true);
     public final Book input2 = new Book(null, "The Silent Patient", "Alex Michaelides", "Thriller", 336, 4, true);
@@ -29,7 +51,12 @@ class BookServiceTest {
     @BeforeEach
     public void setup() {
         mockBookRepository = Mockito.mock(BookRepository.class);
-        bookService = new BookService(mockBookRepository);
+        mockEntityManager = Mockito.mock(EntityManager.class);
+        bookCache = new BookCache(100, Duration.ofMinutes(10));
+        mockEventPublisher = Mockito.mock(ApplicationEventPublisher.class);
+        mockChangeRecorder = Mockito.mock(BookChangeRecorder.class);
+        bookService = new BookService(mockBookRepository, mockEntityManager, bookCache, mockEventPublisher,
+                mockChangeRecorder, new BookShards(List.of(), 1), Mockito.mock(PlatformTransactionManager.class));
     }
 
     @Test
@@ -39,6 +66,20 @@ class BookServiceTest {
         assertEquals(recordWithId, response);
     }
 
+    @Test
+    public void create_shouldPublishSavedEvent() {
+        Mockito.when(mockBookRepository.save(Mockito.any())).thenReturn(recordWithId);
+        bookService.create(input);
+        Mockito.verify(mockEventPublisher).publishEvent(new BookSavedEvent(recordWithId));
+    }
+
+    @Test
+    public void create_shouldRecordChange() {
+        Mockito.when(mockBookRepository.save(Mockito.any())).thenReturn(recordWithId);
+        bookService.create(input);
+        Mockito.verify(mockChangeRecorder).recordCreated(recordWithId);
+    }
+
     @Test
     public void getAll_shouldReturnListOfBooks() {
         List<Book> books = new ArrayList<>();
@@ -49,6 +90,45 @@ class BookServiceTest {
         assertEquals(books, response);
     }
 
+    @Test
+    public void getPage_shouldReturnNextCursorWhenMoreRowsExist() {
+        Mockito.when(mockBookRepository.findPage(Mockito.any(), Mockito.eq("title"), Mockito.eq(Sort.Direction.ASC),
+                Mockito.isNull(), Mockito.isNull(), Mockito.eq(2)))
+                .thenReturn(List.of(recordWithId, recordWithId2));
+        BookPage response = bookService.getPage(BookFilter.NONE, BookCursor.first("title", Sort.Direction.ASC), 1);
+        assertEquals(List.of(recordWithId), response.content());
+        BookCursor next = BookCursor.decode(response.nextCursor());
+        assertEquals("Fairy Tale", next.lastValue());
+        assertEquals(recordWithId.getId(), next.lastId());
+    }
+
+    @Test
+    public void getPage_shouldReturnNoCursorOnLastPage() {
+        BookCursor cursor = BookCursor.after("title", Sort.Direction.ASC, recordWithId);
+        Mockito.when(mockBookRepository.findPage(Mockito.any(), Mockito.eq("title"), Mockito.eq(Sort.Direction.ASC),
+                Mockito.eq("Fairy Tale"), Mockito.eq(recordWithId.getId()), Mockito.eq(3)))
+                .thenReturn(List.of(recordWithId2));
+        BookPage response = bookService.getPage(BookFilter.NONE, cursor, 2);
+        assertEquals(List.of(recordWithId2), response.content());
+        assertNull(response.nextCursor());
+    }
+
+    @Test
+    public void getPage_throwsExceptionWhenSizeIsTooLarge() {
+        assertThrows(IllegalArgumentException.class,
+                () -> bookService.getPage(BookFilter.NONE, BookCursor.first("id", Sort.Direction.ASC), BookService.MAX_PAGE_SIZE + 1));
+    }
+
+    @Test
+    public void streamAll_shouldPassEveryBookToConsumerAndDetachIt() {
+        Mockito.when(mockBookRepository.streamAll()).thenReturn(Stream.of(recordWithId, recordWithId2));
+        List<Book> streamed = new ArrayList<>();
+        bookService.streamAll(streamed::add);
+        assertEquals(List.of(recordWithId, recordWithId2), streamed);
+        Mockito.verify(mockEntityManager).detach(recordWithId);
+        Mockito.verify(mockEntityManager).detach(recordWithId2);
+    }
+
     @Test
     public void getById_shouldReturnBook() {
         Mockito.when(mockBookRepository.findById(recordWithId.getId())).thenReturn(Optional.of(recordWithId));
@@ -56,6 +136,36 @@ class BookServiceTest {
         assertEquals(recordWithId, response);
     }
 
+    @Test
+    public void getById_shouldServeRepeatedLookupsFromCache() {
+        Mockito.when(mockBookRepository.findById(recordWithId.getId())).thenReturn(Optional.of(recordWithId));
+        bookService.getById(recordWithId.getId());
+        Book response = bookService.getById(recordWithId.getId());
+        assertEquals(recordWithId, response);
+        Mockito.verify(mockBookRepository, Mockito.times(1)).findById(recordWithId.getId());
+        assertEquals(1, bookService.getCacheStats().hits());
+        assertEquals(1, bookService.getCacheStats().misses());
+    }
+
+    @Test
+    public void getById_shouldReloadAfterPatchInvalidatesCache() {
+        Mockito.when(mockBookRepository.findById(recordWithId.getId())).thenReturn(Optional.of(recordWithId));
+        Mockito.when(mockBookRepository.updateColumns(Mockito.eq(recordWithId.getId()), Mockito.any(), Mockito.any()))
+                .thenReturn(Optional.of(recordWithId));
+        bookService.getById(recordWithId.getId());
+        bookService.patch(new Book(), recordWithId.getId());
+        bookService.getById(recordWithId.getId());
+        Mockito.verify(mockBookRepository, Mockito.times(2)).findById(recordWithId.getId());
+    }
+
+    @Test
+    public void delete_shouldInvalidateCache() {
+        Mockito.when(mockBookRepository.findById(recordWithId.getId())).thenReturn(Optional.of(recordWithId));
+        bookService.getById(recordWithId.getId());
+        bookService.delete(recordWithId.getId());
+        assertEquals(0, bookService.getCacheStats().size());
+    }
+
     @Test
     public void getById_throwsExceptionWhenBookWasNotFound() {
        Mockito.when(mockBookRepository.findById(id)).thenReturn(Optional.empty());
@@ -71,127 +181,180 @@ class BookServiceTest {
     }
 
     @Test
-    public void update_shouldReturnUpdatedBook() {
-        Mockito.when(mockBookRepository.findById(recordWithId.getId())).thenReturn(Optional.of(recordWithId));
-        Mockito.when(mockBookRepository.save(Mockito.any())).thenReturn(recordWithId);
+    public void update_shouldWriteEveryColumnInOneStatement() {
+        Mockito.when(mockBookRepository.updateColumns(Mockito.eq(recordWithId.getId()), Mockito.isNull(), Mockito.any()))
+                .thenReturn(Optional.of(recordWithId2));
         Book response = bookService.update(input2, recordWithId.getId());
-        assertEquals(recordWithId, response);
+        assertEquals(recordWithId2, response);
+        Map<String, Object> columns = new LinkedHashMap<>();
+        columns.put("title", "The Silent Patient");
+        columns.put("author", "Alex Michaelides");
+        columns.put("genre", "Thriller");
+        columns.put("numberOfPages", 336);
+        columns.put("rating", 4);
+        columns.put("hasRead", true);
+        Mockito.verify(mockBookRepository).updateColumns(recordWithId.getId(), null, columns);
+        Mockito.verify(mockBookRepository, Mockito.never()).findById(Mockito.any());
+        Mockito.verify(mockEventPublisher).publishEvent(new BookSavedEvent(recordWithId2));
     }
 
     @Test
     public void update_throwsExceptionWhenBookWasNotFound() {
-        Mockito.when(mockBookRepository.findById(id)).thenReturn(Optional.empty());
+        Mockito.when(mockBookRepository.updateColumns(Mockito.eq(id), Mockito.any(), Mockito.any())).thenReturn(Optional.empty());
         BookNotFoundException exception = assertThrows(BookNotFoundException.class, () -> bookService.update(input, id));
         assertEquals("A book with id: " + id + " was not found.", exception.getMessage());
+        Mockito.verifyNoInteractions(mockChangeRecorder);
+    }
+
+    @Test
+    public void update_throwsExceptionWhenVersionDoesNotMatch() {
+        Mockito.when(mockBookRepository.updateColumns(Mockito.eq(id), Mockito.eq(3L), Mockito.any())).thenReturn(Optional.empty());
+        Mockito.when(mockBookRepository.existsById(id)).thenReturn(true);
+        BookVersionMismatchException exception = assertThrows(BookVersionMismatchException.class,
+                () -> bookService.update(input, id, 3L));
+        assertEquals("A book with id: " + id + " is not at version 3.", exception.getMessage());
     }
 
     @Test
     public void patch_throwsExceptionWhenBookWasNotFound() {
-        Mockito.when(mockBookRepository.findById(id)).thenReturn(Optional.empty());
+        Mockito.when(mockBookRepository.updateColumns(Mockito.eq(id), Mockito.any(), Mockito.any())).thenReturn(Optional.empty());
         BookNotFoundException exception = assertThrows(BookNotFoundException.class, () -> bookService.patch(input, id));
         assertEquals("A book with id: " + id + " was not found.", exception.getMessage());
     }
 
     @Test
-    public void patch_shouldReturnUpdatedTitle() {
+    public void patch_throwsNotFoundWhenVersionedBookWasDeleted() {
+        Mockito.when(mockBookRepository.updateColumns(Mockito.eq(id), Mockito.eq(3L), Mockito.any())).thenReturn(Optional.empty());
+        Mockito.when(mockBookRepository.existsById(id)).thenReturn(false);
+        assertThrows(BookNotFoundException.class, () -> bookService.patch(input, id, 3L));
+    }
+
+    @Test
+    public void patch_shouldPassExpectedVersionToRepository() {
+        Mockito.when(mockBookRepository.updateColumns(Mockito.eq(recordWithId.getId()), Mockito.eq(2L), Mockito.any()))
+                .thenReturn(Optional.of(recordWithId));
+        Book response = bookService.patch(input, recordWithId.getId(), 2L);
+        assertEquals(recordWithId, response);
+    }
+
+    @Test
+    public void patch_shouldOnlyWriteUpdatedTitle() {
         Book input = new Book();
         input.setTitle("War and Peace");
-        Mockito.when(mockBookRepository.findById(recordWithId.getId())).thenReturn(Optional.of(recordWithId));
-        Mockito.when(mockBookRepository.save(Mockito.any())).thenAnswer(i -> i.getArguments()[0]);
-        Book response = bookService.patch(input, recordWithId.getId());
-        assertEquals(recordWithId.getId(), response.getId());
-        assertEquals("War and Peace", response.getTitle());
-        assertEquals("Stephen King", response.getAuthor());
-        assertEquals("Fantasy", response.getGenre());
-        assertEquals(608, response.getNumberOfPages());
-        assertEquals(3, response.getRating());
-        assertEquals(true, response.getHasRead());
+        Mockito.when(mockBookRepository.updateColumns(Mockito.eq(recordWithId.getId()), Mockito.isNull(), Mockito.any()))
+                .thenReturn(Optional.of(recordWithId));
+        bookService.patch(input, recordWithId.getId());
+        Mockito.verify(mockBookRepository).updateColumns(recordWithId.getId(), null, Map.of("title", "War and Peace"));
     }
 
     @Test
-    public void patch_shouldReturnUpdatedAuthor() {
+    public void patch_shouldOnlyWriteUpdatedAuthor() {
         Book input = new Book();
         input.setAuthor("Michael Crichton");
-        Mockito.when(mockBookRepository.findById(recordWithId.getId())).thenReturn(Optional.of(recordWithId));
-        Mockito.when(mockBookRepository.save(Mockito.any())).thenAnswer(i -> i.getArguments()[0]);
-        Book response = bookService.patch(input, recordWithId.getId());
-        assertEquals(recordWithId.getId(), response.getId());
-        assertEquals("Fairy Tale", response.getTitle());
-        assertEquals("Michael Crichton", response.getAuthor());
-        assertEquals("Fantasy", response.getGenre());
-        assertEquals(608, response.getNumberOfPages());
-        assertEquals(3, response.getRating());
-        assertEquals(true, response.getHasRead());
+        Mockito.when(mockBookRepository.updateColumns(Mockito.eq(recordWithId.getId()), Mockito.isNull(), Mockito.any()))
+                .thenReturn(Optional.of(recordWithId));
+        bookService.patch(input, recordWithId.getId());
+        Mockito.verify(mockBookRepository).updateColumns(recordWithId.getId(), null, Map.of("author", "Michael Crichton"));
     }
 
     @Test
-    public void patch_shouldReturnUpdatedGenre() {
+    public void patch_shouldOnlyWriteUpdatedGenre() {
         Book input = new Book();
         input.setGenre("Fiction");
-        Mockito.when(mockBookRepository.findById(recordWithId.getId())).thenReturn(Optional.of(recordWithId));
-        Mockito.when(mockBookRepository.save(Mockito.any())).thenAnswer(i -> i.getArguments()[0]);
-        Book response = bookService.patch(input, recordWithId.getId());
-        assertEquals(recordWithId.getId(), response.getId());
-        assertEquals("Fairy Tale", response.getTitle());
-        assertEquals("Stephen King", response.getAuthor());
-        assertEquals("Fiction", response.getGenre());
-        assertEquals(608, response.getNumberOfPages());
-        assertEquals(3, response.getRating());
-        assertEquals(true, response.getHasRead());
+        Mockito.when(mockBookRepository.updateColumns(Mockito.eq(recordWithId.getId()), Mockito.isNull(), Mockito.any()))
+                .thenReturn(Optional.of(recordWithId));
+        bookService.patch(input, recordWithId.getId());
+        Mockito.verify(mockBookRepository).updateColumns(recordWithId.getId(), null, Map.of("genre", "Fiction"));
     }
 
     @Test
-    public void patch_shouldReturnUpdatedNumberOfPages() {
+    public void patch_shouldOnlyWriteUpdatedNumberOfPages() {
         Book input = new Book();
         input.setNumberOfPages(500);
-        Mockito.when(mockBookRepository.findById(recordWithId.getId())).thenReturn(Optional.of(recordWithId));
-        Mockito.when(mockBookRepository.save(Mockito.any())).thenAnswer(i -> i.getArguments()[0]);
-        Book response = bookService.patch(input, recordWithId.getId());
-        assertEquals(recordWithId.getId(), response.getId());
-        assertEquals("Fairy Tale", response.getTitle());
-        assertEquals("Stephen King", response.getAuthor());
-        assertEquals("Fantasy", response.getGenre());
-        assertEquals(500, response.getNumberOfPages());
-        assertEquals(3, response.getRating());
-        assertEquals(true, response.getHasRead());
+        Mockito.when(mockBookRepository.updateColumns(Mockito.eq(recordWithId.getId()), Mockito.isNull(), Mockito.any()))
+                .thenReturn(Optional.of(recordWithId));
+        bookService.patch(input, recordWithId.getId());
+        Mockito.verify(mockBookRepository).updateColumns(recordWithId.getId(), null, Map.of("numberOfPages", 500));
     }
 
     @Test
-    public void patch_shouldReturnUpdatedRating() {
+    public void patch_shouldOnlyWriteUpdatedRating() {
         Book input = new Book();
         input.setRating(4);
-        Mockito.when(mockBookRepository.findById(recordWithId.getId())).thenReturn(Optional.of(recordWithId));
-        Mockito.when(mockBookRepository.save(Mockito.any())).thenAnswer(i -> i.getArguments()[0]);
-        Book response = bookService.patch(input, recordWithId.getId());
-        assertEquals(recordWithId.getId(), response.getId());
-        assertEquals("Fairy Tale", response.getTitle());
-        assertEquals("Stephen King", response.getAuthor());
-        assertEquals("Fantasy", response.getGenre());
-        assertEquals(608, response.getNumberOfPages());
-        assertEquals(4, response.getRating());
-        assertEquals(true, response.getHasRead());
+        Mockito.when(mockBookRepository.updateColumns(Mockito.eq(recordWithId.getId()), Mockito.isNull(), Mockito.any()))
+                .thenReturn(Optional.of(recordWithId));
+        bookService.patch(input, recordWithId.getId());
+        Mockito.verify(mockBookRepository).updateColumns(recordWithId.getId(), null, Map.of("rating", 4));
     }
 
     @Test
-    public void patch_shouldReturnUpdatedHasRead() {
+    public void patch_shouldOnlyWriteUpdatedHasRead() {
         Book input = new Book();
         input.setHasRead(false);
-        Mockito.when(mockBookRepository.findById(recordWithId.getId())).thenReturn(Optional.of(recordWithId));
-        Mockito.when(mockBookRepository.save(Mockito.any())).thenAnswer(i -> i.getArguments()[0]);
-        Book response = bookService.patch(input, recordWithId.getId());
-        assertEquals(recordWithId.getId(), response.getId());
-        assertEquals("Fairy Tale", response.getTitle());
-        assertEquals("Stephen King", response.getAuthor());
-        assertEquals("Fantasy", response.getGenre());
-        assertEquals(608, response.getNumberOfPages());
-        assertEquals(3, response.getRating());
-        assertEquals(false, response.getHasRead());
+        Mockito.when(mockBookRepository.updateColumns(Mockito.eq(recordWithId.getId()), Mockito.isNull(), Mockito.any()))
+                .thenReturn(Optional.of(recordWithId));
+        bookService.patch(input, recordWithId.getId());
+        Mockito.verify(mockBookRepository).updateColumns(recordWithId.getId(), null, Map.of("hasRead", false));
     }
 
     @Test
     public void delete_callsRepositoryDeleteMethod() {
         bookService.delete(id);
         Mockito.verify(mockBookRepository).deleteById(id);
+        Mockito.verify(mockEventPublisher).publishEvent(new BookDeletedEvent(id));
+        Mockito.verifyNoInteractions(mockChangeRecorder);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void delete_shouldRecordChangeForExistingBook() {
+        Mockito.when(mockBookRepository.findById(recordWithId.getId())).thenReturn(Optional.of(recordWithId));
+        bookService.delete(recordWithId.getId());
+        Mockito.verify(mockChangeRecorder).recordDeleted(recordWithId);
+    }
+
+
+    @Test
+    public void getByIds_returnsBooksInRequestOrderWithNotFoundMarkers() {
+        UUID missing = UUID.randomUUID();
+        Book other = new Book(UUID.randomUUID(), "The Silent Patient", "Alex Michaelides", "Thriller", 336, 4, true);
+        Mockito.when(mockBookRepository.findAllById(Mockito.any())).thenReturn(List.of(other, recordWithId));
+        List<BookLookup> lookups = bookService.getByIds(List.of(recordWithId.getId(), missing, other.getId(), recordWithId.getId()));
+        assertEquals(List.of(BookLookup.found(recordWithId), BookLookup.notFound(missing), BookLookup.found(other),
+                BookLookup.found(recordWithId)), lookups);
+        Mockito.verify(mockBookRepository).findAllById(List.of(recordWithId.getId(), missing, other.getId()));
+    }
+
+    @Test
+    public void getByIds_onlyLoadsCacheMissesInChunks() {
+        Mockito.when(mockBookRepository.findById(recordWithId.getId())).thenReturn(Optional.of(recordWithId));
+        bookService.getById(recordWithId.getId());
+        List<UUID> ids = new ArrayList<>();
+        ids.add(recordWithId.getId());
+        for (int i = 0; i < BookService.BATCH_GET_CHUNK_SIZE + 1; i++) {
+            ids.add(UUID.randomUUID());
+        }
+        List<BookLookup> lookups = bookService.getByIds(ids);
+        assertEquals(BookLookup.Status.FOUND, lookups.get(0).status());
+        assertEquals(BookLookup.Status.NOT_FOUND, lookups.get(1).status());
+        Mockito.verify(mockBookRepository).findAllById(ids.subList(1, BookService.BATCH_GET_CHUNK_SIZE + 1));
+        Mockito.verify(mockBookRepository).findAllById(ids.subList(BookService.BATCH_GET_CHUNK_SIZE + 1, ids.size()));
+    }
+
+    @Test
+    public void getByIds_throwsExceptionWhenTooManyIds() {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i <= BookService.MAX_BATCH_GET_SIZE; i++) {
+            ids.add(UUID.randomUUID());
+        }
+        assertThrows(IllegalArgumentException.class, () -> bookService.getByIds(ids));
+        Mockito.verifyNoInteractions(mockBookRepository);
+    }
+
+    @Test
+    public void merge_shouldInterleaveSortedListsUpToTheLimit() {
+        List<Integer> merged = BookService.merge(List.of(List.of(1, 4, 7), List.of(2, 3, 9), List.of(), List.of(5)),
+                Integer::compare, 5);
+        assertEquals(List.of(1, 2, 3, 4, 5), merged);
+        assertEquals(List.of(9, 7), BookService.merge(List.of(List.of(7), List.of(9)), (a, b) -> Integer.compare(b, a), 10));
+    }
+}
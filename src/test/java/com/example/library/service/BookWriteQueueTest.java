@@ -0,0 +1,165 @@
+package com.example.library.service;
+
+import com.example.library.event.BookWriteCompletedEvent;
+import com.example.library.exceptions.BookNotFoundException;
+import com.example.library.exceptions.BookVersionMismatchException;
+import com.example.library.exceptions.WriteNotFoundException;
+import com.example.library.exceptions.WriteQueueFullException;
+import com.example.library.model.Book;
+import com.example.library.model.WriteStatus;
+import com.example.library.routing.BookShards;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookWriteQueueTest {
+
+    private final BookService mockBookService = Mockito.mock(BookService.class);
+    private final PlatformTransactionManager mockTransactionManager = Mockito.mock(PlatformTransactionManager.class);
+    private final ApplicationEventPublisher mockEventPublisher = Mockito.mock(ApplicationEventPublisher.class);
+    private BookWriteQueue bookWriteQueue;
+
+    public final Book input = new Book(null, "Fairy Tale", "Stephen King", "Fantasy", 608, 3, true);
+    public final UUID id = UUID.fromString("59c47568-fde0-4dd7-9aef-03db6a962810");
+
+    @AfterEach
+    public void tearDown() {
+        if (bookWriteQueue != null) {
+            bookWriteQueue.stop();
+        }
+    }
+
+    private BookWriteQueue queue(int capacity, int maxGroupSize) {
+        bookWriteQueue = new BookWriteQueue(mockBookService, new BookShards(List.of(), 1), mockTransactionManager, mockEventPublisher,
+                capacity, maxGroupSize, Duration.ofMillis(5), Duration.ofMinutes(10), 1000);
+        return bookWriteQueue;
+    }
+
+    private static Book saved(Book book) {
+        return new Book(UUID.randomUUID(), book.getTitle(), book.getAuthor(), book.getGenre(),
+                book.getNumberOfPages(), book.getRating(), book.getHasRead(), 0L, null);
+    }
+
+    @Test
+    public void submit_shouldCommitQueuedWritesInOneTransaction() throws Exception {
+        Mockito.when(mockBookService.create(Mockito.any(), Mockito.any())).thenAnswer(invocation -> saved(invocation.getArgument(0)));
+        BookWriteQueue queue = queue(10, 10);
+        WriteStatus first = queue.submitCreate(input);
+        WriteStatus second = queue.submitCreate(input);
+        WriteStatus third = queue.submitCreate(input);
+        assertEquals(WriteStatus.Status.PENDING, queue.getStatus(first.id()).status());
+        assertEquals(3, queue.depth());
+
+        queue.start();
+        for (WriteStatus accepted : new WriteStatus[]{first, second, third}) {
+            WriteStatus status = queue.completion(accepted.id()).get(5, TimeUnit.SECONDS);
+            assertEquals(WriteStatus.Status.COMPLETED, status.status());
+            assertNotNull(status.bookId());
+            assertEquals(0L, status.bookVersion());
+        }
+        assertEquals(1, queue.groups());
+        assertEquals(3, queue.groupedWrites());
+        assertEquals(3, queue.completed());
+        Mockito.verify(mockTransactionManager, Mockito.times(1)).getTransaction(Mockito.any());
+        Mockito.verify(mockEventPublisher, Mockito.times(3)).publishEvent(Mockito.any(BookWriteCompletedEvent.class));
+    }
+
+    @Test
+    public void submit_shouldSplitQueuedWritesIntoGroupsOfMaxGroupSize() throws Exception {
+        Mockito.when(mockBookService.create(Mockito.any(), Mockito.any())).thenAnswer(invocation -> saved(invocation.getArgument(0)));
+        BookWriteQueue queue = queue(10, 2);
+        WriteStatus last = null;
+        for (int i = 0; i < 5; i++) {
+            last = queue.submitCreate(input);
+        }
+
+        queue.start();
+        queue.completion(last.id()).get(5, TimeUnit.SECONDS);
+        assertEquals(3, queue.groups());
+        assertEquals(5, queue.groupedWrites());
+    }
+
+    @Test
+    public void submit_shouldThrowWhenQueueIsFull() {
+        BookWriteQueue queue = queue(2, 10);
+        queue.submitCreate(input);
+        queue.submitCreate(input);
+        assertThrows(WriteQueueFullException.class, () -> queue.submitCreate(input));
+        assertEquals(2, queue.accepted());
+        assertEquals(1, queue.rejected());
+    }
+
+    @Test
+    public void submit_shouldFailOnlyTheBadWriteWhenAGroupFails() throws Exception {
+        UUID missing = UUID.randomUUID();
+        Mockito.when(mockBookService.create(Mockito.any(), Mockito.any())).thenAnswer(invocation -> saved(invocation.getArgument(0)));
+        Mockito.when(mockBookService.patch(Mockito.any(), Mockito.eq(missing), Mockito.any()))
+                .thenThrow(new BookNotFoundException("missing"));
+        Mockito.when(mockBookService.patch(Mockito.any(), Mockito.eq(id), Mockito.eq(1L)))
+                .thenThrow(new BookVersionMismatchException("stale"));
+        BookWriteQueue queue = queue(10, 10);
+        WriteStatus created = queue.submitCreate(input);
+        WriteStatus notFound = queue.submitPatch(input, missing, null);
+        WriteStatus stale = queue.submitPatch(input, id, 1L);
+
+        queue.start();
+        assertEquals(WriteStatus.Status.COMPLETED, queue.completion(created.id()).get(5, TimeUnit.SECONDS).status());
+        assertEquals(WriteStatus.Status.NOT_FOUND, queue.completion(notFound.id()).get(5, TimeUnit.SECONDS).status());
+        WriteStatus staleStatus = queue.completion(stale.id()).get(5, TimeUnit.SECONDS);
+        assertEquals(WriteStatus.Status.PRECONDITION_FAILED, staleStatus.status());
+        assertEquals("stale", staleStatus.error());
+        assertEquals(1, queue.completed());
+        assertEquals(2, queue.failed());
+        // the group attempt plus one transaction per write
+        Mockito.verify(mockTransactionManager, Mockito.times(4)).getTransaction(Mockito.any());
+    }
+
+    @Test
+    public void submit_shouldCreateAFreshBookOnEachAttempt() throws Exception {
+        Mockito.when(mockBookService.create(Mockito.any(), Mockito.any())).thenAnswer(invocation -> {
+            Book book = invocation.getArgument(0);
+            assertNull(book.getId());
+            book.setId(invocation.getArgument(1));
+            return book;
+        });
+        Mockito.when(mockBookService.patch(Mockito.any(), Mockito.any(), Mockito.any()))
+                .thenThrow(new BookNotFoundException("missing"));
+        BookWriteQueue queue = queue(10, 10);
+        WriteStatus created = queue.submitCreate(input);
+        queue.submitPatch(input, id, null);
+
+        queue.start();
+        assertEquals(WriteStatus.Status.COMPLETED, queue.completion(created.id()).get(5, TimeUnit.SECONDS).status());
+        // the retry keeps the id picked at submission, which decides the book's shard
+        Mockito.verify(mockBookService, Mockito.times(2)).create(Mockito.any(), Mockito.eq(queue.getStatus(created.id()).bookId()));
+        assertNull(input.getId());
+    }
+
+    @Test
+    public void stop_shouldApplyQueuedWritesAndRejectNewOnes() {
+        Mockito.when(mockBookService.create(Mockito.any(), Mockito.any())).thenAnswer(invocation -> saved(invocation.getArgument(0)));
+        BookWriteQueue queue = queue(10, 10);
+        WriteStatus accepted = queue.submitCreate(input);
+        queue.start();
+        queue.stop();
+
+        assertEquals(WriteStatus.Status.COMPLETED, queue.getStatus(accepted.id()).status());
+        assertEquals(0, queue.depth());
+        assertThrows(WriteQueueFullException.class, () -> queue.submitCreate(input));
+    }
+
+    @Test
+    public void getStatus_shouldThrowWhenWriteNotFound() {
+        BookWriteQueue queue = queue(10, 10);
+        assertThrows(WriteNotFoundException.class, () -> queue.getStatus(id));
+    }
+}
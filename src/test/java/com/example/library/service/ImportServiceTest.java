@@ -0,0 +1,167 @@
+package com.example.library.service;
+
+import com.example.library.changes.BookChangeRecorder;
+import com.example.library.model.Book;
+import com.example.library.model.BookChange;
+import com.example.library.model.ImportJob;
+import com.example.library.model.ImportStatus;
+import com.example.library.repository.BookChangeRepository;
+import com.example.library.repository.BookRepository;
+import com.example.library.repository.ImportJobRepository;
+import com.example.library.routing.BookShards;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ImportServiceTest {
+
+    @TempDir
+    Path directory;
+
+    @Autowired
+    private ImportJobRepository importJobRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookChangeRepository bookChangeRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private ImportService importService;
+
+    @BeforeEach
+    public void setup() {
+        importService = new ImportService(importJobRepository, new BookShards(List.of(), 1), entityManager, transactionTemplate, eventPublisher,
+                new BookChangeRecorder(bookChangeRepository, new ObjectMapper()), new ObjectMapper(), new SimpleAsyncTaskExecutor(), directory, 2, 1);
+    }
+
+    @AfterEach
+    public void cleanup() {
+        bookChangeRepository.deleteAllInBatch();
+        bookRepository.deleteAllInBatch();
+        importJobRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void importLocal_shouldImportCsvInBatchesAndRejectInvalidRows() throws Exception {
+        Files.writeString(directory.resolve("books.csv"), """
+                title,author,genre,numberOfPages,rating,hasRead
+                Fairy Tale,Stephen King,Fantasy,608,3,true
+                ,Nobody,Fantasy,1,1,false
+                The Silent Patient,Alex Michaelides,Thriller,336,4,true
+                Dune,Frank Herbert,Science Fiction,412,5,false
+                """, StandardCharsets.UTF_8);
+        ImportStatus status = awaitFinished(importService.importLocal("books.csv", null).id());
+        assertEquals(ImportJob.Status.COMPLETED, status.status());
+        assertEquals(3, status.rowsCommitted());
+        assertEquals(1, status.rowsRejected());
+        assertEquals(status.sizeBytes(), status.committedOffset());
+        assertEquals(3, bookRepository.count());
+        assertEquals(3, bookChangeRepository.count());
+        assertTrue(bookChangeRepository.findAll().stream().allMatch(change -> change.getType() == BookChange.Type.CREATED));
+    }
+
+    @Test
+    public void importLocal_shouldRejectPathsOutsideImportDirectory() {
+        assertThrows(IllegalArgumentException.class, () -> importService.importLocal("../secrets.csv", ImportJob.Format.CSV));
+    }
+
+    @Test
+    public void resume_shouldContinueFromCommittedOffset() throws Exception {
+        String first = "{\"title\":\"Fairy Tale\"}\n";
+        Path file = directory.resolve("books.ndjson");
+        Files.writeString(file, first + "{\"title\":\"Dune\"}\n{\"title\":\"It\"}\n", StandardCharsets.UTF_8);
+        ImportJob job = new ImportJob(file.toString(), ImportJob.Format.NDJSON, Files.size(file));
+        job.setStatus(ImportJob.Status.FAILED);
+        job.setCommittedOffset(first.getBytes(StandardCharsets.UTF_8).length);
+        job.setRowsCommitted(1);
+        UUID id = importJobRepository.save(job).getId();
+
+        ImportStatus status = awaitFinished(importService.resume(id).id());
+        assertEquals(ImportJob.Status.COMPLETED, status.status());
+        assertEquals(3, status.rowsCommitted());
+        assertEquals(2, bookRepository.count());
+        assertTrue(bookRepository.findAll().stream().map(Book::getTitle).noneMatch("Fairy Tale"::equals));
+    }
+
+    @Test
+    public void resume_shouldRejectAJobThatIsAlreadyRunning() throws Exception {
+        // jobs are only queued, so the first resume is still running when the second arrives
+        Queue<Runnable> tasks = new ArrayDeque<>();
+        ImportService importService = new ImportService(importJobRepository, new BookShards(List.of(), 1), entityManager,
+                transactionTemplate, eventPublisher, new BookChangeRecorder(bookChangeRepository, new ObjectMapper()),
+                new ObjectMapper(), tasks::add, directory, 2, 1);
+        Path file = directory.resolve("books.ndjson");
+        Files.writeString(file, "{\"title\":\"Fairy Tale\"}\n{\"title\":\"Dune\"}\n", StandardCharsets.UTF_8);
+        ImportJob job = new ImportJob(file.toString(), ImportJob.Format.NDJSON, Files.size(file));
+        job.setStatus(ImportJob.Status.FAILED);
+        UUID id = importJobRepository.save(job).getId();
+
+        importService.resume(id);
+        assertThrows(IllegalStateException.class, () -> importService.resume(id));
+        assertEquals(1, tasks.size());
+        tasks.poll().run();
+
+        assertEquals(ImportJob.Status.COMPLETED, importService.getStatus(id).status());
+        assertEquals(2, bookRepository.count());
+        assertThrows(IllegalStateException.class, () -> importService.resume(id));
+    }
+
+    @Test
+    public void importLocal_shouldNotNeedASpareExecutorThreadForTheReader() throws Exception {
+        // a synchronous executor runs the job on the caller and has no thread left over for anything else
+        ImportService importService = new ImportService(importJobRepository, new BookShards(List.of(), 1), entityManager,
+                transactionTemplate, eventPublisher, new BookChangeRecorder(bookChangeRepository, new ObjectMapper()),
+                new ObjectMapper(), new SyncTaskExecutor(), directory, 2, 1);
+        Files.writeString(directory.resolve("books.ndjson"),
+                "{\"title\":\"Fairy Tale\"}\n{\"title\":\"Dune\"}\n{\"title\":\"It\"}\n", StandardCharsets.UTF_8);
+
+        ImportStatus status = importService.importLocal("books.ndjson", null);
+        assertEquals(ImportJob.Status.COMPLETED, status.status());
+        assertEquals(3, bookRepository.count());
+    }
+
+    private ImportStatus awaitFinished(UUID id) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            ImportStatus status = importService.getStatus(id);
+            if (status.status() != ImportJob.Status.RUNNING) {
+                return status;
+            }
+            Thread.sleep(50);
+        }
+        fail("Import " + id + " did not finish.");
+        return null;
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.library.service;
+
+import com.example.library.cache.BookCache;
+import com.example.library.event.BookDeletedEvent;
+import com.example.library.event.BookSavedEvent;
+import com.example.library.exceptions.BookNotFoundException;
+import com.example.library.model.Book;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.r2dbc.spi.ConnectionFactories;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReactiveBookServiceTest {
+
+    private ReactiveBookService bookService;
+    private DatabaseClient databaseClient;
+    private ApplicationEventPublisher mockEventPublisher;
+
+    public final Book input = new Book(null, "Fairy Tale", "Stephen King", "Fantasy", 608, 3, true);
+
+    @BeforeEach
+    public void setup() {
+        databaseClient = DatabaseClient.create(
+                ConnectionFactories.get("r2dbc:h2:mem:///reactive-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1"));
+        databaseClient.sql("create table books (id uuid primary key, title varchar(255), author varchar(255), "
+                + "genre varchar(255), number_of_pages integer, rating integer, has_read boolean, "
+                + "version bigint default 0 not null, updated_at timestamp(6) with time zone, "
+                + "title_lc varchar(255) generated always as (lower(title)), "
+                + "author_lc varchar(255) generated always as (lower(author)), "
+                + "genre_lc varchar(255) generated always as (lower(genre)))").then().block();
+        databaseClient.sql("create sequence book_changes_seq start with 1 increment by 50").then().block();
+        databaseClient.sql("create table book_changes (id bigint primary key, book_id uuid not null, "
+                + "type enum ('CREATED', 'DELETED', 'UPDATED') not null, book_version bigint, payload varchar(4000), "
+                + "created_at timestamp(6) with time zone not null, published_seq bigint)").then().block();
+        mockEventPublisher = Mockito.mock(ApplicationEventPublisher.class);
+        bookService = new ReactiveBookService(databaseClient,
+                TransactionalOperator.create(new R2dbcTransactionManager(databaseClient.getConnectionFactory())),
+                new BookCache(10, Duration.ofMinutes(1)), mockEventPublisher, new ObjectMapper().findAndRegisterModules());
+    }
+
+    @Test
+    public void create_shouldInsertBookAndPublishEvent() {
+        Book created = bookService.create(input).block();
+        assertNotNull(created.getId());
+        Mockito.verify(mockEventPublisher).publishEvent(new BookSavedEvent(created));
+        StepVerifier.create(bookService.getById(created.getId()))
+                .assertNext(book -> assertEquals("Fairy Tale", book.getTitle()))
+                .verifyComplete();
+    }
+
+    @Test
+    public void getAll_shouldHonourDemand() {
+        for (int i = 0; i < 5; i++) {
+            bookService.create(new Book(null, "Book " + i, "Author", "Genre", i, 1, false)).block();
+        }
+        StepVerifier.create(bookService.getAll(), 2)
+                .expectNextCount(2)
+                .thenRequest(3)
+                .expectNextCount(3)
+                .verifyComplete();
+    }
+
+    @Test
+    public void getById_shouldErrorWhenBookNotFound() {
+        StepVerifier.create(bookService.getById(UUID.randomUUID()))
+                .expectError(BookNotFoundException.class)
+                .verify();
+    }
+
+    @Test
+    public void patch_shouldOnlyChangeProvidedColumns() {
+        Book created = bookService.create(input).block();
+        Book changes = new Book();
+        changes.setRating(5);
+        StepVerifier.create(bookService.patch(changes, created.getId()))
+                .assertNext(book -> {
+                    assertEquals(5, book.getRating());
+                    assertEquals("Fairy Tale", book.getTitle());
+                    assertEquals(608, book.getNumberOfPages());
+                    assertEquals(1L, book.getVersion());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    public void update_shouldErrorWhenBookNotFound() {
+        StepVerifier.create(bookService.update(input, UUID.randomUUID()))
+                .expectError(BookNotFoundException.class)
+                .verify();
+    }
+
+    @Test
+    public void search_shouldMatchCaseInsensitivePrefix() {
+        bookService.create(input).block();
+        StepVerifier.create(bookService.search("STEPH", 0, 20))
+                .assertNext(book -> assertEquals("Stephen King", book.getAuthor()))
+                .verifyComplete();
+    }
+
+    @Test
+    public void search_shouldMatchWildcardsLiterally() {
+        bookService.create(input).block();
+        bookService.create(new Book(null, "100% Done", "Ann_Lee", "Essays", 120, 4, false)).block();
+        StepVerifier.create(bookService.search("100%", 0, 20).map(Book::getTitle))
+                .expectNext("100% Done")
+                .verifyComplete();
+        StepVerifier.create(bookService.search("%", 0, 20)).verifyComplete();
+        StepVerifier.create(bookService.search("ann_", 0, 20).map(Book::getTitle))
+                .expectNext("100% Done")
+                .verifyComplete();
+        StepVerifier.create(bookService.search("_", 0, 20)).verifyComplete();
+    }
+
+    @Test
+    public void search_shouldReturnOnePageOrderedByTitle() {
+        bookService.create(new Book(null, "It", "Stephen King", "Horror", 1138, null, false)).block();
+        bookService.create(input).block();
+        bookService.create(new Book(null, "Carrie", "Stephen King", "Horror", 199, 4, true)).block();
+        StepVerifier.create(bookService.search("stephen", 1, 2).map(Book::getTitle))
+                .expectNext("It")
+                .verifyComplete();
+        StepVerifier.create(bookService.search("stephen", 0, 0))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+    }
+
+    @Test
+    public void delete_shouldRemoveBookAndPublishEvent() {
+        Book created = bookService.create(input).block();
+        bookService.delete(created.getId()).block();
+        Mockito.verify(mockEventPublisher).publishEvent(new BookDeletedEvent(created.getId()));
+        StepVerifier.create(bookService.getAll()).verifyComplete();
+    }
+
+    @Test
+    public void writes_shouldRecordChangesInTheOutbox() {
+        Book created = bookService.create(input).block();
+        Book changes = new Book();
+        changes.setRating(5);
+        bookService.patch(changes, created.getId()).block();
+        bookService.delete(created.getId()).block();
+        StepVerifier.create(databaseClient.sql("select type, book_version from book_changes where book_id = :id order by id")
+                        .bind("id", created.getId())
+                        .map(row -> row.get("type", String.class) + "@" + row.get("book_version", Long.class))
+                        .all())
+                .expectNext("CREATED@0", "UPDATED@1", "DELETED@1")
+                .verifyComplete();
+    }
+
+    @Test
+    public void update_shouldNotRecordAChangeWhenBookNotFound() {
+        StepVerifier.create(bookService.update(input, UUID.randomUUID()))
+                .expectError(BookNotFoundException.class)
+                .verify();
+        StepVerifier.create(databaseClient.sql("select count(*) from book_changes").map(row -> row.get(0, Long.class)).one())
+                .expectNext(0L)
+                .verifyComplete();
+    }
+}
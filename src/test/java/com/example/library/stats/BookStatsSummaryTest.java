@@ -0,0 +1,108 @@
+package com.example.library.stats;
+
+import com.example.library.model.AuthorRating;
+import com.example.library.model.Book;
+import com.example.library.model.BookStats;
+import com.example.library.model.GenreCount;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookStatsSummaryTest {
+
+    private BookStatsSummary summary;
+
+    public final Book fairyTale = new Book(UUID.randomUUID(), "Fairy Tale", "Stephen King", "Fantasy", 608, 3, true);
+    public final Book it = new Book(UUID.randomUUID(), "It", "Stephen King", "Horror", 1138, 4, false);
+    public final Book untitled = new Book(UUID.randomUUID(), "Untitled", "Unknown", null, null, null, null);
+
+    @BeforeEach
+    public void setup() {
+        summary = new BookStatsSummary();
+        summary.add(fairyTale);
+        summary.add(it);
+        summary.add(untitled);
+    }
+
+    @Test
+    public void stats_shouldAggregateAddedBooks() {
+        BookStats stats = summary.stats();
+        assertEquals(3, stats.books());
+        assertEquals(1, stats.readBooks());
+        assertEquals(1.0 / 3, stats.readRatio());
+        assertEquals(608, stats.pagesRead());
+        assertEquals(List.of(new GenreCount(null, 1), new GenreCount("Fantasy", 1), new GenreCount("Horror", 1)), stats.genres());
+        assertEquals(List.of(new AuthorRating("Stephen King", 3.5, 2)), stats.authors());
+    }
+
+    @Test
+    public void add_shouldReplacePreviousContributionOfSameBook() {
+        BookStats before = summary.stats();
+        summary.add(new Book(it.getId(), "It", "Stephen King", "Fantasy", 1138, 5, true));
+        BookStats stats = summary.stats();
+        assertNotSame(before, stats);
+        assertEquals(3, stats.books());
+        assertEquals(2, stats.readBooks());
+        assertEquals(608 + 1138, stats.pagesRead());
+        assertEquals(List.of(new GenreCount("Fantasy", 2), new GenreCount(null, 1)), stats.genres());
+        assertEquals(List.of(new AuthorRating("Stephen King", 4.0, 2)), stats.authors());
+    }
+
+    @Test
+    public void remove_shouldSubtractContributionAndIgnoreUnknownIds() {
+        summary.remove(fairyTale.getId());
+        summary.remove(UUID.randomUUID());
+        BookStats stats = summary.stats();
+        assertEquals(2, stats.books());
+        assertEquals(0, stats.readBooks());
+        assertEquals(0, stats.readRatio());
+        assertEquals(0, stats.pagesRead());
+        assertEquals(List.of(new GenreCount(null, 1), new GenreCount("Horror", 1)), stats.genres());
+        assertEquals(List.of(new AuthorRating("Stephen King", 4.0, 1)), stats.authors());
+    }
+
+    @Test
+    public void stats_shouldBeReusedUntilNextChange() {
+        assertSame(summary.stats(), summary.stats());
+    }
+
+    @Test
+    public void add_shouldIgnoreOlderVersionOfABook() {
+        summary.add(new Book(it.getId(), "It", "Stephen King", "Horror", 1138, 4, false, 2L, null));
+        summary.add(new Book(it.getId(), "It", "Stephen King", "Fantasy", 1138, 1, true, 1L, null));
+        BookStats stats = summary.stats();
+        assertEquals(1, stats.readBooks());
+        assertEquals(List.of(new AuthorRating("Stephen King", 3.5, 2)), stats.authors());
+    }
+
+    @Test
+    public void add_shouldSkipOlderSnapshotRowsAndBooksDeletedWhileLoading() {
+        BookStatsSummary loading = new BookStatsSummary();
+        loading.add(new Book(it.getId(), "It", "Stephen King", "Horror", 1138, 5, true, 3L, null));
+        loading.remove(fairyTale.getId());
+
+        loading.add(new Book(it.getId(), "It", "Stephen King", "Horror", 1138, 4, false, 2L, null));
+        loading.add(fairyTale);
+        loading.markReady();
+        loading.add(untitled);
+
+        BookStats stats = loading.stats();
+        assertEquals(2, stats.books());
+        assertEquals(1, stats.readBooks());
+        assertEquals(List.of(new AuthorRating("Stephen King", 5.0, 1)), stats.authors());
+    }
+
+    @Test
+    public void add_shouldNotBringBackABookWhoseDeleteWasAppliedFirst() {
+        summary.markReady();
+        summary.remove(it.getId());
+        summary.add(new Book(it.getId(), "It", "Stephen King", "Horror", 1138, 5, true, 1L, null));
+        BookStats stats = summary.stats();
+        assertEquals(2, stats.books());
+        assertEquals(List.of(new AuthorRating("Stephen King", 3.0, 1)), stats.authors());
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.library.wire;
+
+import com.example.library.model.Book;
+import com.example.library.model.BookFields;
+import com.google.protobuf.CodedInputStream;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookProtobufCodecTest {
+
+    private final Book fairyTale = new Book(UUID.randomUUID(), "Fairy Tale", "Stephen King", "Fantasy", 608, 3, true, 2L, null);
+    private final Book untitled = new Book(UUID.randomUUID(), "Untitled", "Unknown", null, 0, null, false, 0L, null);
+
+    @Test
+    public void readBook_shouldRoundTripWrittenBook() throws IOException {
+        assertEquals(fields(fairyTale), fields(readBook(write(fairyTale))));
+        assertEquals(fields(untitled), fields(readBook(write(untitled))));
+    }
+
+    @Test
+    public void write_shouldEncodeListAsLengthDelimitedBooks() throws IOException {
+        CodedInputStream in = CodedInputStream.newInstance(write(List.of(fairyTale, untitled)));
+        List<Map<String, Object>> books = new ArrayList<>();
+        for (int tag = in.readTag(); tag != 0; tag = in.readTag()) {
+            assertEquals(1, com.google.protobuf.WireFormat.getTagFieldNumber(tag));
+            books.add(fields(readBook(in.readByteArray())));
+        }
+        assertEquals(List.of(fields(fairyTale), fields(untitled)), books);
+    }
+
+    @Test
+    public void write_shouldOmitFieldsMissingFromSparseRows() throws IOException {
+        Book book = readBook(write(BookFields.project(fairyTale, BookFields.parse("title"))));
+        assertEquals(fairyTale.getId(), book.getId());
+        assertEquals("Fairy Tale", book.getTitle());
+        assertNull(book.getAuthor());
+        assertNull(book.getVersion());
+    }
+
+    @Test
+    public void readBook_shouldRejectMalformedId() {
+        byte[] message = {0x0a, 0x02, 0x01, 0x02};
+        assertThrows(IOException.class, () -> readBook(message));
+    }
+
+    static Map<String, Object> fields(Book book) {
+        return BookFields.project(book, new LinkedHashSet<>(BookFields.ALL));
+    }
+
+    private static byte[] write(Object value) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        BookProtobufCodec.write(value, outputStream);
+        return outputStream.toByteArray();
+    }
+
+    private static Book readBook(byte[] message) throws IOException {
+        return BookProtobufCodec.readBook(new ByteArrayInputStream(message));
+    }
+}